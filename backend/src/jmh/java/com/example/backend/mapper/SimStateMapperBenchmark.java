@@ -0,0 +1,82 @@
+package com.example.backend.mapper;
+
+import com.example.backend.dto.SimStateDTO;
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+import com.example.backend.service.SimulationMode;
+import com.example.backend.snapshot.SimulationSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimStateMapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int machineCount;
+
+    @Param({"50"})
+    private int depth;
+
+    private final Map<String, Machine> machines = new LinkedHashMap<>();
+    private final Map<String, SimQueue> queues = new LinkedHashMap<>();
+    private SimulationSnapshot snapshot;
+    private SimStateMapper.Layout layout;
+
+    @Setup
+    public void setUp() {
+        Map<String, String> colors = new HashMap<>();
+        Map<String, String> states = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        Map<String, List<String>> contents = new HashMap<>();
+
+        // a chain, each machine between its own input and output queue
+        SimQueue previous = addQueue("Q0", sizes, contents);
+        for (int i = 0; i < machineCount; i++) {
+            SimQueue next = addQueue("Q" + (i + 1), sizes, contents);
+            Machine machine = new Machine("M" + i);
+            machine.getInputQueues().add(previous);
+            machine.getOutputQueues().add(next);
+            machines.put(machine.getId(), machine);
+            colors.put(machine.getId(), new Product().getColor());
+            states.put(machine.getId(), i % 2 == 0 ? "BUSY" : "IDLE");
+            previous = next;
+        }
+        snapshot = new SimulationSnapshot(colors, states, sizes, contents, 0);
+        layout = SimStateMapper.toLayout(machines, queues, 0);
+    }
+
+    private SimQueue addQueue(String id, Map<String, Integer> sizes, Map<String, List<String>> contents) {
+        SimQueue queue = new SimQueue(id);
+        List<String> colors = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            colors.add(new Product().getColor());
+        }
+        queues.put(id, queue);
+        sizes.put(id, depth);
+        contents.put(id, colors);
+        return queue;
+    }
+
+    @Benchmark
+    public SimStateDTO toDTO() {
+        return SimStateMapper.toDTO(snapshot, machines, queues, SimulationMode.LIVE);
+    }
+
+    // what the publisher does between graph changes
+    @Benchmark
+    public SimStateDTO toDTOWithLayout() {
+        return SimStateMapper.toDTO(snapshot, machines, queues, SimulationMode.LIVE, layout);
+    }
+}
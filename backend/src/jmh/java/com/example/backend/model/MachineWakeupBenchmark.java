@@ -0,0 +1,70 @@
+package com.example.backend.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round trip from a put on an empty queue until the idle machine waiting on
+ * it has taken the product, i.e. the wakeup latency of the readiness signal.
+ * The machine runs only its input wait on a thread of its own, no service time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachineWakeupBenchmark {
+
+    @Param({"PARK", "SPIN_THEN_PARK"})
+    private WaitStrategy waitStrategy;
+
+    private SimQueue input;
+    private Machine machine;
+    private Thread consumer;
+    private final AtomicLong taken = new AtomicLong();
+    private final Product product = new Product();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        input = new SimQueue("Q");
+        machine = new Machine("M");
+        machine.getInputQueues().add(input);
+        machine.setWaitStrategy(waitStrategy);
+        machine.setRunning(true);
+        input.attach(machine);
+
+        consumer = new Thread(() -> {
+            try {
+                while (true) {
+                    machine.dequeueFromAnyInput();
+                    taken.incrementAndGet();
+                }
+            } catch (InterruptedException ignored) {
+                // stopped
+            }
+        }, "Machine-M");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        machine.stopMachine();
+        machine.wakeUp();
+        consumer.join(1000);
+    }
+
+    @Benchmark
+    public long putAndAwaitTake() {
+        long before = taken.get();
+        input.put(product);
+        long now;
+        while ((now = taken.get()) == before) {
+            Thread.onSpinWait();
+        }
+        return now;
+    }
+}
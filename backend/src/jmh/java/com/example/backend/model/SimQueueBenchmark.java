@@ -0,0 +1,59 @@
+package com.example.backend.model;
+
+import com.example.backend.model.buffer.QueueBackend;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producers and consumers hitting one queue at the same time. The group runs
+ * one of each by default; scale either side with JMH's thread-group option,
+ * e.g. {@code -tg 4,1} for four producers and one consumer.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimQueueBenchmark {
+
+    // producers back off above this depth so a slower consumer side cannot grow the queue without bound
+    private static final int MAX_DEPTH = 10_000;
+
+    @Param({"LINKED", "RING"})
+    private QueueBackend backend;
+
+    private SimQueue queue;
+    private Product product;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = new SimQueue("Q", backend.create(MAX_DEPTH * 2));
+        product = new Product();
+    }
+
+    @Benchmark
+    @Group("putTake")
+    @GroupThreads(1)
+    public void put(Control control) {
+        while (queue.size() >= MAX_DEPTH && !control.stopMeasurement) {
+            Thread.onSpinWait();
+        }
+        queue.put(product);
+    }
+
+    @Benchmark
+    @Group("putTake")
+    @GroupThreads(1)
+    public void take(Control control, Blackhole bh) {
+        // an empty poll is not a take; stopMeasurement releases consumers once producers are done
+        Product p;
+        while ((p = queue.take()) == null && !control.stopMeasurement) {
+            Thread.onSpinWait();
+        }
+        bh.consume(p);
+    }
+}
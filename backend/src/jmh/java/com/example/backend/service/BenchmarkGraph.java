@@ -0,0 +1,43 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+
+/**
+ * A chain Q0 -> M0 -> Q1 -> ... -> Qn with every queue filled to the same
+ * depth, registered directly on the state service so setup stays quiet.
+ */
+final class BenchmarkGraph {
+
+    private BenchmarkGraph() {
+    }
+
+    static SimulationStateService chain(int machines, int depth) {
+        SimulationStateService state = new SimulationStateService();
+        SimQueue previous = queue(state, "Q0", depth);
+        for (int i = 0; i < machines; i++) {
+            SimQueue next = queue(state, "Q" + (i + 1), depth);
+            Machine machine = new Machine("M" + i);
+            machine.setOnStateChange(() -> state.markDirty(machine));
+            machine.getInputQueues().add(previous);
+            machine.getOutputQueues().add(next);
+            state.getMachines().put(machine.getId(), machine);
+            state.getAllMachines().add(machine);
+            previous = next;
+        }
+        state.markAllDirty();
+        return state;
+    }
+
+    private static SimQueue queue(SimulationStateService state, String id, int depth) {
+        SimQueue queue = new SimQueue(id);
+        for (int i = 0; i < depth; i++) {
+            queue.put(new Product());
+        }
+        queue.setOnUpdate(() -> state.markDirty(queue));
+        state.getQueues().put(id, queue);
+        state.getAllQueues().add(queue);
+        return queue;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+import com.example.backend.snapshot.SimulationCareTaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One frame after a handful of queues moved a product, at different queue
+ * depths. The frame should cost the same however deep the queues are.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotServiceBenchmark {
+
+    @Param({"0", "100", "10000"})
+    private int depth;
+
+    @Param({"8"})
+    private int changedQueues;
+
+    private SnapshotService snapshotService;
+    private SimulationCareTaker caretaker;
+    private List<SimQueue> queues;
+    private final Product product = new Product();
+    private long time = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulationStateService state = BenchmarkGraph.chain(64, depth);
+        caretaker = new SimulationCareTaker();
+        snapshotService = new SnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "caretaker", caretaker);
+        ReflectionTestUtils.setField(snapshotService, "stateService", state);
+        ReflectionTestUtils.setField(snapshotService, "ssePublisherService", new SsePublisherService());
+        ReflectionTestUtils.setField(snapshotService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(snapshotService, "publishMode", PublishMode.INLINE);
+        snapshotService.init();
+        queues = List.copyOf(state.getAllQueues()).subList(0, changedQueues);
+    }
+
+    // a fresh history per iteration keeps memory flat over a long run
+    @Setup(Level.Iteration)
+    public void clearHistory() {
+        snapshotService.clearHistory();
+        snapshotService.recordFrame(time++); // the full first frame is not what is measured
+    }
+
+    @Benchmark
+    public void recordFrame() {
+        for (SimQueue queue : queues) {
+            queue.put(product);
+            queue.take();
+        }
+        snapshotService.recordFrame(time++);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.backend.service;
+
+import com.example.backend.snapshot.SimulationCareTaker;
+import com.example.backend.snapshot.SimulationSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost on the publishing thread of handing one frame to many clients. Frames
+ * are encoded lazily by the first sender that needs them and delivered to
+ * emitters that discard everything, so {@code publishSnapshot} measures the
+ * fan-out alone and {@code encode} the one-off serialization it defers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SsePublisherBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int clients;
+
+    @Param({"FULL", "DELTA"})
+    private StreamProtocol protocol;
+
+    private SsePublisherService publisher;
+    private SimulationStateService state;
+    private SnapshotService snapshotService;
+    private SimulationSnapshot snapshot;
+
+    private static class DiscardingEmitter extends SseEmitter {
+        DiscardingEmitter() {
+            super(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            // dropped on the floor, there is no connection behind it
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        state = BenchmarkGraph.chain(20, 20);
+        publisher = new SsePublisherService();
+        ReflectionTestUtils.setField(publisher, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(publisher, "jsonMapper", JsonMapper.builder().build());
+        ReflectionTestUtils.setField(publisher, "stateService", state);
+        ReflectionTestUtils.setField(publisher, "bufferSize", 64);
+        ReflectionTestUtils.setField(publisher, "dropPolicy", FrameDropPolicy.DROP_OLDEST);
+        ReflectionTestUtils.setField(publisher, "maxLagMillis", Long.MAX_VALUE / 1_000_000);
+        publisher.init();
+        for (int i = 0; i < clients; i++) {
+            publisher.register(new DiscardingEmitter(), protocol);
+        }
+
+        snapshotService = new SnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "caretaker", new SimulationCareTaker());
+        ReflectionTestUtils.setField(snapshotService, "stateService", state);
+        ReflectionTestUtils.setField(snapshotService, "ssePublisherService", publisher);
+        ReflectionTestUtils.setField(snapshotService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(snapshotService, "publishMode", PublishMode.INLINE);
+        snapshotService.init();
+        snapshotService.recordFrame(0);
+        snapshot = snapshotService.getCurrentSnapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Benchmark
+    public void publishSnapshot() {
+        publisher.publishSnapshot(snapshot, state.getMachines(), state.getQueues(), SimulationMode.LIVE);
+    }
+
+    @Benchmark
+    public EncodedFrame encode() {
+        return publisher.encode(snapshot, state.getMachines(), state.getQueues(), SimulationMode.LIVE);
+    }
+}
@@ -1,45 +1,198 @@
 package com.example.backend;
 
 import com.example.backend.model.Product;
+import com.example.backend.model.ProductEventLog;
+import com.example.backend.model.ProductEventType;
+import com.example.backend.model.ProductFlow;
+import com.example.backend.model.SimulationClock;
 import com.example.backend.model.SimQueue;
+import com.example.backend.model.distribution.Distribution;
+import com.example.backend.model.distribution.UniformDistribution;
+import com.example.backend.trace.TraceReader;
+import com.example.backend.trace.TraceRecord;
+import com.example.backend.util.ColorGenerator;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
 
 public class InputGenerator implements Runnable {
 
+    // delay before the first product so clients can attach to the stream
+    public static final long START_DELAY = 2000;
+
+    // one product to place: delay in ms after the previous arrival (after START_DELAY for the first)
+    public record Arrival(long delay, Product product, SimQueue queue) {
+    }
+
     private final SimQueue outputQueue;
-    private final int productCount;
+    private final int productCount; // exact for random arrivals, an upper bound for a trace (0 reads all of it)
+    private final Distribution interArrivalTime;
+    private final SplittableRandom random; // only used by the thread that drives the generator
     private volatile boolean running = true;
+    private ProductFlow flow;
+    private ProductEventLog eventLog;
+    private SimulationClock clock = new SimulationClock();
+
+    // replayed arrivals instead of random ones; entry queues by the ids the trace uses
+    private final TraceReader trace;
+    private final Map<String, SimQueue> entryQueues;
+    private long lastTraceTime = -1;
+    private int produced = 0;
 
     public InputGenerator(SimQueue outputQueue, int productCount) {
+        this(outputQueue, productCount, new UniformDistribution(1000, 3000), new SplittableRandom());
+    }
+
+    public InputGenerator(SimQueue outputQueue, int productCount, Distribution interArrivalTime,
+                          SplittableRandom random) {
+        this(outputQueue, productCount, interArrivalTime, random, null, Map.of());
+    }
+
+    private InputGenerator(SimQueue outputQueue, int productCount, Distribution interArrivalTime,
+                           SplittableRandom random, TraceReader trace, Map<String, SimQueue> entryQueues) {
         this.outputQueue = outputQueue;
         this.productCount = productCount;
+        this.interArrivalTime = interArrivalTime;
+        this.random = random;
+        this.trace = trace;
+        this.entryQueues = entryQueues;
+    }
+
+    // arrivals read from the trace; records without a queue enter outputQueue, without a color draw one
+    public static InputGenerator fromTrace(SimQueue outputQueue, int limit, TraceReader trace,
+                                           Map<String, SimQueue> entryQueues, SplittableRandom random) {
+        return new InputGenerator(outputQueue, limit, null, random, trace, entryQueues);
     }
 
     @Override
     public void run() {
-
-
         try {
-            Thread.sleep(2000);
+            clock.sleep(START_DELAY);
+
+            Arrival arrival;
+            while (running && (arrival = nextArrival()) != null) {
+                clock.sleep(arrival.delay()); // random interval or trace gap, in simulated time
+                arrived(arrival);
+                // a full bounded queue throttles generation until a machine takes from it
+                while (!arrival.queue().offer(arrival.product(), 100, TimeUnit.MILLISECONDS)) {
+                    if (!running)
+                        return;
+                }
+                if (flow != null)
+                    flow.generated(arrival.queue());
+            }
+            if (running)
+                generationDone();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            // a broken trace ends generation, the products already placed still finish the run
+            System.out.println("trace stopped: " + e.getMessage());
+            generationDone();
+        } finally {
+            close();
+        }
+    }
+
+    // null once productCount products were made or the trace ran out
+    public Arrival nextArrival() {
+        if (productCount > 0 && produced >= productCount)
+            return null;
+        if (trace == null) {
+            if (produced >= productCount)
+                return null;
+            long delay = produced == 0 ? 0 : nextInterArrivalTime();
+            produced++;
+            return new Arrival(delay, newProduct(), outputQueue);
         }
 
-        for (int i = 0; i < productCount && running; i++) {
-            try {
-                Product p = new Product();   // generates ID + color
-                outputQueue.put(p);   // notify machines via observer
-                Thread.sleep(ThreadLocalRandom.current().nextInt(1000, 3000)); // random interval
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+        TraceRecord record;
+        try {
+            record = trace.next();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (record == null)
+            return null;
+
+        SimQueue queue = outputQueue;
+        if (record.queue() != null) {
+            queue = entryQueues.get(record.queue());
+            if (queue == null)
+                throw new IllegalArgumentException("Trace names unknown queue " + record.queue());
         }
+        // out of order records arrive right away
+        long delay = lastTraceTime < 0 ? 0 : Math.max(0, record.timeMillis() - lastTraceTime);
+        lastTraceTime = Math.max(lastTraceTime, record.timeMillis());
+        produced++;
+        Product product = record.rgb() == TraceRecord.NO_COLOR ? newProduct() : new Product(record.rgb());
+        return new Arrival(delay, product, queue);
+    }
+
+    // the arrival is due now, whether or not its queue has room for it yet
+    public void arrived(Arrival arrival) {
+        if (eventLog != null)
+            eventLog.append(ProductEventType.GENERATED, arrival.product(), arrival.queue().getEventNode());
+    }
+
+    // places an arrival without waiting, false if its queue is full
+    public boolean offer(Arrival arrival) {
+        if (!arrival.queue().offer(arrival.product()))
+            return false;
+        if (flow != null)
+            flow.generated(arrival.queue());
+        return true;
+    }
+
+    // every arrival is out, the flow now knows how many products to expect at the sinks
+    public void generationDone() {
+        close();
+        if (flow != null)
+            flow.generationDone();
+    }
+
+    public long nextInterArrivalTime() {
+        return interArrivalTime.sample(random);
+    }
+
+    public Product newProduct() {
+        return new Product(ColorGenerator.randomRgb(random));
+    }
+
+    public SimQueue getOutputQueue() {
+        return outputQueue;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public void setFlow(ProductFlow flow) {
+        this.flow = flow;
+    }
+
+    public void setEventLog(ProductEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    public void setClock(SimulationClock clock) {
+        this.clock = clock;
     }
 
     public void stop() {
         running = false;
     }
-}
-
 
+    public void close() {
+        if (trace == null)
+            return;
+        try {
+            trace.close();
+        } catch (IOException e) {
+            System.out.println("closing trace failed: " + e.getMessage());
+        }
+    }
+}
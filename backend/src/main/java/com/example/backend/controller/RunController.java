@@ -0,0 +1,54 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.StoredRunDTO;
+import com.example.backend.persistence.RunStore;
+import com.example.backend.session.SimulationSession;
+import com.example.backend.session.SimulationSessionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// runs kept in the database; replaying one loads its graph and history into a session first
+@RestController
+@CrossOrigin("http://localhost:4200")
+@RequestMapping("/api")
+public class RunController {
+
+    @Autowired
+    private RunStore runStore;
+
+    @Autowired
+    private SimulationSessionRegistry sessions;
+
+    @GetMapping("/runs")
+    public List<StoredRunDTO> listRuns() {
+        return runStore.getRuns();
+    }
+
+    @GetMapping("/runs/{runId}")
+    public StoredRunDTO getRun(@PathVariable long runId) {
+        return runStore.getRun(runId);
+    }
+
+    @DeleteMapping("/runs/{runId}")
+    public ResponseEntity<?> deleteRun(@PathVariable long runId) {
+        try {
+            runStore.deleteRun(runId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage()); // still recording
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    // replaces the session's graph and history with the run's and replays it to the session's stream
+    @PostMapping({"/runs/{runId}/replay", "/sessions/{sessionId}/runs/{runId}/replay"})
+    public StoredRunDTO replayRun(@PathVariable(required = false) String sessionId, @PathVariable long runId) {
+        SimulationSession session = sessions.get(sessionId);
+        StoredRunDTO run = runStore.load(runId, session.getState(), session.getSnapshots());
+        session.getReplay().replay();
+        return run;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.SessionDTO;
+import com.example.backend.session.SimulationSession;
+import com.example.backend.session.SimulationSessionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// sessions isolate simulations from each other; their paths are /api/sessions/{sessionId}/...
+@RestController
+@CrossOrigin("http://localhost:4200")
+@RequestMapping("/api/sessions")
+public class SessionController {
+
+    @Autowired
+    private SimulationSessionRegistry sessions;
+
+    @PostMapping
+    public SessionDTO createSession() {
+        return toDTO(sessions.create());
+    }
+
+    @GetMapping
+    public List<SessionDTO> listSessions() {
+        return sessions.getSessions().stream().map(SessionController::toDTO).toList();
+    }
+
+    @GetMapping("/{sessionId}")
+    public SessionDTO getSession(@PathVariable String sessionId) {
+        return toDTO(sessions.get(sessionId));
+    }
+
+    // stops its simulation and replay and disconnects its clients
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<?> closeSession(@PathVariable String sessionId) {
+        sessions.close(sessionId);
+        return ResponseEntity.ok().build();
+    }
+
+    private static SessionDTO toDTO(SimulationSession session) {
+        return new SessionDTO(session.getId(), session.getState().getMode(), session.getState().getMachines().size(),
+                session.getState().getQueues().size(), session.getPublisher().getClientCount(),
+                session.getCreatedAt());
+    }
+}
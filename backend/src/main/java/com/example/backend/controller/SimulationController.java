@@ -1,11 +1,24 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.dto.ProductEventDTO;
+import com.example.backend.dto.ProductJourneyDTO;
+import com.example.backend.dto.ReplicationReportDTO;
+import com.example.backend.dto.ReplicationRequestDTO;
+import com.example.backend.dto.SimStateDTO;
+import com.example.backend.dto.SweepReportDTO;
+import com.example.backend.dto.SweepRequestDTO;
 import com.example.backend.facade.SimulationFacade;
-import com.example.backend.service.SimulationLifecycleService;
-import com.example.backend.service.ReplayService;
-import com.example.backend.service.SsePublisherService;
+import com.example.backend.mapper.ProductEventMapper;
+import com.example.backend.mapper.SimStateMapper;
+import com.example.backend.model.ProductEventLog;
+import com.example.backend.service.EngineType;
+import com.example.backend.service.ReplicationService;
+import com.example.backend.service.StreamProtocol;
+import com.example.backend.service.SweepService;
 import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.service.SimulationStateService;
+import com.example.backend.session.SimulationSessionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,72 +26,137 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
+// every simulation path also exists under /sessions/{sessionId}; without one it acts on the default session
 @RestController
 @CrossOrigin("http://localhost:4200")
 @RequestMapping("/api")
 public class SimulationController {
 
     @Autowired
-    private SimulationLifecycleService lifecycleService;
+    private SimulationSessionRegistry sessions;
 
     @Autowired
-    private ReplayService replayService;
+    private SimulationFacade simulationFacade;
 
     @Autowired
-    private SsePublisherService ssePublisherService;
+    private ReplicationService replicationService;
 
     @Autowired
-    private SimulationFacade simulationFacade;
+    private SweepService sweepService;
 
     // Graph Construction
-    @PostMapping("/init/objects")
-    public ResponseEntity<?> initObjects(@RequestBody ObjectInitDTO initData) {
-        simulationFacade.initializeObjects(initData);
+    @PostMapping({"/init/objects", "/sessions/{sessionId}/init/objects"})
+    public ResponseEntity<?> initObjects(@PathVariable(required = false) String sessionId,
+                                         @RequestBody ObjectInitDTO initData) {
+        simulationFacade.initializeObjects(sessions.get(sessionId).getState(), initData);
         return ResponseEntity.ok().build();
     }
 
-    @PostMapping("/init/connections")
-    public ResponseEntity<?> initConnections(@RequestBody List<ConnectionDTO> connections) {
-        simulationFacade.connectComponents(connections);
+    @PostMapping({"/init/connections", "/sessions/{sessionId}/init/connections"})
+    public ResponseEntity<?> initConnections(@PathVariable(required = false) String sessionId,
+                                             @RequestBody List<ConnectionDTO> connections) {
+        simulationFacade.connectComponents(sessions.get(sessionId).getState(), connections);
         return ResponseEntity.ok().build();
     }
 
     // Simulation Control
-    @PostMapping("/simulation/start")
-    public ResponseEntity<?> startSimulation(@RequestParam int productCount) {
-        lifecycleService.startSimulation(productCount);
+    @PostMapping({"/simulation/start", "/sessions/{sessionId}/simulation/start"})
+    public ResponseEntity<?> startSimulation(@PathVariable(required = false) String sessionId,
+                                             @RequestParam int productCount,
+                                             @RequestParam(defaultValue = "REALTIME") EngineType engine,
+                                             @RequestParam(required = false) Double speed) {
+        sessions.get(sessionId).getLifecycle().startSimulation(productCount, engine, speed);
+        return ResponseEntity.ok().build();
+    }
+
+    // simulated time per wall time of the realtime engine, also while it runs
+    @PostMapping({"/simulation/speed", "/sessions/{sessionId}/simulation/speed"})
+    public ResponseEntity<?> setSpeed(@PathVariable(required = false) String sessionId,
+                                      @RequestParam double factor) {
+        sessions.get(sessionId).getLifecycle().setSpeed(factor);
         return ResponseEntity.ok().build();
     }
 
-    @PostMapping("/simulation/stop")
-    public ResponseEntity<?> stopSimulation() {
-        lifecycleService.stopSimulation();
+    @GetMapping({"/simulation/speed", "/sessions/{sessionId}/simulation/speed"})
+    public double getSpeed(@PathVariable(required = false) String sessionId) {
+        return sessions.get(sessionId).getLifecycle().getSpeed();
+    }
+
+    @PostMapping({"/simulation/stop", "/sessions/{sessionId}/simulation/stop"})
+    public ResponseEntity<?> stopSimulation(@PathVariable(required = false) String sessionId) {
+        sessions.get(sessionId).getLifecycle().stopSimulation();
         return ResponseEntity.ok().build();
     }
 
+    // Product events of the last run: pages of the raw log, one product's path, and the graph at any moment
+    @GetMapping({"/simulation/events", "/sessions/{sessionId}/simulation/events"})
+    public List<ProductEventDTO> getEvents(@PathVariable(required = false) String sessionId,
+                                           @RequestParam(defaultValue = "0") long from,
+                                           @RequestParam(defaultValue = "1000") int limit) {
+        if (limit < 1 || limit > 10_000)
+            throw new IllegalArgumentException("Limit must be between 1 and 10000: " + limit);
+        return eventLog(sessionId).events(from, limit).stream().map(ProductEventMapper::toDTO).toList();
+    }
+
+    @GetMapping({"/simulation/products/{productId}", "/sessions/{sessionId}/simulation/products/{productId}"})
+    public ProductJourneyDTO getProduct(@PathVariable(required = false) String sessionId,
+                                        @PathVariable long productId) {
+        List<ProductEventLog.Event> events = eventLog(sessionId).productEvents(productId);
+        if (events.isEmpty())
+            throw new IllegalArgumentException("No events for product " + productId);
+        return ProductEventMapper.toJourneyDTO(productId, events);
+    }
+
+    @GetMapping({"/simulation/snapshot", "/sessions/{sessionId}/simulation/snapshot"})
+    public SimStateDTO getSnapshot(@PathVariable(required = false) String sessionId, @RequestParam long at) {
+        SimulationStateService state = sessions.get(sessionId).getState();
+        return SimStateMapper.toDTO(eventLog(sessionId).snapshotAt(at), state.getMachines(), state.getQueues(),
+                state.getMode());
+    }
+
+    private ProductEventLog eventLog(String sessionId) {
+        ProductEventLog log = sessions.get(sessionId).getState().getEventLog();
+        if (log == null)
+            throw new IllegalStateException("No product events, start a run first");
+        return log;
+    }
+
+    // Independent seeded discrete-event runs of a graph, aggregated with confidence intervals
+    @PostMapping("/replications")
+    public ReplicationReportDTO runReplications(@RequestBody ReplicationRequestDTO request) {
+        return replicationService.run(request);
+    }
+
+    // Candidate graphs varied from a base one, with the Pareto front of throughput, WIP and sojourn time
+    @PostMapping("/sweeps")
+    public SweepReportDTO runSweep(@RequestBody SweepRequestDTO request) {
+        return sweepService.run(request);
+    }
+
     // Replay Control
-    @PostMapping("/simulation/replay")
-    private ResponseEntity<?> replaySimulation() {
-        replayService.replay();
+    @PostMapping({"/simulation/replay", "/sessions/{sessionId}/simulation/replay"})
+    private ResponseEntity<?> replaySimulation(@PathVariable(required = false) String sessionId) {
+        sessions.get(sessionId).getReplay().replay();
         return ResponseEntity.ok().build();
     }
 
-    @PostMapping("/simulation/stopReplay")
-    public ResponseEntity<?> stopReplay() {
-        replayService.stopReplay();
+    @PostMapping({"/simulation/stopReplay", "/sessions/{sessionId}/simulation/stopReplay"})
+    public ResponseEntity<?> stopReplay(@PathVariable(required = false) String sessionId) {
+        sessions.get(sessionId).getReplay().stopReplay();
         return ResponseEntity.ok().build();
     }
 
     // Reset Simulation
-    @PostMapping("/simulation/reset")
-    public ResponseEntity<?> resetSimulation() {
-        lifecycleService.reset();
+    @PostMapping({"/simulation/reset", "/sessions/{sessionId}/simulation/reset"})
+    public ResponseEntity<?> resetSimulation(@PathVariable(required = false) String sessionId) {
+        sessions.get(sessionId).getLifecycle().reset();
         return ResponseEntity.ok().build();
     }
 
     // SSE Endpoint
-    @GetMapping("/simulation/stream")
-    public SseEmitter streamSimulation() {
-        return ssePublisherService.createEmitter();
+    @GetMapping({"/simulation/stream", "/sessions/{sessionId}/simulation/stream"})
+    public SseEmitter streamSimulation(@PathVariable(required = false) String sessionId,
+                                       @RequestParam(defaultValue = "FULL") StreamProtocol protocol) {
+        return sessions.get(sessionId).getPublisher().createEmitter(protocol);
     }
 }
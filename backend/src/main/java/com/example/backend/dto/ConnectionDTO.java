@@ -1,5 +1,8 @@
 package com.example.backend.dto;
 
+import com.example.backend.model.input.InputPolicyType;
+import com.example.backend.model.routing.RoutingType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Data
@@ -9,4 +12,17 @@ public class ConnectionDTO {
     private String machineId;
     private String queueId;
     private String type;
+    // OUTPUT only, optional: the machine's routing, SHORTEST_QUEUE by default
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RoutingType routing;
+    // INPUT only, optional: the machine's input policy, IN_ORDER by default
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private InputPolicyType inputPolicy;
+    // optional share of this connection under WEIGHTED routing or WEIGHTED input
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double weight;
+
+    public ConnectionDTO(String machineId, String queueId, String type) {
+        this(machineId, queueId, type, null, null, null);
+    }
 }
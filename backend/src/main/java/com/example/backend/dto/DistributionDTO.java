@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.distribution.DistributionType;
+import lombok.*;
+
+import java.util.List;
+
+// durations in milliseconds; only the fields the type needs are read
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DistributionDTO {
+    private DistributionType type;
+    private Double value;
+    private Double min;
+    private Double max;
+    private Double mean;
+    private Double stdDev;
+    private List<Double> samples;
+}
@@ -0,0 +1,16 @@
+package com.example.backend.dto;
+
+import lombok.*;
+
+// a measure over all replications: their mean and the confidence interval around it
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EstimateDTO {
+    private double mean;
+    private double stdDev;
+    // 0 with a single replication, there is no spread to estimate from
+    private double halfWidth;
+    private double lower;
+    private double upper;
+}
@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.SimulationMode;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FrameDeltaDTO {
+    private long seq;
+    // seq this frame applies on top of, -1 for a full frame that replaces the client's state
+    private long baseSeq;
+    private long timestamp;
+    private SimulationMode mode;
+    // only the machines and queues that changed since baseSeq
+    private List<MachineStateDTO> machines;
+    private List<QueueDTO> queues;
+}
@@ -12,6 +12,8 @@ public class MachineDTO {
     private String state;
     // Color of the product being processed
     private String currentColor;
+    // total time spent BLOCKED on a full output queue
+    private long blockedMillis;
     private List<String> inputQueueIds;
     private List<String> outputQueueIds;
 }
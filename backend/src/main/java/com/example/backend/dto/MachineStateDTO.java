@@ -0,0 +1,15 @@
+package com.example.backend.dto;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MachineStateDTO {
+    private String id;
+    private String state;
+    // Color of the product being processed
+    private String currentColor;
+    // total time spent BLOCKED on a full output queue
+    private long blockedMillis;
+}
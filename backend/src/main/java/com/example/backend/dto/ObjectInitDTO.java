@@ -1,10 +1,30 @@
 package com.example.backend.dto;
 
+import com.example.backend.model.buffer.QueueBackend;
 import lombok.Data;
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class ObjectInitDTO {
     private List<String> queues;
     private List<String> machines;
+    // optional storage per queue id, LINKED when absent
+    private Map<String, QueueBackend> queueBackends;
+    // optional capacity per queue id; a full queue blocks the machines feeding it, unbounded when absent
+    private Map<String, Integer> queueCapacities;
+    // optional queue ids where products leave the graph; queues no machine reads from when absent
+    private List<String> sinks;
+    // optional; the same seed and graph repeat the same samples and colors, a fresh seed is drawn when absent
+    private Long seed;
+    // optional arrival trace, a CSV or binary file in simulation.trace.dir replayed instead of arrivals
+    private String trace;
+    // optional time between products of the input generator, uniform 1000-3000 ms when absent
+    private DistributionDTO arrivals;
+    // optional service time per machine id, uniform 1000-3000 ms when absent
+    private Map<String, DistributionDTO> serviceTimes;
+    // optional products served at once per machine id, 1 when absent
+    private Map<String, Integer> servers;
+    // optional products taken, served and emitted together per machine id, 1 when absent
+    private Map<String, Integer> batchSizes;
 }
\ No newline at end of file
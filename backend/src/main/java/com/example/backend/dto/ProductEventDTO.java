@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import com.example.backend.model.ProductEventType;
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductEventDTO {
+    // position in the run's event log, the next page starts after the last one
+    private long index;
+    private ProductEventType type;
+    private long productId;
+    // queue or machine id
+    private String node;
+    // simulated milliseconds
+    private long time;
+    private String color;
+}
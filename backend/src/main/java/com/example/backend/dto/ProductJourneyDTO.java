@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductJourneyDTO {
+    private long productId;
+    private List<ProductEventDTO> events;
+    // simulated milliseconds spent waiting per queue id; a wait that has not ended yet is left out
+    private Map<String, Long> waits;
+    // service time per machine id
+    private Map<String, Long> services;
+    // the queue it waited in longest, null if it never waited
+    private String longestWait;
+}
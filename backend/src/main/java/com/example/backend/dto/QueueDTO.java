@@ -1,5 +1,6 @@
 package com.example.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.util.List;
@@ -11,4 +12,11 @@ public class QueueDTO {
     private int size;
     // Colors of products for visualization
     private List<String> productColors;
+    // null for unbounded queues
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer capacity;
+
+    public QueueDTO(String id, int size, List<String> productColors) {
+        this(id, size, productColors, null);
+    }
 }
@@ -0,0 +1,26 @@
+package com.example.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReplicationReportDTO {
+    private int replications;
+    private double confidence;
+    // seed the replication seeds were drawn from
+    private long seed;
+    private long wallMillis;
+    private int parallelism;
+    private EstimateDTO throughput;
+    private EstimateDTO meanWip;
+    private EstimateDTO meanSojourn;
+    private EstimateDTO p50Sojourn;
+    private EstimateDTO p90Sojourn;
+    private EstimateDTO p99Sojourn;
+    private Map<String, EstimateDTO> queueLengths;
+    private List<ReplicationRunDTO> runs;
+}
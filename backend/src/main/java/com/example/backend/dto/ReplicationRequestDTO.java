@@ -0,0 +1,17 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// a graph as the init API takes it, run several times on the discrete-event engine
+@Data
+public class ReplicationRequestDTO {
+    private ObjectInitDTO objects;
+    private List<ConnectionDTO> connections;
+    private int replications;
+    // products per replication; for a trace 0 replays all of it
+    private int productCount;
+    // two-sided level of the intervals
+    private double confidence = 0.95;
+}
@@ -0,0 +1,26 @@
+package com.example.backend.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+// one replication; its seed in the init API repeats it as a single discrete-event run
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReplicationRunDTO {
+    private long seed;
+    private int products;
+    private long simulatedMillis;
+    // products reaching a sink per simulated second
+    private double throughput;
+    // time-averaged products inside the graph
+    private double meanWip;
+    // ms from entering the graph to a sink
+    private double meanSojourn;
+    private long p50Sojourn;
+    private long p90Sojourn;
+    private long p99Sojourn;
+    // time-averaged products per queue id, sinks left out
+    private Map<String, Double> queueLengths;
+}
@@ -0,0 +1,17 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.SimulationMode;
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionDTO {
+    private String id;
+    private SimulationMode mode;
+    private int machines;
+    private int queues;
+    // connected SSE clients
+    private int clients;
+    private long createdAt;
+}
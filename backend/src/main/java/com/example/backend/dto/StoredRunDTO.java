@@ -0,0 +1,23 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.EngineType;
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredRunDTO {
+    private long id;
+    private String sessionId;
+    private EngineType engine;
+    private int productCount;
+    private long startedAt;
+    // null while the run is going on, or when the application stopped before it did
+    private Long stoppedAt;
+    private long generated;
+    private long atSinks;
+    private long frames;
+    private long simulatedMillis;
+    // frames came faster than they could be written and the later ones were dropped
+    private boolean truncated;
+}
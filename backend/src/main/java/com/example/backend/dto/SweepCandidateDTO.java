@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+// one combination of parameter values, measures averaged over its replications
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SweepCandidateDTO {
+    // value per parameter, e.g. "M1.servers", "Q1.capacity" or "M1.serviceTime.mean"
+    private Map<String, Double> parameters;
+    // products reaching a sink per simulated second
+    private double throughput;
+    // time-averaged products inside the graph
+    private double meanWip;
+    // ms from entering the graph to a sink
+    private double meanSojourn;
+    private double p90Sojourn;
+}
@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.SweepParameterType;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SweepParameterDTO {
+    private SweepParameterType type;
+    // machine id for SERVERS and SERVICE_TIME, queue id for QUEUE_CAPACITY
+    private String target;
+    // SERVICE_TIME only: value, min, max, mean or stdDev of the machine's distribution in the base graph
+    private String field;
+    private List<Double> values;
+}
@@ -0,0 +1,22 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.SweepStrategy;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SweepReportDTO {
+    private SweepStrategy strategy;
+    private int replications;
+    // seed the replication seeds were drawn from
+    private long seed;
+    private long runs;
+    private long wallMillis;
+    private int parallelism;
+    // candidates no other one beats on throughput, WIP and sojourn time at once, highest throughput first
+    private List<SweepCandidateDTO> front;
+    private List<SweepCandidateDTO> candidates;
+}
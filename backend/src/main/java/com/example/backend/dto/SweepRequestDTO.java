@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.SweepStrategy;
+import lombok.Data;
+
+import java.util.List;
+
+// a base graph as the init API takes it and the parameters to vary on it
+@Data
+public class SweepRequestDTO {
+    private ObjectInitDTO objects;
+    private List<ConnectionDTO> connections;
+    private List<SweepParameterDTO> parameters;
+    private SweepStrategy strategy = SweepStrategy.GRID;
+    // RANDOM only: combinations to try
+    private int samples;
+    // products per run
+    private int productCount;
+    // runs per candidate, averaged; every candidate gets the same seeds
+    private int replications = 1;
+}
@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopologyDTO {
+    // matches the topologyVersion of the frames that follow
+    private long version;
+    private List<String> queues;
+    private List<String> machines;
+    private List<ConnectionDTO> connections;
+    // bounded queues only
+    private Map<String, Integer> capacities;
+}
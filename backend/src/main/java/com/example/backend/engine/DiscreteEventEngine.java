@@ -0,0 +1,222 @@
+package com.example.backend.engine;
+
+import com.example.backend.InputGenerator;
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Runs the machine/queue graph on a single thread against a virtual clock.
+ * Instead of sleeping, every arrival, service completion and release is
+ * scheduled on a priority queue and the clock jumps straight to the next one,
+ * so the same graph that takes hours in real time finishes in seconds.
+ */
+public class DiscreteEventEngine implements Runnable {
+
+    private final PriorityQueue<SimEvent> events = new PriorityQueue<>();
+    private final InputGenerator generator;
+    private final LongConsumer frameRecorder; // receives the virtual time of each frame
+
+    // machines that read from each queue, so an arrival only wakes its consumers;
+    private final Map<SimQueue, List<Machine>> consumers = new IdentityHashMap<>();
+    // servers taken per machine, from the start of a batch until it left the machine
+    private final Map<Machine, Integer> occupied = new IdentityHashMap<>();
+
+    // machines holding a finished product for a full queue, in the order they blocked
+    private final Map<SimQueue, Deque<SimEvent>> blocked = new IdentityHashMap<>();
+    // the arrival the next ARRIVAL event places
+    private InputGenerator.Arrival upcoming;
+    // arrival the generator could not place in its full entry queue; no arrival is scheduled meanwhile
+    private InputGenerator.Arrival pendingArrival;
+
+    private long now = 0;
+    private long sequence = 0;
+    private int generated = 0;
+    private long processedEvents = 0;
+    private volatile boolean running = true;
+    // optional measurements of the run, null when nobody asked for them
+    private RunStatistics statistics;
+
+    public DiscreteEventEngine(Collection<Machine> machines, InputGenerator generator, LongConsumer frameRecorder) {
+        this.generator = generator;
+        this.frameRecorder = frameRecorder;
+
+        for (Machine machine : machines) {
+            machine.useClock(() -> now * 1_000_000); // state times in simulated time
+            for (SimQueue queue : machine.getInputQueues()) {
+                consumers.computeIfAbsent(queue, q -> new ArrayList<>()).add(machine);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        frameRecorder.accept(now);
+
+        upcoming = generator.nextArrival();
+        if (upcoming != null) {
+            schedule(InputGenerator.START_DELAY + upcoming.delay(), SimEvent.Type.ARRIVAL, null, List.of());
+        } else {
+            generator.generationDone();
+        }
+
+        while (running && !events.isEmpty()) {
+            SimEvent event = events.poll();
+
+            // record once per instant so simultaneous events collapse into a single frame
+            if (event.getTime() != now) {
+                frameRecorder.accept(now);
+                if (statistics != null)
+                    statistics.advance(now, event.getTime());
+                now = event.getTime();
+            }
+
+            handle(event);
+            processedEvents++;
+        }
+
+        frameRecorder.accept(now);
+        generator.close(); // a stopped run leaves the trace unread
+    }
+
+    private void handle(SimEvent event) {
+        switch (event.getType()) {
+            case ARRIVAL -> {
+                generated++;
+                InputGenerator.Arrival arrival = upcoming;
+                generator.arrived(arrival);
+                if (!generator.offer(arrival)) {
+                    pendingArrival = arrival; // throttled until a consumer makes room
+                    return;
+                }
+                entered(arrival);
+                scheduleNextArrival();
+                dispatchConsumers(arrival.queue());
+            }
+            case SERVICE_END -> {
+                event.getMachine().finishProcessing(event.getBatch());
+                schedule(now + Machine.FLASH_TIME, SimEvent.Type.RELEASE, event.getMachine(), event.getBatch());
+            }
+            case RELEASE -> {
+                Machine machine = event.getMachine();
+                SimQueue target = machine.selectOutputQueue();
+                if (target == null) {
+                    machine.delivered(null, event.getBatch().size());
+                    if (statistics != null)
+                        event.getBatch().forEach(p -> statistics.left(p, now));
+                } else if (!deliver(event, target)) {
+                    machine.block();
+                    blocked.computeIfAbsent(target, q -> new ArrayDeque<>()).add(event);
+                    dispatchConsumers(target); // part of a batch may have fit
+                    return;
+                }
+                release(machine, target);
+            }
+        }
+    }
+
+    private void release(Machine machine, SimQueue target) {
+        occupied.merge(machine, -1, Integer::sum);
+        machine.completeProcessing();
+
+        dispatch(machine);
+        if (target != null) {
+            dispatchConsumers(target);
+        }
+    }
+
+    private void scheduleNextArrival() {
+        upcoming = generator.nextArrival();
+        if (upcoming != null) {
+            schedule(now + upcoming.delay(), SimEvent.Type.ARRIVAL, null, List.of());
+        } else {
+            generator.generationDone();
+        }
+    }
+
+    // a take from one of the machine's inputs may have made room for whoever waits on it
+    private void admitWaiting(Machine consumer) {
+        for (SimQueue queue : consumer.getInputQueues()) {
+            if (pendingArrival != null && queue == pendingArrival.queue() && generator.offer(pendingArrival)) {
+                entered(pendingArrival);
+                pendingArrival = null;
+                scheduleNextArrival();
+                dispatchConsumers(queue);
+            }
+            Deque<SimEvent> waiting = blocked.get(queue);
+            while (waiting != null && !waiting.isEmpty() && deliver(waiting.peekFirst(), queue)) {
+                release(waiting.pollFirst().getMachine(), queue);
+            }
+            if (waiting != null && !waiting.isEmpty()) {
+                dispatchConsumers(queue); // the head batch got part of its products in
+            }
+        }
+    }
+
+    // places what fits of the batch, products landing in a sink have left the graph
+    private boolean deliver(SimEvent event, SimQueue target) {
+        int before = event.getDelivered();
+        boolean all = event.deliverTo(target);
+        if (statistics != null && target.isSink()) {
+            for (int i = before; i < event.getDelivered(); i++) {
+                statistics.left(event.getBatch().get(i), now);
+            }
+        }
+        return all;
+    }
+
+    private void entered(InputGenerator.Arrival arrival) {
+        if (statistics != null)
+            statistics.entered(arrival.product(), now);
+    }
+
+    private void dispatchConsumers(SimQueue queue) {
+        for (Machine machine : consumers.getOrDefault(queue, Collections.emptyList())) {
+            if (queue.size() == 0)
+                return;
+            dispatch(machine);
+        }
+    }
+
+    // start a batch on every free server of the machine while products are waiting
+    private void dispatch(Machine machine) {
+        // re-read each round, admitting a blocked machine can dispatch this one again
+        while (occupied.getOrDefault(machine, 0) < machine.getServers()) {
+            List<Product> batch = machine.pollBatch();
+            if (batch.isEmpty())
+                return;
+
+            occupied.merge(machine, 1, Integer::sum);
+            admitWaiting(machine);
+            machine.beginProcessing(batch);
+            schedule(now + machine.nextServiceTime(), SimEvent.Type.SERVICE_END, machine, batch);
+        }
+    }
+
+    private void schedule(long time, SimEvent.Type type, Machine machine, List<Product> batch) {
+        events.add(new SimEvent(time, sequence++, type, machine, batch));
+    }
+
+    public void setStatistics(RunStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public long getVirtualTime() {
+        return now;
+    }
+
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    public int getGenerated() {
+        return generated;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.backend.engine;
+
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What one discrete-event run measured in simulated time: how long each
+ * product spent between entering the graph and reaching a sink, and how many
+ * products every queue and the graph as a whole held on average. Only the engine thread feeds it.
+ * <p>
+ * Time is measured from the first arrival, so the start delay of the input
+ * generator, in which nothing can happen yet, does not dilute the rates and averages.
+ */
+public class RunStatistics {
+
+    // sinks only ever fill up, so their length says nothing and they are left out
+    private final List<SimQueue> queues;
+    private final double[] queueArea; // products times simulated ms, per queue
+    private double wipArea = 0; // products anywhere between entry and sink, times simulated ms
+
+    // products still on their way, by identity like every other graph node
+    private final Map<Product, Long> enteredAt = new IdentityHashMap<>();
+    private long[] sojourns = new long[1024];
+    private int departed = 0;
+    private long sojournTotal = 0;
+    private long start = -1; // simulated ms of the first arrival, -1 until there is one
+    private long elapsed = 0;
+    private boolean sorted = false;
+
+    public RunStatistics(List<SimQueue> queues) {
+        this.queues = queues.stream().filter(q -> !q.isSink()).toList();
+        this.queueArea = new double[this.queues.size()];
+    }
+
+    void entered(Product product, long time) {
+        if (start < 0)
+            start = time;
+        enteredAt.put(product, time);
+    }
+
+    void left(Product product, long time) {
+        Long since = enteredAt.remove(product);
+        if (since == null)
+            return; // was already waiting before the run started
+        if (departed == sojourns.length) {
+            sojourns = Arrays.copyOf(sojourns, departed * 2);
+        }
+        long sojourn = time - since;
+        sojourns[departed++] = sojourn;
+        sojournTotal += sojourn;
+        sorted = false;
+    }
+
+    // queue lengths held from one event time to the next
+    void advance(long from, long to) {
+        if (start < 0)
+            return; // still before the first arrival
+        long span = to - Math.max(from, start);
+        if (span <= 0)
+            return;
+        for (int i = 0; i < queueArea.length; i++) {
+            queueArea[i] += (double) queues.get(i).size() * span;
+        }
+        wipArea += (double) enteredAt.size() * span;
+        elapsed = to - start;
+    }
+
+    public int getDeparted() {
+        return departed;
+    }
+
+    // simulated ms from the first arrival to the last event
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    // products reaching a sink per simulated second
+    public double throughput() {
+        return elapsed == 0 ? 0 : departed * 1000.0 / elapsed;
+    }
+
+    // time-averaged work in process: products queued, in service or held by a blocked machine
+    public double meanWip() {
+        return elapsed == 0 ? 0 : wipArea / elapsed;
+    }
+
+    // ms from entering the graph to a sink
+    public double meanSojourn() {
+        return departed == 0 ? 0 : (double) sojournTotal / departed;
+    }
+
+    // nearest rank, fraction between 0 and 1
+    public long sojournPercentile(double fraction) {
+        if (departed == 0)
+            return 0;
+        if (!sorted) {
+            Arrays.sort(sojourns, 0, departed);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(fraction * departed);
+        return sojourns[Math.max(0, Math.min(departed, rank) - 1)];
+    }
+
+    // time-averaged length per queue id, sinks left out
+    public Map<String, Double> meanQueueLengths() {
+        Map<String, Double> lengths = new LinkedHashMap<>();
+        for (int i = 0; i < queueArea.length; i++) {
+            lengths.put(queues.get(i).getId(), elapsed == 0 ? 0 : queueArea[i] / elapsed);
+        }
+        return lengths;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.backend.engine;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class SimEvent implements Comparable<SimEvent> {
+
+    public enum Type {
+        ARRIVAL,         // the input generator releases a product into the first queue
+        SERVICE_END,     // a machine finished working on its product
+        RELEASE          // the finish flash is over and the product moves on
+    }
+
+    private final long time;
+    private final long sequence; // keeps events at the same instant in scheduling order
+    private final Type type;
+    private final Machine machine;
+    private final List<Product> batch; // products a machine serves together, empty for arrivals
+    private int delivered = 0; // products of the batch already placed in the output queue
+
+    public SimEvent(long time, long sequence, Type type, Machine machine, List<Product> batch) {
+        this.time = time;
+        this.sequence = sequence;
+        this.type = type;
+        this.machine = machine;
+        this.batch = batch;
+    }
+
+    // places what is left of the batch in order; false if the queue filled up before the last one
+    public boolean deliverTo(SimQueue target) {
+        while (delivered < batch.size()) {
+            if (!target.offer(batch.get(delivered)))
+                return false;
+            machine.delivered(target, 1);
+            delivered++;
+        }
+        return true;
+    }
+
+    @Override
+    public int compareTo(SimEvent other) {
+        int byTime = Long.compare(time, other.time);
+        return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+    }
+}
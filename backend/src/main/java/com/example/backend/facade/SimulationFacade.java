@@ -1,44 +1,173 @@
 package com.example.backend.facade;
 
 import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.DistributionDTO;
 import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.mapper.DistributionMapper;
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+import com.example.backend.model.distribution.Distribution;
+import com.example.backend.model.buffer.QueueBackend;
 import com.example.backend.service.SimulationStateService;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class SimulationFacade {
-    @Autowired
-    private SimulationStateService stateService;
 
-    public void initializeObjects(ObjectInitDTO initData) {
+    // builds the graph into the state of a session or the private one of a replication
+    public void initializeObjects(SimulationStateService state, ObjectInitDTO initData) {
+        // parse the distributions, check the machine ids, servers and batch sizes and resolve the trace first,
+        // so a bad one leaves the current graph untouched
+        state.resolveTrace(initData.getTrace());
+        Set<String> machineIds = initData.getMachines() == null ? Set.of() : new HashSet<>(initData.getMachines());
+        Distribution arrivals = initData.getArrivals() == null ? null
+                : DistributionMapper.toDistribution(initData.getArrivals());
+        Map<String, Distribution> serviceTimes = new HashMap<>();
+        if (initData.getServiceTimes() != null) {
+            for (Map.Entry<String, DistributionDTO> entry : initData.getServiceTimes().entrySet()) {
+                requireMachine(machineIds, entry.getKey());
+                serviceTimes.put(entry.getKey(), DistributionMapper.toDistribution(entry.getValue()));
+            }
+        }
+
+        if (initData.getServers() != null) {
+            initData.getServers().forEach((machineId, servers) -> {
+                requireMachine(machineIds, machineId);
+                if (servers == null || servers < 1)
+                    throw new IllegalArgumentException("Machine " + machineId + " needs at least one server: " + servers);
+            });
+        }
+        if (initData.getBatchSizes() != null) {
+            initData.getBatchSizes().forEach((machineId, batchSize) -> {
+                requireMachine(machineIds, machineId);
+                if (batchSize == null || batchSize < 1)
+                    throw new IllegalArgumentException("Batch size of machine " + machineId + " must be at least 1: "
+                            + batchSize);
+            });
+        }
 
-        stateService.reset();
+        state.reset();
 
         if (initData.getQueues() != null) {
             for (String queueId : initData.getQueues()) {
-                stateService.addQueue(queueId);
+                QueueBackend backend = initData.getQueueBackends() == null ? null
+                        : initData.getQueueBackends().get(queueId);
+                Integer capacity = initData.getQueueCapacities() == null ? null
+                        : initData.getQueueCapacities().get(queueId);
+                state.addQueue(queueId, backend != null ? backend : QueueBackend.LINKED,
+                        capacity != null ? capacity : 0);
             }
         }
         if (initData.getMachines() != null) {
             for (String machineId : initData.getMachines()) {
-                stateService.addMachine(machineId);
+                state.addMachine(machineId);
             }
         }
+
+        if (initData.getSinks() != null) {
+            initData.getSinks().forEach(state::declareSink);
+        }
+        state.setSeed(initData.getSeed());
+        state.setTrace(initData.getTrace()); // checked above
+        if (arrivals != null) {
+            state.setArrivalTime(arrivals);
+        }
+        for (Map.Entry<String, Distribution> entry : serviceTimes.entrySet()) {
+            state.getMachines().get(entry.getKey()).setServiceTime(entry.getValue());
+        }
+        if (initData.getServers() != null) {
+            initData.getServers().forEach(state::setServers);
+        }
+        if (initData.getBatchSizes() != null) {
+            initData.getBatchSizes().forEach(state::setBatchSize);
+        }
     }
 
-    public void connectComponents(List<ConnectionDTO> connections) {
+    private static void requireMachine(Set<String> machineIds, String machineId) {
+        if (!machineIds.contains(machineId))
+            throw new IllegalArgumentException("Machine not found: " + machineId);
+    }
+
+    public void connectComponents(SimulationStateService state, List<ConnectionDTO> connections) {
         if (connections == null)
             return;
 
         for (ConnectionDTO conn : connections) {
             if ("INPUT".equalsIgnoreCase(conn.getType())) {
-                stateService.connectInputQueue(conn.getMachineId(), conn.getQueueId());
+                state.connectInputQueue(conn.getMachineId(), conn.getQueueId());
+                if (conn.getInputPolicy() != null) {
+                    state.setInputPolicy(conn.getMachineId(), conn.getInputPolicy());
+                }
+                if (conn.getWeight() != null) {
+                    state.setInputWeight(conn.getMachineId(), conn.getQueueId(), conn.getWeight());
+                }
             } else if ("OUTPUT".equalsIgnoreCase(conn.getType())) {
-                stateService.connectOutputQueue(conn.getMachineId(), conn.getQueueId());
+                state.connectOutputQueue(conn.getMachineId(), conn.getQueueId());
+                if (conn.getRouting() != null) {
+                    state.setRouting(conn.getMachineId(), conn.getRouting());
+                }
+                if (conn.getWeight() != null) {
+                    state.setOutputWeight(conn.getMachineId(), conn.getQueueId(), conn.getWeight());
+                }
+            }
+        }
+    }
+
+    // the inverse of initializeObjects for the node layout: queues in order, machines, capacities, servers and
+    // batch sizes; distributions, routing and policies are not read back
+    public ObjectInitDTO describeObjects(SimulationStateService state) {
+        ObjectInitDTO objects = new ObjectInitDTO();
+        List<String> queues = new ArrayList<>();
+        Map<String, Integer> capacities = new HashMap<>();
+        synchronized (state.getAllQueues()) {
+            for (SimQueue queue : state.getAllQueues()) {
+                queues.add(queue.getId());
+                if (queue.getCapacity() > 0)
+                    capacities.put(queue.getId(), queue.getCapacity());
+            }
+        }
+        List<String> machines = new ArrayList<>();
+        Map<String, Integer> servers = new HashMap<>();
+        Map<String, Integer> batchSizes = new HashMap<>();
+        synchronized (state.getAllMachines()) {
+            for (Machine machine : state.getAllMachines()) {
+                machines.add(machine.getId());
+                if (machine.getServers() != 1)
+                    servers.put(machine.getId(), machine.getServers());
+                if (machine.getBatchSize() != 1)
+                    batchSizes.put(machine.getId(), machine.getBatchSize());
+            }
+        }
+        objects.setQueues(queues);
+        objects.setMachines(machines);
+        objects.setQueueCapacities(capacities);
+        objects.setServers(servers);
+        objects.setBatchSizes(batchSizes);
+        objects.setSinks(new ArrayList<>(state.getDeclaredSinks()));
+        objects.setSeed(state.getSeed());
+        return objects;
+    }
+
+    // the inverse of connectComponents, without weights and policies
+    public List<ConnectionDTO> describeConnections(SimulationStateService state) {
+        List<ConnectionDTO> connections = new ArrayList<>();
+        synchronized (state.getAllMachines()) {
+            for (Machine machine : state.getAllMachines()) {
+                for (SimQueue queue : machine.getInputQueues()) {
+                    connections.add(new ConnectionDTO(machine.getId(), queue.getId(), "INPUT"));
+                }
+                for (SimQueue queue : machine.getOutputQueues()) {
+                    connections.add(new ConnectionDTO(machine.getId(), queue.getId(), "OUTPUT"));
+                }
             }
         }
+        return connections;
     }
 }
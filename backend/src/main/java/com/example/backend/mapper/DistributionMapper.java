@@ -0,0 +1,29 @@
+package com.example.backend.mapper;
+
+import com.example.backend.dto.DistributionDTO;
+import com.example.backend.model.distribution.*;
+
+public class DistributionMapper {
+
+    public static Distribution toDistribution(DistributionDTO dto) {
+        if (dto.getType() == null)
+            throw new IllegalArgumentException("Distribution type is required");
+
+        return switch (dto.getType()) {
+            case CONSTANT -> new ConstantDistribution(required(dto.getValue(), "value", dto));
+            case UNIFORM -> new UniformDistribution(required(dto.getMin(), "min", dto), required(dto.getMax(), "max", dto));
+            case EXPONENTIAL -> new ExponentialDistribution(required(dto.getMean(), "mean", dto));
+            case NORMAL -> new NormalDistribution(required(dto.getMean(), "mean", dto),
+                    required(dto.getStdDev(), "stdDev", dto));
+            case LOGNORMAL -> new LogNormalDistribution(required(dto.getMean(), "mean", dto),
+                    required(dto.getStdDev(), "stdDev", dto));
+            case EMPIRICAL -> new EmpiricalDistribution(dto.getSamples());
+        };
+    }
+
+    private static double required(Double value, String name, DistributionDTO dto) {
+        if (value == null)
+            throw new IllegalArgumentException(dto.getType() + " distribution needs " + name);
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.mapper;
+
+import com.example.backend.dto.ProductEventDTO;
+import com.example.backend.dto.ProductJourneyDTO;
+import com.example.backend.model.ProductEventLog;
+import com.example.backend.model.ProductEventType;
+import com.example.backend.util.ColorGenerator;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductEventMapper {
+
+    public static ProductEventDTO toDTO(ProductEventLog.Event event) {
+        return new ProductEventDTO(event.index(), event.type(), event.productId(), event.node(), event.time(),
+                ColorGenerator.toHex(event.rgb()));
+    }
+
+    // waits run from ENQUEUED to DEQUEUED at a queue, services from SERVICE_START to SERVICE_END at a machine
+    public static ProductJourneyDTO toJourneyDTO(long productId, List<ProductEventLog.Event> events) {
+        Map<String, Long> waits = new LinkedHashMap<>();
+        Map<String, Long> services = new LinkedHashMap<>();
+        Map<String, Long> since = new HashMap<>();
+        for (ProductEventLog.Event event : events) {
+            switch (event.type()) {
+                case ENQUEUED, SERVICE_START -> since.put(event.node(), event.time());
+                case DEQUEUED, SERVICE_END -> {
+                    Long start = since.remove(event.node());
+                    if (start != null) {
+                        Map<String, Long> target = event.type() == ProductEventType.DEQUEUED ? waits : services;
+                        target.merge(event.node(), event.time() - start, Long::sum);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        String longestWait = waits.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        return new ProductJourneyDTO(productId, events.stream().map(ProductEventMapper::toDTO).toList(), waits,
+                services, longestWait);
+    }
+}
@@ -1,27 +1,74 @@
 package com.example.backend.mapper;
 
 import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.FrameDeltaDTO;
 import com.example.backend.dto.MachineDTO;
+import com.example.backend.dto.MachineStateDTO;
 import com.example.backend.dto.QueueDTO;
 import com.example.backend.dto.SimStateDTO;
+import com.example.backend.dto.TopologyDTO;
 import com.example.backend.model.Machine;
 import com.example.backend.model.MachineState;
-import com.example.backend.model.Product;
 import com.example.backend.model.SimQueue;
 import com.example.backend.service.SimulationMode;
 import com.example.backend.snapshot.SimulationSnapshot;
 
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 public class SimStateMapper {
+
+    // the parts of a full frame that only change with the graph, built once per topology version
+    public record Layout(long version,
+                         Map<String, List<String>> inputQueueIds,
+                         Map<String, List<String>> outputQueueIds,
+                         Map<String, Integer> capacities,
+                         List<ConnectionDTO> connections) {
+    }
+
+    public static Layout toLayout(Map<String, Machine> machines, Map<String, SimQueue> queues, long version) {
+        Map<String, List<String>> inputs = new HashMap<>();
+        Map<String, List<String>> outputs = new HashMap<>();
+        List<ConnectionDTO> connections = new ArrayList<>();
+        for (Machine m : machines.values()) {
+            inputs.put(m.getId(), m.getInputQueues().stream().map(SimQueue::getId).toList());
+            outputs.put(m.getId(), m.getOutputQueues().stream().map(SimQueue::getId).toList());
+            for (SimQueue q : m.getInputQueues()) {
+                connections.add(new ConnectionDTO(m.getId(), q.getId(), "INPUT"));
+            }
+        }
+        for (Machine m : machines.values()) {
+            for (SimQueue q : m.getOutputQueues()) {
+                connections.add(new ConnectionDTO(m.getId(), q.getId(), "OUTPUT"));
+            }
+        }
+        Map<String, Integer> capacities = new HashMap<>();
+        for (SimQueue q : queues.values()) {
+            if (q.isBounded()) {
+                capacities.put(q.getId(), q.getCapacity());
+            }
+        }
+        return new Layout(version, inputs, outputs, capacities, Collections.unmodifiableList(connections));
+    }
+
     public static SimStateDTO toDTO(SimulationSnapshot snapshot,
                                     Map<String, Machine> machines,
                                     Map<String, SimQueue> queues,
                                     SimulationMode mode) {
+        return toDTO(snapshot, machines, queues, mode, toLayout(machines, queues, -1));
+    }
+
+    // only the state of each node is mapped per frame, ids and connections come from the layout
+    public static SimStateDTO toDTO(SimulationSnapshot snapshot,
+                                    Map<String, Machine> machines,
+                                    Map<String, SimQueue> queues,
+                                    SimulationMode mode,
+                                    Layout layout) {
 
         Map<String, String> machineColors = snapshot.getMachineColors();
         Map<String, String> machineStates = snapshot.getMachineStates();
@@ -29,48 +76,93 @@ public class SimStateMapper {
 
         Map<String, List<String>> queueProductColors = snapshot.getQueueProductColors();
 
-        List<MachineDTO> machineDTOs = machines.values().stream()
-                .map(m -> new MachineDTO(
-                        m.getId(),
-                        machineStates.getOrDefault(m.getId(), String.valueOf(MachineState.IDLE)),
-                        machineColors.getOrDefault(m.getId(), "GRAY"),
-                        m.getInputQueues().stream().map(SimQueue::getId).toList(),
-                       // m.getOutputQueue() != null ? List.of(m.getOutputQueue().getId()) : List.of()
-                        m.getOutputQueues().stream().map(SimQueue::getId).toList()
-                ))
-                .toList();
-
-
-        List<QueueDTO> queueDTOs = queues.values().stream()
-                .map(q -> new QueueDTO(
-                        q.getId(),
-                        queueSizes.getOrDefault(q.getId(), 0),
-                        queueProductColors.getOrDefault(q.getId(), Collections.emptyList())
-                ))
-                .toList();
-
-        List<ConnectionDTO> connectionDTOs = new java.util.ArrayList<>(machines.values().stream()
-                .flatMap(m -> m.getInputQueues().stream()
-                        .map(q -> new ConnectionDTO(m.getId(), q.getId(), "INPUT"))
-                )
-                .toList());
-
-        connectionDTOs.addAll(
-                machines.values().stream()
-                        .flatMap(m -> m.getOutputQueues().stream()
-                                .map(q -> new ConnectionDTO(m.getId(), q.getId(), "OUTPUT"))
-                        )
-                        .toList()
-        );
+        List<MachineDTO> machineDTOs = new ArrayList<>(machines.size());
+        for (Machine m : machines.values()) {
+            machineDTOs.add(new MachineDTO(
+                    m.getId(),
+                    machineStates.getOrDefault(m.getId(), String.valueOf(MachineState.IDLE)),
+                    machineColors.getOrDefault(m.getId(), "GRAY"),
+                    m.getBlockedNanos() / 1_000_000,
+                    layout.inputQueueIds().getOrDefault(m.getId(), List.of()),
+                    layout.outputQueueIds().getOrDefault(m.getId(), List.of())));
+        }
+
+        List<QueueDTO> queueDTOs = new ArrayList<>(queues.size());
+        for (SimQueue q : queues.values()) {
+            queueDTOs.add(new QueueDTO(
+                    q.getId(),
+                    queueSizes.getOrDefault(q.getId(), 0),
+                    queueProductColors.getOrDefault(q.getId(), Collections.emptyList()),
+                    layout.capacities().get(q.getId())));
+        }
 
         return new SimStateDTO(
                 snapshot.getTimestamp(),
                 machineDTOs,
                 queueDTOs,
                 mode,
-                connectionDTOs
+                layout.connections()
         );
 
     }
-}
 
+    public static TopologyDTO toTopologyDTO(Map<String, Machine> machines,
+                                            Map<String, SimQueue> queues,
+                                            long version) {
+        List<ConnectionDTO> connections = new ArrayList<>();
+        for (Machine m : machines.values()) {
+            for (SimQueue q : m.getInputQueues()) {
+                connections.add(new ConnectionDTO(m.getId(), q.getId(), "INPUT"));
+            }
+            for (SimQueue q : m.getOutputQueues()) {
+                connections.add(new ConnectionDTO(m.getId(), q.getId(), "OUTPUT"));
+            }
+        }
+        Map<String, Integer> capacities = new HashMap<>();
+        for (SimQueue q : queues.values()) {
+            if (q.isBounded()) {
+                capacities.put(q.getId(), q.getCapacity());
+            }
+        }
+        return new TopologyDTO(version, List.copyOf(queues.keySet()), List.copyOf(machines.keySet()), connections,
+                capacities);
+    }
+
+    // previous == null gives a full frame with every machine and queue
+    public static FrameDeltaDTO toFrameDTO(long seq,
+                                           SimulationSnapshot snapshot,
+                                           SimulationSnapshot previous,
+                                           Map<String, Machine> machines,
+                                           SimulationMode mode) {
+        List<MachineStateDTO> machineDTOs = new ArrayList<>();
+        for (Map.Entry<String, String> entry : snapshot.getMachineStates().entrySet()) {
+            String id = entry.getKey();
+            String color = snapshot.getMachineColors().getOrDefault(id, "GRAY");
+            if (previous == null
+                    || !Objects.equals(entry.getValue(), previous.getMachineStates().get(id))
+                    || !Objects.equals(color, previous.getMachineColors().get(id))) {
+                Machine machine = machines.get(id);
+                long blockedMillis = machine == null ? 0 : machine.getBlockedNanos() / 1_000_000;
+                machineDTOs.add(new MachineStateDTO(id, entry.getValue(), color, blockedMillis));
+            }
+        }
+
+        List<QueueDTO> queueDTOs = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : snapshot.getQueueSizes().entrySet()) {
+            String id = entry.getKey();
+            List<String> colors = snapshot.getQueueProductColors().getOrDefault(id, Collections.emptyList());
+            if (previous == null || !entry.getValue().equals(previous.getQueueSizes().get(id))
+                    || !sameColors(colors, previous.getQueueProductColors().get(id))) {
+                queueDTOs.add(new QueueDTO(id, entry.getValue(), colors));
+            }
+        }
+
+        return new FrameDeltaDTO(seq, previous == null ? -1 : seq - 1, snapshot.getTimestamp(), mode,
+                machineDTOs, queueDTOs);
+    }
+
+    // unchanged queues share their list between consecutive snapshots, so identity settles most checks
+    private static boolean sameColors(List<String> current, List<String> previous) {
+        return current == previous || current.equals(previous);
+    }
+}
@@ -1,28 +1,111 @@
 package com.example.backend.model;
 
+import com.example.backend.model.distribution.Distribution;
+import com.example.backend.model.distribution.UniformDistribution;
+import com.example.backend.model.input.InOrderInput;
+import com.example.backend.model.input.InputPolicy;
+import com.example.backend.model.routing.RoutingStrategy;
+import com.example.backend.model.routing.ShortestQueueRouting;
 import com.example.backend.observer.QueueObserver;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
 import java.util.UUID;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
 
 @Data
 public class Machine implements Runnable, QueueObserver {
 
+    // how long a machine shows its finished state before handing the product on
+    public static final long FLASH_TIME = 200;
+
+    // how often a machine blocked on a full output re-checks whether it was stopped
+    private static final long BLOCKED_POLL_MILLIS = 100;
+
+    private static final boolean MULTI_CORE = Runtime.getRuntime().availableProcessors() > 1;
+
     private Runnable onStateChange;
+    // optional timing hooks, in nanoseconds: each service and each update() until the thread resumed
+    private LongConsumer serviceTimeRecorder;
+    private LongConsumer wakeupRecorder;
     private final String id;
     private volatile MachineState state = MachineState.IDLE;
     private volatile String currentColor = "GRAY";
 
+    // left out of equals, hashCode and toString: the queues list this machine among their observers
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<SimQueue> inputQueues = new ArrayList<>();
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<SimQueue> outputQueues = new ArrayList<>();
 
-    private final Object lock = new Object();
+    // products worked on at once, each server running its own batch; batchSize products are
+    // taken per cycle, share one service time and leave together
+    private int servers = 1;
+    private int batchSize = 1;
+    // batches in service or showing their finish, earliest due first; only touched by the machine thread
+    @Getter(AccessLevel.NONE)
+    private final PriorityQueue<Job> jobs = new PriorityQueue<>();
+
+    // counts products taken and handed on, set for each run
+    private ProductFlow flow;
+    // simulated time the realtime loop serves and flashes against, shared by the whole run
+    private SimulationClock simulationClock = new SimulationClock();
+
+    // service time per product; random is replaced with a split of the run's seed on every start
+    private Distribution serviceTime = new UniformDistribution(1000, 3000);
+    private SplittableRandom random = new SplittableRandom();
+
+    // where finished products go; weights by output queue id are read by WEIGHTED routing
+    private RoutingStrategy routing = new ShortestQueueRouting();
+    private Map<String, Double> outputWeights = new HashMap<>();
 
-    private volatile boolean notified = false;
+    // which input the next product comes from; weights by input queue id are read by WEIGHTED input
+    private InputPolicy inputPolicy = new InOrderInput();
+    private Map<String, Double> inputWeights = new HashMap<>();
+
+    // readiness signal: set while idle, claimed by the first put that sees it, so input queues
+    // keep the machine registered for good instead of attach/detach around every wait.
+    // park/unpark rather than a monitor so a waiting virtual thread unmounts instead of pinning its carrier
+    private final AtomicBoolean waiting = new AtomicBoolean();
+    private volatile Thread waiter;
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+    private long spinNanos = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // whether the machine is already listed as changed since the last frame
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // where service starts and ends are logged for the current run, null when they are not
+    private ProductEventLog eventLog;
+    private int eventNode;
+
+    private volatile long notifiedAt = 0;
+
+    // time spent in each state, the current stretch counted from stateSince; the clock is
+    // wall time unless the discrete-event engine swaps in its virtual one
+    private volatile LongSupplier clock = System::nanoTime;
+    private volatile long busyNanos = 0;
+    private volatile long idleNanos = 0;
+    private volatile long blockedNanos = 0;
+    // servers in service, and the server time they add up to
+    private volatile int inService = 0;
+    private volatile long serviceNanos = 0;
+    private volatile long stateSince = System.nanoTime();
     private volatile boolean running = false;
 
     public Machine(String id) {
@@ -30,90 +113,259 @@ public class Machine implements Runnable, QueueObserver {
     }
 
     @Override
-    public void update() {
-        synchronized (lock) {
-            notified = true;
-            lock.notify(); // to wake up the thread
+    public boolean update() {
+        if (!waiting.compareAndSet(true, false))
+            return false; // busy, or another put already woke it
+        notifiedAt = System.nanoTime();
+        LockSupport.unpark(waiter); // to wake up the thread
+        return true;
+    }
+
+    private static final class Job implements Comparable<Job> {
+        final List<Product> batch;
+        final long startedAt;
+        long dueAt; // end of service, then end of the finish flash
+        boolean serviced = false;
+
+        Job(List<Product> batch, long startedAt, long dueAt) {
+            this.batch = batch;
+            this.startedAt = startedAt;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            return Long.compare(dueAt, other.dueAt);
         }
     }
 
+    // one thread for all servers: it starts batches while servers are free and otherwise
+    // sleeps until the next batch is due or, with a free server, until an input gets a product
     @Override
     public void run() {
         try {
             while (running && !Thread.currentThread().isInterrupted()) {
 
-                setState(MachineState.IDLE);
-
-                Product product = dequeueFromAnyInput();
-
-                // Start processing
-                setState(MachineState.BUSY);
-                setColor(product.getColor());
-
-                process();
+                if (jobs.isEmpty()) {
+                    setState(MachineState.IDLE);
+                    start(fillBatch(dequeueFromAnyInput()));
+                }
+                while (jobs.size() < servers) {
+                    List<Product> batch = pollBatch();
+                    if (batch.isEmpty())
+                        break;
+                    start(batch);
+                }
 
-                // Finished processing
-                setState(MachineState.IDLE);
-                flash();
+                Job next = jobs.peek();
+                if (simulationClock.wallNanosUntil(next.dueAt) > 0) {
+                    if (jobs.size() < servers) {
+                        Product product = dequeueFromAnyInput(next.dueAt);
+                        if (product != null)
+                            start(fillBatch(product));
+                    } else {
+                        simulationClock.sleepUntil(next.dueAt);
+                    }
+                    continue;
+                }
 
-                if (!outputQueues.isEmpty()) {
-                    SimQueue shortestQueue = outputQueues.get(0);
-                    for (SimQueue queue : outputQueues) {
-                        if (queue.size() < shortestQueue.size()) {
-                            shortestQueue = queue;
+                jobs.poll();
+                if (!next.serviced) {
+                    // Finished processing, show it for the flash time
+                    if (serviceTimeRecorder != null)
+                        serviceTimeRecorder.accept(simulationClock.nanos() - next.startedAt);
+                    finishProcessing(next.batch);
+                    next.serviced = true;
+                    next.dueAt = simulationClock.nanos() + TimeUnit.MILLISECONDS.toNanos(FLASH_TIME);
+                    jobs.add(next);
+                } else {
+                    // the whole machine waits while a batch is blocked, batches due meanwhile follow right after
+                    SimQueue target = selectOutputQueue();
+                    if (target != null) {
+                        for (Product product : next.batch) {
+                            deliver(target, product);
+                            delivered(target, 1);
                         }
+                    } else {
+                        delivered(null, next.batch.size());
                     }
-                    shortestQueue.put(product);
+                    completeProcessing();
                 }
-
-                // Reset machine
-                resetColor();
-                setState(MachineState.IDLE);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         } finally {
+            jobs.clear();
+            inService = 0;
             setState(MachineState.IDLE);
             resetColor();
         }
     }
 
-    private Product dequeueFromAnyInput() throws InterruptedException {
-        while (running) {
-            for (SimQueue queue : inputQueues) {
-                Product product = queue.take();
-                // take return null if empty
-                if (product != null) {
-                    return product;
-                }
+    private void start(List<Product> batch) {
+        long now = simulationClock.nanos();
+        beginProcessing(batch);
+        jobs.add(new Job(batch, now, now + TimeUnit.MILLISECONDS.toNanos(nextServiceTime())));
+    }
+
+    // up to batchSize products in a single pass over the inputs, empty if they are all empty
+    public List<Product> pollBatch() {
+        Product first = pollInputs();
+        return first == null ? List.of() : fillBatch(first);
+    }
+
+    private List<Product> fillBatch(Product first) {
+        List<Product> batch;
+        if (batchSize == 1) {
+            batch = List.of(first);
+        } else {
+            batch = new ArrayList<>(batchSize);
+            batch.add(first);
+            while (batch.size() < batchSize) {
+                Product product = pollInputs();
+                if (product == null)
+                    break;
+                batch.add(product);
             }
-            // if all the queues are empty register as ready
-            for (SimQueue queue : inputQueues) {
-                queue.attach(this);
+        }
+        if (flow != null)
+            flow.taken(batch.size());
+        return batch;
+    }
+
+    // products placed in target, null when they left the graph with this machine
+    public void delivered(SimQueue target, int count) {
+        if (flow != null)
+            flow.delivered(target, count);
+    }
+
+    // single pass over the input queues in the order of the input policy, null if all of them are empty
+    public Product pollInputs() {
+        return inputPolicy.poll(this);
+    }
+
+    // the output queue picked by the routing strategy, or null if the machine has no outputs
+    public SimQueue selectOutputQueue() {
+        return routing.route(this);
+    }
+
+    public long nextServiceTime() {
+        return serviceTime.sample(random);
+    }
+
+    // one more server busy, showing the color of its (first) product
+    public void beginProcessing(Product product) {
+        setState(MachineState.BUSY);
+        inService++;
+        setColor(product.getColor());
+    }
+
+    // a server starting on a whole batch, logged per product
+    public void beginProcessing(List<Product> batch) {
+        if (eventLog != null)
+            eventLog.append(ProductEventType.SERVICE_START, batch, eventNode);
+        beginProcessing(batch.get(0));
+    }
+
+    public void finishProcessing(List<Product> batch) {
+        if (eventLog != null)
+            eventLog.append(ProductEventType.SERVICE_END, batch, eventNode);
+        finishProcessing();
+    }
+
+    // holds the finished product until the full output has room again
+    public void block() {
+        setState(MachineState.BLOCKED);
+    }
+
+    public void finishProcessing() {
+        accountStateTime();
+        inService = Math.max(0, inService - 1);
+        setState(inService > 0 ? MachineState.BUSY : MachineState.IDLE);
+    }
+
+    public void completeProcessing() {
+        if (inService == 0)
+            resetColor();
+        setState(inService > 0 ? MachineState.BUSY : MachineState.IDLE);
+    }
+
+    Product dequeueFromAnyInput() throws InterruptedException {
+        return dequeueFromAnyInput(Long.MAX_VALUE);
+    }
+
+    // null once the simulated deadline passed, Long.MAX_VALUE waits for good
+    private Product dequeueFromAnyInput(long deadline) throws InterruptedException {
+        while (running) {
+            Product product = pollInputs();
+            if (product != null) {
+                return product;
             }
-            synchronized (lock) {
-                while (!notified && running) {
-                    lock.wait(); // go to sleep until a queue update()
+
+            waiter = Thread.currentThread();
+            waiting.set(true);
+            // a product may have arrived between the poll and raising the signal, and its put saw nobody waiting
+            product = pollInputs();
+            if (product != null) {
+                if (!waiting.getAndSet(false)) {
+                    // a put woke this machine meanwhile; hand that wake on in case its product is still queued
+                    inputQueues.forEach(SimQueue::notifyObservers);
                 }
-                notified = false;
+                return product;
+            }
+
+            if (!awaitSignal(deadline)) {
+                if (!waiting.getAndSet(false))
+                    inputQueues.forEach(SimQueue::notifyObservers); // woken right at the deadline, pass it on
+                return null;
             }
-            for (SimQueue queue : inputQueues) {
-                queue.detach(this);
+            if (wakeupRecorder != null && notifiedAt != 0) {
+                wakeupRecorder.accept(System.nanoTime() - notifiedAt);
+                notifiedAt = 0;
             }
         }
         throw new InterruptedException("Machine stopped");
     }
 
-    private void process() throws InterruptedException {
-        int serviceTime = ThreadLocalRandom.current().nextInt(1000, 3000);
-        Thread.sleep(serviceTime);
+    private void deliver(SimQueue target, Product product) throws InterruptedException {
+        if (target.offer(product))
+            return;
+
+        block();
+        while (!target.offer(product, BLOCKED_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!running)
+                throw new InterruptedException("Machine stopped");
+        }
     }
 
-    private void flash() throws InterruptedException {
-        Thread.sleep(200);
+    // false if the deadline passed while still waiting
+    private boolean awaitSignal(long deadline) throws InterruptedException {
+        // spinning on a single core only delays the thread that would produce the signal
+        if (waitStrategy == WaitStrategy.SPIN_THEN_PARK && MULTI_CORE) {
+            long spinUntil = System.nanoTime() + spinNanos;
+            while (waiting.get() && running && System.nanoTime() < spinUntil) {
+                Thread.onSpinWait();
+            }
+        }
+        while (waiting.get() && running) {
+            if (deadline == Long.MAX_VALUE) {
+                LockSupport.park(this); // go to sleep until a queue update()
+            } else {
+                long left = simulationClock.wallNanosUntil(deadline);
+                if (left == 0)
+                    return false;
+                LockSupport.parkNanos(this, left);
+            }
+            if (Thread.interrupted()) {
+                waiting.set(false);
+                throw new InterruptedException();
+            }
+        }
+        return true;
     }
 
     private void setState(MachineState newState) {
+        accountStateTime();
         this.state = newState;
         if (onStateChange != null)
             onStateChange.run();
@@ -131,13 +383,86 @@ public class Machine implements Runnable, QueueObserver {
             onStateChange.run();
     }
 
+    // close the current stretch; called by whichever thread drives the machine
+    private void accountStateTime() {
+        long now = clock.getAsLong();
+        switch (state) {
+            case BUSY -> busyNanos += now - stateSince;
+            case BLOCKED -> blockedNanos += now - stateSince;
+            default -> idleNanos += now - stateSince;
+        }
+        serviceNanos += inService * (now - stateSince);
+        stateSince = now;
+    }
+
+    // starts the state times over against another clock, in nanoseconds
+    public void useClock(LongSupplier clock) {
+        this.clock = clock;
+        busyNanos = 0;
+        idleNanos = 0;
+        blockedNanos = 0;
+        serviceNanos = 0;
+        stateSince = clock.getAsLong();
+    }
+
+    public long getBusyNanos() {
+        long open = state == MachineState.BUSY ? clock.getAsLong() - stateSince : 0;
+        return busyNanos + open;
+    }
+
+    public long getIdleNanos() {
+        long open = state == MachineState.IDLE ? clock.getAsLong() - stateSince : 0;
+        return idleNanos + open;
+    }
+
+    public long getBlockedNanos() {
+        long open = state == MachineState.BLOCKED ? clock.getAsLong() - stateSince : 0;
+        return blockedNanos + open;
+    }
+
+    // server time spent in service; divided by servers times the elapsed time it gives the utilization
+    public long getServiceNanos() {
+        return serviceNanos + inService * (clock.getAsLong() - stateSince);
+    }
+
+    public void setServers(int servers) {
+        if (servers < 1)
+            throw new IllegalArgumentException("Machine needs at least one server: " + servers);
+        this.servers = servers;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    // true if this call flipped the machine to changed
+    public boolean markDirty() {
+        return dirty.compareAndSet(false, true);
+    }
+
+    public void clearDirty() {
+        dirty.set(false);
+    }
+
     public void stopMachine() {
         running = false;
     }
 
+    // wake the machine thread if it is waiting for input, used on stop
+    public void wakeUp() {
+        waiting.set(false);
+        Thread thread = waiter;
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
     public void reset() {
         stopMachine();
         resetColor();
+        accountStateTime();
+        inService = 0;
         state = MachineState.IDLE;
     }
 }
@@ -3,4 +3,5 @@ package com.example.backend.model;
 public enum MachineState {
     IDLE,
     BUSY,
+    BLOCKED, // finished, waiting for room in a full output queue
 }
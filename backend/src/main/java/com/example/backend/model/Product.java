@@ -2,12 +2,31 @@ package com.example.backend.model;
 
 import com.example.backend.util.ColorGenerator;
 import lombok.Getter;
+import lombok.Setter;
 
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
+// three primitives and no references, so a queued product is a single small object
 @Getter
 public class Product {
-    private final String id = UUID.randomUUID().toString();
-    private final ColorGenerator colorGenerator = new ColorGenerator();
-    private final String color = colorGenerator.randomHexColor();
+    private static final AtomicLong ids = new AtomicLong();
+
+    private final long id = ids.incrementAndGet();
+    private final int rgb; // packed 0xRRGGBB
+    // System.nanoTime() of the last put, only set while queue wait times are recorded
+    @Setter
+    private long enqueuedAt;
+
+    public Product() {
+        this(ColorGenerator.randomRgb());
+    }
+
+    public Product(int rgb) {
+        this.rgb = rgb;
+    }
+
+    // shared palette string, nothing is formatted per product
+    public String getColor() {
+        return ColorGenerator.toHex(rgb);
+    }
 }
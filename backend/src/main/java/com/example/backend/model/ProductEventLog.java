@@ -0,0 +1,243 @@
+package com.example.backend.model;
+
+import com.example.backend.snapshot.SimulationSnapshot;
+import com.example.backend.util.ColorGenerator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Append-only log of what happened to every product of a run, kept off-heap
+ * in fixed 24 byte records: time (long), product id (long), node (int) and
+ * the event type in the top byte over the product color (int). Queues,
+ * machines and the input append from any thread without a lock; the last
+ * int of a record is written last, as a volatile write, and is never 0, so a
+ * reader sees a record completely or not at all. Writers then move a shared
+ * count over the records that are complete from the start, which is the size.
+ * <p>
+ * Frames for any moment of the run are derived from the log when asked for,
+ * and so is the path of a single product through the graph.
+ */
+public class ProductEventLog {
+
+    public static final int RECORD_BYTES = 24;
+    static final int SEGMENT_SHIFT = 16; // 65536 records, 1.5 MiB per segment
+    static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+
+    private static final VarHandle TYPE_RGB = MethodHandles.byteBufferViewVarHandle(int[].class,
+            ByteOrder.nativeOrder());
+
+    public record Event(long index, ProductEventType type, long productId, String node, long time, int rgb) {
+    }
+
+    // node ids by index: the queues first, then the machines
+    private final String[] nodes;
+    private final int queueCount;
+    private volatile long limit; // events stored at most, lowered when direct memory runs out
+    private final LongSupplier clock; // simulated milliseconds
+    private final AtomicReferenceArray<ByteBuffer> segments;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong(); // records complete from the start
+
+    public ProductEventLog(List<String> queueIds, List<String> machineIds, long capacity, LongSupplier clock) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Event log capacity must be positive: " + capacity);
+        this.queueCount = queueIds.size();
+        this.nodes = new String[queueIds.size() + machineIds.size()];
+        for (int i = 0; i < queueIds.size(); i++) {
+            nodes[i] = queueIds.get(i);
+        }
+        for (int i = 0; i < machineIds.size(); i++) {
+            nodes[queueCount + i] = machineIds.get(i);
+        }
+        this.limit = capacity;
+        this.clock = clock;
+        this.segments = new AtomicReferenceArray<>((int) ((capacity + SEGMENT_RECORDS - 1) >>> SEGMENT_SHIFT));
+    }
+
+    public int queueNode(int queueIndex) {
+        return queueIndex;
+    }
+
+    public int machineNode(int machineIndex) {
+        return queueCount + machineIndex;
+    }
+
+    // events past the capacity, or past the memory there was, are counted as dropped and not stored
+    public void append(ProductEventType type, Product product, int node) {
+        long index = next.getAndIncrement();
+        if (index >= limit)
+            return;
+        ByteBuffer segment = segment((int) (index >>> SEGMENT_SHIFT));
+        if (segment == null)
+            return;
+        int offset = (int) (index & (SEGMENT_RECORDS - 1)) * RECORD_BYTES;
+        segment.putLong(offset, clock.getAsLong());
+        segment.putLong(offset + 8, product.getId());
+        segment.putInt(offset + 16, node);
+        TYPE_RGB.setVolatile(segment, offset + 20, (type.ordinal() + 1) << 24 | (product.getRgb() & 0xFFFFFF));
+        commit();
+    }
+
+    // moves committed over the complete records after it: whoever completes the record at committed
+    // also carries it over the later ones finished first. Volatile on both sides, so of two writers
+    // finishing neighbouring records at least one sees the other's
+    private void commit() {
+        long at = committed.get();
+        while (at < Math.min(next.get(), limit) && typeRgb(at) != 0) {
+            at = committed.compareAndSet(at, at + 1) ? at + 1 : committed.get();
+        }
+    }
+
+    public void append(ProductEventType type, List<Product> products, int node) {
+        for (Product product : products) {
+            append(type, product, node);
+        }
+    }
+
+    private ByteBuffer segment(int index) {
+        ByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            // the int view needs 4 byte aligned offsets, records keep that relative to an aligned start
+            ByteBuffer fresh;
+            try {
+                fresh = ByteBuffer.allocateDirect(SEGMENT_RECORDS * RECORD_BYTES + 8).alignedSlice(8)
+                        .order(ByteOrder.nativeOrder());
+            } catch (OutOfMemoryError e) {
+                // out of direct memory: the log ends before this segment instead of failing the simulation
+                truncate((long) index << SEGMENT_SHIFT);
+                return null;
+            }
+            segment = segments.compareAndExchange(index, null, fresh);
+            if (segment == null)
+                segment = fresh;
+        }
+        return segment;
+    }
+
+    private synchronized void truncate(long at) {
+        if (at < limit) {
+            limit = at;
+            System.out.println("event log out of direct memory after " + at + " events, dropping the rest");
+        }
+    }
+
+    // events appended, stored or not
+    public long getAppended() {
+        return next.get();
+    }
+
+    public long getDropped() {
+        return Math.max(0, next.get() - limit);
+    }
+
+    // the complete records from the start; stops at one still being written
+    public long size() {
+        return committed.get();
+    }
+
+    private int typeRgb(long index) {
+        ByteBuffer segment = segments.get((int) (index >>> SEGMENT_SHIFT));
+        if (segment == null)
+            return 0;
+        return (int) TYPE_RGB.getVolatile(segment, (int) (index & (SEGMENT_RECORDS - 1)) * RECORD_BYTES + 20);
+    }
+
+    // the record at index, null if it is not completely written yet
+    public Event get(long index) {
+        if (index < 0 || index >= Math.min(next.get(), limit))
+            return null;
+        int typeRgb = typeRgb(index);
+        if (typeRgb == 0)
+            return null;
+        ByteBuffer segment = segments.get((int) (index >>> SEGMENT_SHIFT));
+        int offset = (int) (index & (SEGMENT_RECORDS - 1)) * RECORD_BYTES;
+        return new Event(index, ProductEventType.values()[(typeRgb >>> 24) - 1], segment.getLong(offset + 8),
+                nodes[segment.getInt(offset + 16)], segment.getLong(offset), typeRgb & 0xFFFFFF);
+    }
+
+    // up to limit complete events from index from on
+    public List<Event> events(long from, int limit) {
+        List<Event> events = new ArrayList<>();
+        for (long i = Math.max(0, from); events.size() < limit; i++) {
+            Event event = get(i);
+            if (event == null)
+                break;
+            events.add(event);
+        }
+        return events;
+    }
+
+    // everything that happened to one product, in order
+    public List<Event> productEvents(long productId) {
+        List<Event> events = new ArrayList<>();
+        long size = size();
+        for (long i = 0; i < size; i++) {
+            ByteBuffer segment = segments.get((int) (i >>> SEGMENT_SHIFT));
+            if (segment.getLong((int) (i & (SEGMENT_RECORDS - 1)) * RECORD_BYTES + 8) == productId)
+                events.add(get(i));
+        }
+        return events;
+    }
+
+    /**
+     * The graph at the given simulated time, replayed from the events up to it:
+     * queue contents in arrival order, and each machine busy with the colour of
+     * its latest product while it serves any. Finish flashes and blocked
+     * machines leave no product event, so machines show idle then.
+     */
+    public SimulationSnapshot snapshotAt(long time) {
+        List<Map<Long, Integer>> contents = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            contents.add(new LinkedHashMap<>());
+        }
+        long size = size();
+        for (long i = 0; i < size; i++) {
+            ByteBuffer segment = segments.get((int) (i >>> SEGMENT_SHIFT));
+            int offset = (int) (i & (SEGMENT_RECORDS - 1)) * RECORD_BYTES;
+            if (segment.getLong(offset) > time)
+                continue; // appended a little out of time order by another thread
+            long productId = segment.getLong(offset + 8);
+            Map<Long, Integer> node = contents.get(segment.getInt(offset + 16));
+            int typeRgb = segment.getInt(offset + 20);
+            switch (ProductEventType.values()[(typeRgb >>> 24) - 1]) {
+                case ENQUEUED, SERVICE_START -> node.put(productId, typeRgb & 0xFFFFFF);
+                case DEQUEUED, SERVICE_END -> node.remove(productId);
+                default -> {
+                }
+            }
+        }
+
+        Map<String, String> machineColors = new HashMap<>();
+        Map<String, String> machineStates = new HashMap<>();
+        Map<String, Integer> queueSizes = new HashMap<>();
+        Map<String, List<String>> queueColors = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            Map<Long, Integer> node = contents.get(i);
+            if (i < queueCount) {
+                List<String> colors = new ArrayList<>(node.size());
+                node.values().forEach(rgb -> colors.add(ColorGenerator.toHex(rgb)));
+                queueSizes.put(nodes[i], colors.size());
+                queueColors.put(nodes[i], colors);
+            } else {
+                Integer latest = null;
+                for (Integer rgb : node.values()) {
+                    latest = rgb;
+                }
+                machineColors.put(nodes[i], latest == null ? "GRAY" : ColorGenerator.toHex(latest));
+                machineStates.put(nodes[i], String.valueOf(latest == null ? MachineState.IDLE : MachineState.BUSY));
+            }
+        }
+        return new SimulationSnapshot(machineColors, machineStates, queueSizes, queueColors, time);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.backend.model;
+
+// what happened to a product, in the order a product usually goes through them
+public enum ProductEventType {
+    GENERATED,      // the input produced it for a queue, which may still be full
+    ENQUEUED,       // it entered a queue
+    DEQUEUED,       // a machine took it from a queue
+    SERVICE_START,  // a server of the machine started on it
+    SERVICE_END     // its service time is over
+}
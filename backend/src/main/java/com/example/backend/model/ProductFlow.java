@@ -0,0 +1,92 @@
+package com.example.backend.model;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where the products of one run are: waiting in a queue, held by a machine or
+ * arrived at a sink. The counters move with the products, so the delivery that
+ * brings the last product to a sink fires completion at once instead of a
+ * monitor polling the queues.
+ */
+public class ProductFlow {
+
+    // products the run ends with, -1 until known; a trace only tells once it is read to the end
+    private volatile long expected;
+    private final Runnable onComplete;
+
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong inMachines = new AtomicLong();
+    private final AtomicLong atSinks = new AtomicLong();
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    public ProductFlow(long expected, Runnable onComplete) {
+        this.expected = expected;
+        this.onComplete = onComplete;
+    }
+
+    // the input generator placed a new product
+    public void generated(SimQueue target) {
+        generated.incrementAndGet();
+        arrived(target, 1);
+    }
+
+    // a machine took products from its inputs
+    public void taken(int count) {
+        queued.addAndGet(-count);
+        inMachines.addAndGet(count);
+    }
+
+    // a machine handed products on; a machine without an output counts as a sink
+    public void delivered(SimQueue target, int count) {
+        inMachines.addAndGet(-count);
+        arrived(target, count);
+    }
+
+    private void arrived(SimQueue target, int count) {
+        if (target != null && !target.isSink()) {
+            queued.addAndGet(count);
+            return;
+        }
+        atSinks.addAndGet(count);
+        checkComplete();
+    }
+
+    // the generator is done, so everything it generated is all there will be
+    public void generationDone() {
+        expected = generated.get();
+        checkComplete();
+    }
+
+    private void checkComplete() {
+        long target = expected;
+        if (target >= 0 && atSinks.get() >= target && completed.compareAndSet(false, true) && onComplete != null) {
+            onComplete.run();
+        }
+    }
+
+    public boolean isComplete() {
+        return completed.get();
+    }
+
+    public long getExpected() {
+        return expected;
+    }
+
+    public long getGenerated() {
+        return generated.get();
+    }
+
+    public long getQueued() {
+        return queued.get();
+    }
+
+    public long getInMachines() {
+        return inMachines.get();
+    }
+
+    public long getAtSinks() {
+        return atSinks.get();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.backend.model;
+
+import com.example.backend.model.buffer.ProductBuffer;
+import com.example.backend.snapshot.QueueOps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Content changes of one queue since the last frame, so a frame only costs
+ * as much as the puts and takes that happened in between instead of a copy
+ * of everything queued. Any thread may record; only the snapshot recorder drains.
+ * <p>
+ * Puts carry the buffer position they were stored at, and a frame shows them
+ * in position order, not in the order producers got round to journaling them.
+ * A put is only shown once every position before it is known, and a take that
+ * was journaled ahead of the put it undoes waits for that put.
+ */
+public class QueueJournal {
+
+    private record Op(long position, String color) {
+    }
+
+    // a take needs no position: products always leave from the head
+    private static final Op TAKE = new Op(-1, null);
+
+    private final ConcurrentLinkedQueue<Op> ops = new ConcurrentLinkedQueue<>();
+    private volatile boolean resync = true;
+    private volatile boolean enabled = false; // stays off for queues nobody records, so ops never pile up
+
+    // what the last drained frame showed: shownSize products ending just before position shownTail
+    private long shownTail = 0;
+    private int shownSize = 0;
+    private final Map<Long, String> early = new HashMap<>(); // puts journaled while an earlier one was not yet
+    private int owedTakes = 0; // takes of products whose put is not shown yet
+
+    // called once the product is stored, with the position the buffer gave it
+    public void recordPut(long position, String color) {
+        if (enabled)
+            ops.add(new Op(position, color));
+    }
+
+    public void recordTake() {
+        if (enabled)
+            ops.add(TAKE);
+    }
+
+    // starts journaling; the next drain re-reads the whole queue, used when a new history starts
+    public void requestResync() {
+        resync = true;
+        enabled = true;
+    }
+
+    public QueueOps drain(ProductBuffer contents) {
+        if (resync) {
+            resync = false;
+            ops.clear();
+            early.clear();
+            owedTakes = 0;
+            // read after the clear: every put journaled before it is already below this position
+            shownTail = contents.tailPosition();
+            List<String> colors = new ArrayList<>();
+            contents.forEach(p -> colors.add(p.getColor()));
+            QueueOps full = new QueueOps(shownSize, colors);
+            shownSize = colors.size();
+            return full;
+        }
+
+        Op op;
+        while ((op = ops.poll()) != null) {
+            if (op == TAKE) {
+                owedTakes++;
+            } else if (op.position() >= shownTail) {
+                early.put(op.position(), op.color());
+            }
+        }
+
+        List<String> pushes = new ArrayList<>();
+        String color;
+        while ((color = early.remove(shownTail)) != null) {
+            pushes.add(color);
+            shownTail++;
+        }
+
+        int pops = Math.min(owedTakes, shownSize);
+        int pushHead = Math.min(owedTakes - pops, pushes.size()); // pushes already taken again within the same frame
+        owedTakes -= pops + pushHead;
+        List<String> kept = pushes.subList(pushHead, pushes.size());
+        shownSize += kept.size() - pops;
+        return new QueueOps(pops, List.copyOf(kept));
+    }
+}
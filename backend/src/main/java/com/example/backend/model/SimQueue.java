@@ -1,35 +1,114 @@
 package com.example.backend.model;
 
+import com.example.backend.model.buffer.LinkedProductBuffer;
+import com.example.backend.model.buffer.ProductBuffer;
 import com.example.backend.observer.QueueObserver;
 import com.example.backend.observer.QueueSubject;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
 
 @Data
 public class SimQueue implements QueueSubject {
 
     private Runnable onUpdate;
+    // receives how long each taken product sat in the queue, in nanoseconds
+    private LongConsumer waitRecorder;
     private String id;
-    private LinkedBlockingQueue<Product> products = new LinkedBlockingQueue<>();
-    private List<QueueObserver> observers = new ArrayList<>();
+    private ProductBuffer products;
+    // 0 for unbounded; otherwise free places are counted by slots and a full queue holds producers back
+    private final int capacity;
+    private final Semaphore slots;
+    // products arriving here have left the graph; the run is complete once the sinks hold all of them
+    private boolean sink;
+    // consumers registered once at connect time; copied on change so put reads it without a lock.
+    // Left out of equals, hashCode and toString, which would otherwise walk back through the machines
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile QueueObserver[] observers = new QueueObserver[0];
+    private int wakeCursor = 0; // racy on purpose, it only spreads wakes across consumers
+
+    // content changes since the last frame and whether the queue is already listed as changed
+    private final QueueJournal journal = new QueueJournal();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    // where puts and takes are logged for the current run, null when they are not
+    private ProductEventLog eventLog;
+    private int eventNode;
 
     public SimQueue(String id) {
+        this(id, new LinkedProductBuffer());
+    }
+
+    public SimQueue(String id, ProductBuffer products) {
+        this(id, products, 0);
+    }
+
+    public SimQueue(String id, ProductBuffer products, int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Queue capacity must not be negative: " + capacity);
         this.id = id;
+        this.products = products;
+        this.capacity = capacity;
+        this.slots = capacity > 0 ? new Semaphore(capacity) : null;
+    }
+
+    // waits as long as it takes for room; producers that must stay stoppable use the timed offer
+    public void put(Product product) {
+        if (slots != null)
+            slots.acquireUninterruptibly();
+        add(product);
+    }
+
+    // false if the queue is full
+    public boolean offer(Product product) {
+        if (slots != null && !slots.tryAcquire())
+            return false;
+        add(product);
+        return true;
     }
 
-    public synchronized void put(Product product) {
-        products.add(product);
+    public boolean offer(Product product, long timeout, TimeUnit unit) throws InterruptedException {
+        if (slots != null && !slots.tryAcquire(timeout, unit))
+            return false;
+        add(product);
+        return true;
+    }
+
+    // the buffer is thread safe on its own, so put and take take no queue-wide lock
+    private void add(Product product) {
+        if (waitRecorder != null)
+            product.setEnqueuedAt(System.nanoTime());
+        if (eventLog != null)
+            eventLog.append(ProductEventType.ENQUEUED, product, eventNode); // before a consumer can take it
+        long position;
+        while ((position = products.append(product)) < 0) {
+            Thread.yield(); // not for long: the slots never let in more products than the ring holds
+        }
+        journal.recordPut(position, product.getColor());
         notifyObservers();
         if (onUpdate != null)
             onUpdate.run();
     }
 
-    public synchronized Product take() {
+    public Product take() {
         Product p = products.poll();
         if (p != null) {
+            if (slots != null)
+                slots.release();
+            if (eventLog != null)
+                eventLog.append(ProductEventType.DEQUEUED, p, eventNode);
+            journal.recordTake();
+            if (waitRecorder != null && p.getEnqueuedAt() != 0)
+                waitRecorder.accept(System.nanoTime() - p.getEnqueuedAt());
             if (onUpdate != null)
                 onUpdate.run();
         }
@@ -37,26 +116,50 @@ public class SimQueue implements QueueSubject {
     }
 
     @Override
-    public synchronized void attach(QueueObserver observer) { // add the ready observers
-        if (!observers.contains(observer)) {
-            observers.add(observer);
+    public synchronized void attach(QueueObserver observer) { // register a consumer of this queue
+        for (QueueObserver existing : observers) {
+            if (existing == observer)
+                return;
         }
+        QueueObserver[] next = Arrays.copyOf(observers, observers.length + 1);
+        next[observers.length] = observer;
+        observers = next;
     }
 
     @Override
-    public void detach(QueueObserver observer) { // remove observer when not ready
-        observers.remove(observer);
+    public synchronized void detach(QueueObserver observer) {
+        List<QueueObserver> next = new ArrayList<>(Arrays.asList(observers));
+        next.removeIf(existing -> existing == observer);
+        observers = next.toArray(new QueueObserver[0]);
     }
 
     @Override
-    public void notifyObservers() { // notify the first empty observer
-        if (!observers.isEmpty() && !products.isEmpty()) {
-            QueueObserver firstReadyMachine = observers.remove(0);
-            firstReadyMachine.update();
+    public void notifyObservers() { // wake one waiting consumer, busy ones are skipped
+        QueueObserver[] current = observers;
+        if (current.length == 0 || products.isEmpty())
+            return;
+
+        int start = Math.floorMod(wakeCursor++, current.length);
+        for (int i = 0; i < current.length; i++) {
+            if (current[(start + i) % current.length].update())
+                return;
         }
     }
 
     public int size() {
         return products.size();
     }
+
+    public boolean isBounded() {
+        return capacity > 0;
+    }
+
+    // true if this call flipped the queue to changed
+    public boolean markDirty() {
+        return dirty.compareAndSet(false, true);
+    }
+
+    public void clearDirty() {
+        dirty.set(false);
+    }
 }
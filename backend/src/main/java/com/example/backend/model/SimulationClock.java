@@ -0,0 +1,83 @@
+package com.example.backend.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated time of the realtime engine: wall time scaled by a speed factor.
+ * Machines and the input generator wait for simulated deadlines and frames are
+ * stamped with simulated milliseconds, so a run at 100x looks the same in the
+ * history as one at 1x, just recorded sooner. Changing the speed keeps the
+ * simulated time continuous.
+ */
+public class SimulationClock {
+
+    // longest single wait, so threads already waiting pick up a speed change
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // simulated nanos reached at a wall instant, and the speed from there on
+    private record Anchor(long wallNanos, long simNanos, double speed) {
+    }
+
+    private volatile Anchor anchor;
+    private volatile long startMillis; // wall clock when the run started, the base of the frame timestamps
+
+    public SimulationClock() {
+        restart(1.0);
+    }
+
+    // simulated time starts over at 0
+    public synchronized void restart(double speed) {
+        checkSpeed(speed);
+        startMillis = System.currentTimeMillis();
+        anchor = new Anchor(System.nanoTime(), 0, speed);
+    }
+
+    public synchronized void setSpeed(double speed) {
+        checkSpeed(speed);
+        long wall = System.nanoTime();
+        anchor = new Anchor(wall, simNanosAt(anchor, wall), speed);
+    }
+
+    public double getSpeed() {
+        return anchor.speed();
+    }
+
+    // simulated nanos since the start
+    public long nanos() {
+        return simNanosAt(anchor, System.nanoTime());
+    }
+
+    // frame timestamp: the start on the wall clock plus the simulated time since
+    public long currentTimeMillis() {
+        return startMillis + nanos() / 1_000_000;
+    }
+
+    // wall nanos to wait for the simulated deadline at the current speed, 0 once it passed
+    public long wallNanosUntil(long deadline) {
+        Anchor current = anchor;
+        long left = deadline - simNanosAt(current, System.nanoTime());
+        if (left <= 0)
+            return 0;
+        return Math.max(1, Math.min(MAX_WAIT_NANOS, (long) (left / current.speed())));
+    }
+
+    public void sleepUntil(long deadline) throws InterruptedException {
+        long wait;
+        while ((wait = wallNanosUntil(deadline)) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    public void sleep(long millis) throws InterruptedException {
+        sleepUntil(nanos() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static long simNanosAt(Anchor anchor, long wall) {
+        return anchor.simNanos() + (long) ((wall - anchor.wallNanos()) * anchor.speed());
+    }
+
+    private static void checkSpeed(double speed) {
+        if (!(speed > 0) || Double.isInfinite(speed))
+            throw new IllegalArgumentException("Speed must be a positive number: " + speed);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.backend.model;
+
+// how an idle machine waits for its readiness signal
+public enum WaitStrategy {
+    PARK,           // park right away, no CPU while idle
+    SPIN_THEN_PARK  // busy-wait briefly first, so a product arriving soon is picked up without a park/unpark
+}
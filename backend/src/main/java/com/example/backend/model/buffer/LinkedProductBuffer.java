@@ -0,0 +1,43 @@
+package com.example.backend.model.buffer;
+
+import com.example.backend.model.Product;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+public class LinkedProductBuffer implements ProductBuffer {
+
+    private final LinkedBlockingQueue<Product> products = new LinkedBlockingQueue<>();
+    private long tail = 0; // guarded by this, which orders puts the same way the queue's own put lock does
+
+    @Override
+    public synchronized long append(Product product) {
+        products.offer(product); // unbounded, never full
+        return tail++;
+    }
+
+    @Override
+    public synchronized long tailPosition() {
+        return tail;
+    }
+
+    @Override
+    public Product poll() {
+        return products.poll();
+    }
+
+    @Override
+    public int size() {
+        return products.size();
+    }
+
+    @Override
+    public void clear() {
+        products.clear();
+    }
+
+    @Override
+    public void forEach(Consumer<? super Product> action) {
+        products.forEach(action);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.backend.model.buffer;
+
+import com.example.backend.model.Product;
+
+import java.util.function.Consumer;
+
+/**
+ * Storage behind a {@link com.example.backend.model.SimQueue}.
+ * Implementations must be safe for any number of concurrent producers and consumers.
+ */
+public interface ProductBuffer {
+
+    // false if the buffer is full
+    default boolean offer(Product product) {
+        return append(product) >= 0;
+    }
+
+    // stores at the tail and returns the position taken there, counted up from 0 in the order the
+    // buffer holds products whichever producer got there first; -1 if the buffer is full
+    long append(Product product);
+
+    // the position the next stored product will get
+    long tailPosition();
+
+    // null if the buffer is empty
+    Product poll();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    void clear();
+
+    // weakly consistent walk from head to tail, used for snapshots
+    void forEach(Consumer<? super Product> action);
+}
@@ -0,0 +1,10 @@
+package com.example.backend.model.buffer;
+
+public enum QueueBackend {
+    LINKED, // unbounded LinkedBlockingQueue
+    RING;   // lock-free array ring, for hot fan-in queues
+
+    public ProductBuffer create(int ringCapacity) {
+        return this == RING ? new RingProductBuffer(ringCapacity) : new LinkedProductBuffer();
+    }
+}
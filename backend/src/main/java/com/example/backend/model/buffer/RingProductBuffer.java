@@ -0,0 +1,122 @@
+package com.example.backend.model.buffer;
+
+import com.example.backend.model.Product;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer/multi-consumer ring (Vyukov's algorithm).
+ * Each slot carries a sequence number: a producer may fill slot i when its
+ * sequence equals the claimed tail position, a consumer may empty it when the
+ * sequence is one past the head position. Producers and consumers only contend
+ * on a CAS of their own cursor, and no node is allocated per product.
+ */
+public class RingProductBuffer implements ProductBuffer {
+
+    private final int mask;
+    private final Product[] items;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong head = new AtomicLong(); // next position to take
+    private final AtomicLong tail = new AtomicLong(); // next position to fill
+
+    public RingProductBuffer(int capacity) {
+        if (capacity < 2)
+            throw new IllegalArgumentException("Ring capacity must be at least 2");
+
+        int size = Integer.highestOneBit(capacity - 1) << 1; // round up to a power of two
+        mask = size - 1;
+        items = new Product[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public long append(Product product) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items[index] = product;
+                    sequences.set(index, pos + 1); // publishes the item to consumers
+                    return pos;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return -1; // slot still holds an item from the previous lap: full
+            } else {
+                pos = tail.get(); // another producer claimed this position
+            }
+        }
+    }
+
+    @Override
+    public Product poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    Product product = items[index];
+                    items[index] = null;
+                    sequences.set(index, pos + mask + 1); // hand the slot to the next lap's producer
+                    return product;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // not filled yet: empty
+            } else {
+                pos = head.get(); // another consumer took this position
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        // read head first so a concurrent take cannot make the result negative
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(t - h, capacity()));
+    }
+
+    @Override
+    public long tailPosition() {
+        return tail.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // drain
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Product> action) {
+        long t = tail.get();
+        for (long pos = head.get(); pos < t; pos++) {
+            int index = (int) (pos & mask);
+            // seqlock read: the sequence says the slot holds pos, and the recheck says it still did
+            // after the item was read; skip slots that were taken or refilled while we walked
+            if (sequences.get(index) != pos + 1)
+                continue;
+            Product product = items[index];
+            VarHandle.acquireFence(); // keep the item read ahead of the recheck
+            if (product != null && sequences.get(index) == pos + 1) {
+                action.accept(product);
+            }
+        }
+    }
+}
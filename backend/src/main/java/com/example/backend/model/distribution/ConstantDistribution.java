@@ -0,0 +1,19 @@
+package com.example.backend.model.distribution;
+
+import java.util.SplittableRandom;
+
+public class ConstantDistribution implements Distribution {
+
+    private final long value;
+
+    public ConstantDistribution(double value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Constant duration must not be negative: " + value);
+        this.value = Distribution.clamp(value);
+    }
+
+    @Override
+    public long sample(SplittableRandom random) {
+        return value;
+    }
+}
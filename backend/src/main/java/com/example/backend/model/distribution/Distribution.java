@@ -0,0 +1,18 @@
+package com.example.backend.model.distribution;
+
+import java.util.SplittableRandom;
+
+/**
+ * A duration in milliseconds drawn from some distribution. Implementations
+ * keep no state of their own, all randomness comes from the caller's
+ * generator, so one seeded generator per machine makes a run repeatable.
+ */
+public interface Distribution {
+
+    // never negative
+    long sample(SplittableRandom random);
+
+    static long clamp(double millis) {
+        return Math.max(0, Math.round(millis));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.backend.model.distribution;
+
+public enum DistributionType {
+    CONSTANT,    // value
+    UNIFORM,     // min, max
+    EXPONENTIAL, // mean
+    NORMAL,      // mean, stdDev
+    LOGNORMAL,   // mean, stdDev
+    EMPIRICAL    // samples
+}
@@ -0,0 +1,27 @@
+package com.example.backend.model.distribution;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// replays observed durations, each recorded value equally likely
+public class EmpiricalDistribution implements Distribution {
+
+    private final long[] samples;
+
+    public EmpiricalDistribution(List<Double> samples) {
+        if (samples == null || samples.isEmpty())
+            throw new IllegalArgumentException("Empirical distribution needs at least one sample");
+        this.samples = new long[samples.size()];
+        for (int i = 0; i < this.samples.length; i++) {
+            double value = samples.get(i);
+            if (value < 0)
+                throw new IllegalArgumentException("Empirical samples must not be negative: " + value);
+            this.samples[i] = Distribution.clamp(value);
+        }
+    }
+
+    @Override
+    public long sample(SplittableRandom random) {
+        return samples[random.nextInt(samples.length)];
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.backend.model.distribution;
+
+import java.util.SplittableRandom;
+
+// memoryless durations, e.g. Poisson arrivals
+public class ExponentialDistribution implements Distribution {
+
+    private final double mean;
+
+    public ExponentialDistribution(double mean) {
+        if (mean <= 0)
+            throw new IllegalArgumentException("Exponential mean must be positive: " + mean);
+        this.mean = mean;
+    }
+
+    @Override
+    public long sample(SplittableRandom random) {
+        // 1 - u lies in (0, 1], so the log is finite
+        return Distribution.clamp(-mean * Math.log(1 - random.nextDouble()));
+    }
+}
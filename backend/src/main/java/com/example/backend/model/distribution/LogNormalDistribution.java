@@ -0,0 +1,26 @@
+package com.example.backend.model.distribution;
+
+import java.util.SplittableRandom;
+
+/**
+ * Right-skewed durations, typical for service times. Configured by the mean
+ * and standard deviation of the durations themselves, not of their logarithm.
+ */
+public class LogNormalDistribution implements Distribution {
+
+    private final double mu;
+    private final double sigma;
+
+    public LogNormalDistribution(double mean, double stdDev) {
+        if (mean <= 0 || stdDev < 0)
+            throw new IllegalArgumentException("Lognormal needs mean > 0 and stdDev >= 0, got " + mean + ", " + stdDev);
+        double variance = Math.log(1 + (stdDev * stdDev) / (mean * mean));
+        this.sigma = Math.sqrt(variance);
+        this.mu = Math.log(mean) - variance / 2;
+    }
+
+    @Override
+    public long sample(SplittableRandom random) {
+        return Distribution.clamp(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
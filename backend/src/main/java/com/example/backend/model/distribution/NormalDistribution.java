@@ -0,0 +1,22 @@
+package com.example.backend.model.distribution;
+
+import java.util.SplittableRandom;
+
+// negative draws are cut to zero, so keep the mean a few deviations above it
+public class NormalDistribution implements Distribution {
+
+    private final double mean;
+    private final double stdDev;
+
+    public NormalDistribution(double mean, double stdDev) {
+        if (stdDev < 0)
+            throw new IllegalArgumentException("Standard deviation must not be negative: " + stdDev);
+        this.mean = mean;
+        this.stdDev = stdDev;
+    }
+
+    @Override
+    public long sample(SplittableRandom random) {
+        return Distribution.clamp(mean + stdDev * random.nextGaussian());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.backend.model.distribution;
+
+import java.util.SplittableRandom;
+
+// any value in [min, max) equally likely
+public class UniformDistribution implements Distribution {
+
+    private final double min;
+    private final double max;
+
+    public UniformDistribution(double min, double max) {
+        if (min < 0 || max <= min)
+            throw new IllegalArgumentException("Uniform needs 0 <= min < max, got " + min + ".." + max);
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public long sample(SplittableRandom random) {
+        return (long) random.nextDouble(min, max);
+    }
+}
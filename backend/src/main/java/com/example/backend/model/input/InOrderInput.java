@@ -0,0 +1,21 @@
+package com.example.backend.model.input;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+
+// always the first non-empty input in connection order; later inputs only get a turn when earlier ones are empty
+public class InOrderInput implements InputPolicy {
+
+    @Override
+    public Product poll(Machine machine) {
+        for (SimQueue queue : machine.getInputQueues()) {
+            Product product = queue.take();
+            // take return null if empty
+            if (product != null) {
+                return product;
+            }
+        }
+        return null;
+    }
+}
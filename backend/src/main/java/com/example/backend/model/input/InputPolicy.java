@@ -0,0 +1,14 @@
+package com.example.backend.model.input;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+
+/**
+ * Picks which input queue a free machine takes its next product from. Like
+ * routing, each machine owns its instance and calls it from one thread.
+ */
+public interface InputPolicy {
+
+    // one pass over the inputs, null if all of them are empty
+    Product poll(Machine machine);
+}
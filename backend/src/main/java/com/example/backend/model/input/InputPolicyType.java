@@ -0,0 +1,17 @@
+package com.example.backend.model.input;
+
+public enum InputPolicyType {
+    IN_ORDER,
+    ROUND_ROBIN,
+    LONGEST_QUEUE,
+    WEIGHTED;
+
+    public InputPolicy create() {
+        return switch (this) {
+            case IN_ORDER -> new InOrderInput();
+            case ROUND_ROBIN -> new RoundRobinInput();
+            case LONGEST_QUEUE -> new LongestQueueInput();
+            case WEIGHTED -> new WeightedInput();
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.backend.model.input;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+
+import java.util.List;
+
+// drains the fullest input first
+public class LongestQueueInput implements InputPolicy {
+
+    private final InputPolicy fallback = new InOrderInput();
+
+    @Override
+    public Product poll(Machine machine) {
+        List<SimQueue> inputs = machine.getInputQueues();
+        SimQueue longest = null;
+        int longestSize = 0;
+        for (SimQueue queue : inputs) {
+            int size = queue.size();
+            if (size > longestSize) {
+                longest = queue;
+                longestSize = size;
+            }
+        }
+        if (longest == null)
+            return null;
+
+        Product product = longest.take();
+        // another machine emptied it in the meantime, take whatever is left
+        return product != null ? product : fallback.poll(machine);
+    }
+}
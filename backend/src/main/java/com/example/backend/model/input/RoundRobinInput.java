@@ -0,0 +1,28 @@
+package com.example.backend.model.input;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+
+import java.util.List;
+
+// starts each pass after the input served last, so no busy input starves the others
+public class RoundRobinInput implements InputPolicy {
+
+    private int next = 0;
+
+    @Override
+    public Product poll(Machine machine) {
+        List<SimQueue> inputs = machine.getInputQueues();
+        int k = inputs.size();
+        for (int i = 0; i < k; i++) {
+            int index = (next + i) % k;
+            Product product = inputs.get(index).take();
+            if (product != null) {
+                next = index + 1;
+                return product;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.backend.model.input;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+
+import java.util.List;
+
+/**
+ * Picks among the non-empty inputs at random in proportion to the weights
+ * set on the input connections, 1 for inputs without one.
+ */
+public class WeightedInput implements InputPolicy {
+
+    private final InputPolicy fallback = new InOrderInput();
+
+    @Override
+    public Product poll(Machine machine) {
+        List<SimQueue> inputs = machine.getInputQueues();
+        double total = 0;
+        for (SimQueue queue : inputs) {
+            if (queue.size() > 0) {
+                total += weight(machine, queue);
+            }
+        }
+        if (total == 0)
+            return null;
+
+        double point = machine.getRandom().nextDouble(total);
+        for (SimQueue queue : inputs) {
+            if (queue.size() == 0)
+                continue;
+            point -= weight(machine, queue);
+            if (point < 0) {
+                Product product = queue.take();
+                if (product != null)
+                    return product;
+                break;
+            }
+        }
+        // lost a race for the chosen input
+        return fallback.poll(machine);
+    }
+
+    private static double weight(Machine machine, SimQueue queue) {
+        return machine.getInputWeights().getOrDefault(queue.getId(), 1.0);
+    }
+}
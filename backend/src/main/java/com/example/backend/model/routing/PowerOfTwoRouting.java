@@ -0,0 +1,31 @@
+package com.example.backend.model.routing;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// the shorter of two random outputs: close to shortest-queue balance for two size reads
+public class PowerOfTwoRouting implements RoutingStrategy {
+
+    @Override
+    public SimQueue route(Machine machine) {
+        List<SimQueue> outputs = machine.getOutputQueues();
+        int k = outputs.size();
+        if (k == 0)
+            return null;
+        if (k == 1)
+            return outputs.get(0);
+
+        SplittableRandom random = machine.getRandom();
+        int first = random.nextInt(k);
+        int second = random.nextInt(k - 1);
+        if (second >= first) {
+            second++; // distinct from first
+        }
+        SimQueue a = outputs.get(first);
+        SimQueue b = outputs.get(second);
+        return b.size() < a.size() ? b : a;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.backend.model.routing;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+
+import java.util.List;
+
+// each output in turn, ignoring how full they are
+public class RoundRobinRouting implements RoutingStrategy {
+
+    private int next = 0;
+
+    @Override
+    public SimQueue route(Machine machine) {
+        List<SimQueue> outputs = machine.getOutputQueues();
+        if (outputs.isEmpty())
+            return null;
+
+        if (next >= outputs.size()) {
+            next = 0;
+        }
+        return outputs.get(next++);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.backend.model.routing;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+
+/**
+ * Picks the output queue for a finished product. Each machine owns its own
+ * instance and only calls it from the thread driving that machine, so
+ * strategies may keep unsynchronized state.
+ */
+public interface RoutingStrategy {
+
+    // null if the machine has no outputs
+    SimQueue route(Machine machine);
+}
@@ -0,0 +1,17 @@
+package com.example.backend.model.routing;
+
+public enum RoutingType {
+    SHORTEST_QUEUE,
+    ROUND_ROBIN,
+    POWER_OF_TWO,
+    WEIGHTED;
+
+    public RoutingStrategy create() {
+        return switch (this) {
+            case SHORTEST_QUEUE -> new ShortestQueueRouting();
+            case ROUND_ROBIN -> new RoundRobinRouting();
+            case POWER_OF_TWO -> new PowerOfTwoRouting();
+            case WEIGHTED -> new WeightedRouting();
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.backend.model.routing;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+
+import java.util.List;
+
+// the output with the fewest products; reads every size once, O(k) per product
+public class ShortestQueueRouting implements RoutingStrategy {
+
+    @Override
+    public SimQueue route(Machine machine) {
+        List<SimQueue> outputs = machine.getOutputQueues();
+        if (outputs.isEmpty())
+            return null;
+
+        SimQueue shortest = outputs.get(0);
+        int shortestSize = shortest.size();
+        for (int i = 1; i < outputs.size(); i++) {
+            SimQueue queue = outputs.get(i);
+            int size = queue.size();
+            if (size < shortestSize) {
+                shortest = queue;
+                shortestSize = size;
+            }
+        }
+        return shortest;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.model.routing;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits products across outputs in proportion to the weights set on the
+ * output connections, 1 for outputs without one. The cumulative weights are
+ * built once and reused while the outputs stay the same.
+ */
+public class WeightedRouting implements RoutingStrategy {
+
+    private List<SimQueue> builtFor;
+    private int builtSize = -1;
+    private double[] cumulative;
+
+    @Override
+    public SimQueue route(Machine machine) {
+        List<SimQueue> outputs = machine.getOutputQueues();
+        if (outputs.isEmpty())
+            return null;
+
+        if (outputs != builtFor || outputs.size() != builtSize) {
+            build(machine, outputs);
+        }
+        double total = cumulative[cumulative.length - 1];
+        double point = machine.getRandom().nextDouble(total);
+        int index = Arrays.binarySearch(cumulative, point);
+        // an exact hit on a boundary belongs to the next output
+        index = index >= 0 ? index + 1 : -index - 1;
+        return outputs.get(Math.min(index, outputs.size() - 1));
+    }
+
+    private void build(Machine machine, List<SimQueue> outputs) {
+        cumulative = new double[outputs.size()];
+        double sum = 0;
+        for (int i = 0; i < outputs.size(); i++) {
+            sum += machine.getOutputWeights().getOrDefault(outputs.get(i).getId(), 1.0);
+            cumulative[i] = sum;
+        }
+        builtFor = outputs;
+        builtSize = outputs.size();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.backend.observer;
 
 public interface QueueObserver {
-    void update();
+    // wake the observer if it is waiting for input; false if it was not, so the queue can try the next one
+    boolean update();
 }
@@ -0,0 +1,48 @@
+package com.example.backend.persistence;
+
+import com.example.backend.snapshot.SnapshotDelta;
+
+/**
+ * The frames of one run on their way to the {@link RunStore}. Frames arrive
+ * one at a time under the snapshot service lock; once the writer falls too
+ * far behind the rest of the run is dropped, so what is stored is always a
+ * replayable prefix.
+ */
+public class RunRecording {
+
+    private final RunStore store;
+    private final long runId;
+
+    private long frames = 0;
+    private long firstTimestamp = -1;
+    private long lastTimestamp = 0;
+    private boolean truncated = false;
+
+    RunRecording(RunStore store, long runId) {
+        this.store = store;
+        this.runId = runId;
+    }
+
+    public void frame(SnapshotDelta delta) {
+        if (truncated)
+            return;
+        if (!store.offerFrame(runId, frames, delta)) {
+            truncated = true;
+            System.out.println("run " + runId + " writer behind, later frames are not stored");
+            return;
+        }
+        frames++;
+        if (firstTimestamp < 0)
+            firstTimestamp = delta.getTimestamp();
+        lastTimestamp = delta.getTimestamp();
+    }
+
+    public void finish(long generated, long atSinks) {
+        store.finishRun(runId, generated, atSinks, frames,
+                firstTimestamp < 0 ? 0 : lastTimestamp - firstTimestamp, truncated);
+    }
+
+    public long getRunId() {
+        return runId;
+    }
+}
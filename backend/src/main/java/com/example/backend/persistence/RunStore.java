@@ -0,0 +1,269 @@
+package com.example.backend.persistence;
+
+import com.example.backend.dto.StoredRunDTO;
+import com.example.backend.facade.SimulationFacade;
+import com.example.backend.service.EngineType;
+import com.example.backend.service.SimulationMode;
+import com.example.backend.service.SimulationStateService;
+import com.example.backend.service.SnapshotService;
+import com.example.backend.snapshot.SnapshotDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs kept in the H2 database, so they can be listed and replayed after a
+ * restart. Simulation threads only hand frames to a queue; one background
+ * writer serializes them and inserts them in JDBC batches, a transaction per
+ * batch, keeping the order in which runs were started, recorded and finished.
+ */
+@Service
+public class RunStore {
+
+    private static final String RUN_COLUMNS = "id, session_id, engine, product_count, started_at, stopped_at, "
+            + "products_generated, products_at_sinks, frames, simulated_millis, truncated";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private SimulationFacade simulationFacade;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${simulation.persistence.enabled:true}")
+    private boolean enabled = true;
+
+    // writes per JDBC batch and transaction
+    @Value("${simulation.persistence.batch-size:500}")
+    private int batchSize = 500;
+
+    // frames waiting for the writer before a run stops being stored
+    @Value("${simulation.persistence.queue-capacity:100000}")
+    private int queueCapacity = 100_000;
+
+    private sealed interface Write permits StartRun, Frame, FinishRun, Shutdown {
+    }
+
+    private record StartRun(long runId, String sessionId, EngineType engine, int productCount, long startedAt,
+                            StoredGraph graph) implements Write {
+    }
+
+    private record Frame(long runId, long seq, SnapshotDelta delta) implements Write {
+    }
+
+    private record FinishRun(long runId, long stoppedAt, long generated, long atSinks, long frames,
+                             long simulatedMillis, boolean truncated) implements Write {
+    }
+
+    private record Shutdown() implements Write {
+    }
+
+    private final BlockingQueue<Write> pending = new LinkedBlockingQueue<>();
+    // frames in pending; run starts and finishes are never dropped and do not count
+    private final AtomicInteger pendingFrames = new AtomicInteger();
+    private final AtomicLong nextRunId = new AtomicLong();
+    // runs started whose summary the writer has not stored yet; their frames may still be queued
+    private final Set<Long> recording = ConcurrentHashMap.newKeySet();
+    private volatile boolean open = false;
+    private Thread writer;
+    private Counter finishedRuns;
+
+    @PostConstruct
+    public void init() {
+        finishedRuns = Counter.builder("simulation.runs.finished")
+                .description("Stored runs whose summary was queued for the writer")
+                .register(meterRegistry);
+        if (!enabled)
+            return;
+        Long last = jdbcTemplate.queryForObject("SELECT MAX(id) FROM sim_run", Long.class);
+        nextRunId.set(last != null ? last + 1 : 1);
+        open = true;
+        writer = new Thread(this::drain, "RunStoreWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // writes what is queued, then stops the writer
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null)
+            return;
+        open = false;
+        pending.add(new Shutdown());
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // null when the store is disabled; the graph is read now, before the run can change anything
+    public RunRecording startRun(String sessionId, EngineType engine, int productCount, SimulationStateService state) {
+        if (!open)
+            return null;
+        long runId = nextRunId.getAndIncrement();
+        recording.add(runId);
+        StoredGraph graph = new StoredGraph(simulationFacade.describeObjects(state),
+                simulationFacade.describeConnections(state));
+        pending.add(new StartRun(runId, sessionId, engine, productCount, System.currentTimeMillis(), graph));
+        System.out.println("recording run " + runId);
+        return new RunRecording(this, runId);
+    }
+
+    // false when the writer is too far behind; never blocks
+    boolean offerFrame(long runId, long seq, SnapshotDelta delta) {
+        if (!open)
+            return false;
+        if (pendingFrames.incrementAndGet() > queueCapacity) {
+            pendingFrames.decrementAndGet();
+            return false;
+        }
+        pending.add(new Frame(runId, seq, delta));
+        return true;
+    }
+
+    void finishRun(long runId, long generated, long atSinks, long frames, long simulatedMillis, boolean truncated) {
+        if (!open) {
+            recording.remove(runId);
+            return; // the run stays listed as unfinished with the frames written so far
+        }
+        pending.add(new FinishRun(runId, System.currentTimeMillis(), generated, atSinks, frames, simulatedMillis,
+                truncated));
+        finishedRuns.increment();
+    }
+
+    public List<StoredRunDTO> getRuns() {
+        return jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM sim_run ORDER BY id DESC", RunStore::toDTO);
+    }
+
+    public StoredRunDTO getRun(long runId) {
+        List<StoredRunDTO> runs = jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM sim_run WHERE id = ?",
+                RunStore::toDTO, runId);
+        if (runs.isEmpty())
+            throw new IllegalArgumentException("Run not found: " + runId);
+        return runs.get(0);
+    }
+
+    // a run still being recorded cannot go yet: the writer would keep adding frames to it
+    public void deleteRun(long runId) {
+        getRun(runId);
+        if (recording.contains(runId))
+            throw new IllegalStateException("Run " + runId + " is still being recorded");
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM sim_run_frame WHERE run_id = ?", runId);
+            jdbcTemplate.update("DELETE FROM sim_run WHERE id = ?", runId);
+        });
+    }
+
+    // rebuilds the run's graph in the session and makes its frames the session's history, ready for replay
+    public StoredRunDTO load(long runId, SimulationStateService state, SnapshotService snapshots) {
+        StoredRunDTO run = getRun(runId);
+        if (state.getMode() != SimulationMode.STOPPED)
+            throw new IllegalStateException("Stop the session's simulation or replay before loading a run");
+        String graphJson = jdbcTemplate.queryForObject("SELECT graph FROM sim_run WHERE id = ?", String.class, runId);
+        StoredGraph graph = jsonMapper.readValue(graphJson, StoredGraph.class);
+
+        simulationFacade.initializeObjects(state, graph.objects());
+        simulationFacade.connectComponents(state, graph.connections());
+        snapshots.clearHistory();
+        AtomicLong frames = new AtomicLong();
+        jdbcTemplate.query("SELECT delta FROM sim_run_frame WHERE run_id = ? ORDER BY seq", rs -> {
+            snapshots.appendFrame(jsonMapper.readValue(rs.getBytes(1), StoredFrame.class).toDelta());
+            frames.incrementAndGet();
+        }, runId);
+        System.out.println("loaded run " + runId + " with " + frames.get() + " frames");
+        return run;
+    }
+
+    private void drain() {
+        List<Write> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch, batchSize - 1);
+            boolean stop = batch.get(batch.size() - 1) instanceof Shutdown;
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+            } catch (RuntimeException e) {
+                System.out.println("run store write of " + batch.size() + " items failed: " + e.getMessage());
+            }
+            for (Write write : batch) {
+                if (write instanceof Frame)
+                    pendingFrames.decrementAndGet();
+                else if (write instanceof FinishRun finish)
+                    recording.remove(finish.runId()); // nothing of the run is left in the queue
+            }
+            batch.clear();
+            if (stop)
+                return;
+        }
+    }
+
+    // consecutive frames go out as one JDBC batch, everything else in queue order between them
+    private void write(List<Write> batch) {
+        List<Object[]> frames = new ArrayList<>();
+        for (Write write : batch) {
+            if (write instanceof Frame frame) {
+                frames.add(new Object[]{frame.runId(), frame.seq(), frame.delta().getTimestamp(),
+                        jsonMapper.writeValueAsBytes(StoredFrame.of(frame.delta()))});
+                continue;
+            }
+            insertFrames(frames);
+            if (write instanceof StartRun start) {
+                jdbcTemplate.update("INSERT INTO sim_run (id, session_id, engine, product_count, started_at, graph) "
+                                + "VALUES (?, ?, ?, ?, ?, ?)", start.runId(), start.sessionId(),
+                        start.engine().name(), start.productCount(), start.startedAt(),
+                        jsonMapper.writeValueAsString(start.graph()));
+            } else if (write instanceof FinishRun finish) {
+                jdbcTemplate.update("UPDATE sim_run SET stopped_at = ?, products_generated = ?, products_at_sinks = ?, "
+                                + "frames = ?, simulated_millis = ?, truncated = ? WHERE id = ?", finish.stoppedAt(),
+                        finish.generated(), finish.atSinks(), finish.frames(), finish.simulatedMillis(),
+                        finish.truncated(), finish.runId());
+            }
+        }
+        insertFrames(frames);
+    }
+
+    private void insertFrames(List<Object[]> frames) {
+        if (frames.isEmpty())
+            return;
+        jdbcTemplate.batchUpdate("INSERT INTO sim_run_frame (run_id, seq, time_millis, delta) VALUES (?, ?, ?, ?)",
+                frames);
+        frames.clear();
+    }
+
+    private static StoredRunDTO toDTO(ResultSet rs, int row) throws SQLException {
+        long stopped = rs.getLong("stopped_at");
+        Long stoppedAt = rs.wasNull() ? null : stopped;
+        return new StoredRunDTO(rs.getLong("id"), rs.getString("session_id"), EngineType.valueOf(rs.getString("engine")),
+                rs.getInt("product_count"), rs.getLong("started_at"), stoppedAt,
+                rs.getLong("products_generated"), rs.getLong("products_at_sinks"), rs.getLong("frames"),
+                rs.getLong("simulated_millis"), rs.getBoolean("truncated"));
+    }
+}
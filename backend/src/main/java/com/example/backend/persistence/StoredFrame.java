@@ -0,0 +1,32 @@
+package com.example.backend.persistence;
+
+import com.example.backend.snapshot.QueueOps;
+import com.example.backend.snapshot.SnapshotDelta;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// the JSON form of a history delta in the frame table
+record StoredFrame(Map<String, String> machineColors,
+                   Map<String, String> machineStates,
+                   Map<String, Integer> queueSizes,
+                   Map<String, StoredOps> queueOps,
+                   long timestamp) {
+
+    record StoredOps(int pops, List<String> pushes) {
+    }
+
+    static StoredFrame of(SnapshotDelta delta) {
+        Map<String, StoredOps> ops = new HashMap<>();
+        delta.getQueueOps().forEach((queueId, o) -> ops.put(queueId, new StoredOps(o.getPops(), o.getPushes())));
+        return new StoredFrame(delta.getMachineColors(), delta.getMachineStates(), delta.getQueueSizes(), ops,
+                delta.getTimestamp());
+    }
+
+    SnapshotDelta toDelta() {
+        Map<String, QueueOps> ops = new HashMap<>();
+        queueOps.forEach((queueId, o) -> ops.put(queueId, new QueueOps(o.pops(), o.pushes())));
+        return new SnapshotDelta(machineColors, machineStates, queueSizes, ops, timestamp);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.backend.persistence;
+
+import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.ObjectInitDTO;
+
+import java.util.List;
+
+// the graph a stored run was recorded on, in the shape of the init API
+public record StoredGraph(ObjectInitDTO objects, List<ConnectionDTO> connections) {
+}
@@ -0,0 +1,22 @@
+package com.example.backend.service;
+
+import lombok.Getter;
+
+/**
+ * A frame already serialized to JSON, so one encoding is shared by every
+ * client and can be cached for replays.
+ */
+@Getter
+public class EncodedFrame {
+    private final byte[] json;
+    private final long timestamp;
+
+    public EncodedFrame(byte[] json, long timestamp) {
+        this.json = json;
+        this.timestamp = timestamp;
+    }
+
+    public int size() {
+        return json.length;
+    }
+}
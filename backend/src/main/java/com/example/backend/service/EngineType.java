@@ -0,0 +1,6 @@
+package com.example.backend.service;
+
+public enum EngineType {
+    REALTIME,       // one thread per machine, real sleeps
+    DISCRETE_EVENT  // single thread, virtual clock
+}
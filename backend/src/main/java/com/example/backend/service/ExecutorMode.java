@@ -0,0 +1,6 @@
+package com.example.backend.service;
+
+public enum ExecutorMode {
+    PLATFORM, // one OS thread per machine
+    VIRTUAL   // virtual threads, needs a Java 21+ runtime
+}
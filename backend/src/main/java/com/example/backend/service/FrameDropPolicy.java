@@ -0,0 +1,6 @@
+package com.example.backend.service;
+
+public enum FrameDropPolicy {
+    DROP_OLDEST, // a full client buffer discards its oldest pending frame
+    LATEST_ONLY  // a client only ever holds the newest pending frame
+}
@@ -0,0 +1,6 @@
+package com.example.backend.service;
+
+public enum PublishMode {
+    INLINE,    // the changing thread records and publishes every frame itself
+    COALESCED  // changes only mark the simulation dirty, a scheduler publishes at a fixed rate
+}
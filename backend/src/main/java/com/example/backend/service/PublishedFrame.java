@@ -0,0 +1,68 @@
+package com.example.backend.service;
+
+import lombok.Getter;
+
+import java.util.function.Supplier;
+
+/**
+ * One published frame in every wire form a client may ask for. Each form is
+ * encoded at most once, on first use, and the bytes are shared by all clients
+ * on that protocol.
+ */
+public class PublishedFrame {
+
+    @Getter
+    private final long seq;
+    @Getter
+    private final long topologyVersion;
+    private final Supplier<EncodedFrame> legacy;
+    private final Supplier<byte[]> delta;    // null when there is no snapshot to diff
+    private final Supplier<byte[]> full;
+    private final Supplier<byte[]> topology;
+
+    PublishedFrame(long seq, long topologyVersion, Supplier<EncodedFrame> legacy,
+                   Supplier<byte[]> delta, Supplier<byte[]> full, Supplier<byte[]> topology) {
+        this.seq = seq;
+        this.topologyVersion = topologyVersion;
+        this.legacy = memoize(legacy);
+        this.delta = memoize(delta);
+        this.full = memoize(full);
+        this.topology = topology;
+    }
+
+    public EncodedFrame legacy() {
+        return legacy.get();
+    }
+
+    public boolean hasState() {
+        return full != null;
+    }
+
+    public byte[] delta() {
+        return delta.get();
+    }
+
+    public byte[] full() {
+        return full.get();
+    }
+
+    public byte[] topology() {
+        return topology.get();
+    }
+
+    private static <T> Supplier<T> memoize(Supplier<T> supplier) {
+        if (supplier == null)
+            return null;
+        return new Supplier<>() {
+            private T value;
+
+            @Override
+            public synchronized T get() {
+                if (value == null) {
+                    value = supplier.get();
+                }
+                return value;
+            }
+        };
+    }
+}
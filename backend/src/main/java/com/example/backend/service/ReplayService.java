@@ -1,12 +1,14 @@
 package com.example.backend.service;
 
+import com.example.backend.session.SessionComponent;
 import com.example.backend.snapshot.SimulationSnapshot;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.util.ArrayList;
 import java.util.List;
 
-@Service
+@SessionComponent
 public class ReplayService {
 
     @Autowired
@@ -21,6 +23,15 @@ public class ReplayService {
     private Thread replayThread;
     private volatile boolean replaying = false;
 
+    @Value("${simulation.replay.cache-max-bytes:268435456}")
+    private long cacheMaxBytes;
+
+    // encoded frames of the last replayed history, reused until the history or the graph changes
+    private final List<EncodedFrame> frameCache = new ArrayList<>();
+    private long cachedBytes = 0;
+    private long cachedGeneration = -1;
+    private long cachedTopology = -1;
+
     public synchronized void replay() {
         if (stateService.getMode().equals(SimulationMode.LIVE)) {
             // Cannot start replay while live simulation is running
@@ -34,19 +45,20 @@ public class ReplayService {
 
         stateService.setMode(SimulationMode.REPLAY);
         replaying = true;
+        long generation = snapshotService.getHistoryGeneration();
+        long topology = stateService.getTopologyVersion();
 
         replayThread = new Thread(() -> {
             try {
-                SimulationSnapshot previousSnapshot = history.get(0);
-                ssePublisherService.publishSnapshot(previousSnapshot, stateService.getMachines(),
-                        stateService.getQueues(), stateService.getMode());
+                EncodedFrame previousFrame = frameAt(history, 0, generation, topology);
+                ssePublisherService.publishEncoded(previousFrame, stateFor(history, 0), SimulationMode.REPLAY);
 
                 for (int i = 1; i < history.size(); i++) {
                     if (!replaying || Thread.currentThread().isInterrupted())
                         break;
 
-                    SimulationSnapshot currentSnapshot = history.get(i);
-                    long timeDiff = currentSnapshot.getTimestamp() - previousSnapshot.getTimestamp();
+                    EncodedFrame currentFrame = frameAt(history, i, generation, topology);
+                    long timeDiff = currentFrame.getTimestamp() - previousFrame.getTimestamp();
 
                     if (timeDiff > 0) {
                         try {
@@ -56,10 +68,9 @@ public class ReplayService {
                             break;
                         }
                     }
-                    ssePublisherService.publishSnapshot(currentSnapshot, stateService.getMachines(),
-                            stateService.getQueues(), stateService.getMode());
+                    ssePublisherService.publishEncoded(currentFrame, stateFor(history, i), SimulationMode.REPLAY);
 
-                    previousSnapshot = currentSnapshot;
+                    previousFrame = currentFrame;
                 }
                 // If replay naturally reaches the end, stop it explicitly
                 if (replaying) {
@@ -79,6 +90,38 @@ public class ReplayService {
         replayThread.start();
     }
 
+    // delta clients diff snapshots, so only rebuild the frame when one is listening
+    private SimulationSnapshot stateFor(List<SimulationSnapshot> history, int index) {
+        return ssePublisherService.hasDeltaClients() ? history.get(index) : null;
+    }
+
+    // cached encoding of frame index, encoding (and caching within budget) on a miss
+    private EncodedFrame frameAt(List<SimulationSnapshot> history, int index, long generation, long topology) {
+        synchronized (frameCache) {
+            if (generation != cachedGeneration || topology != cachedTopology) {
+                frameCache.clear();
+                cachedBytes = 0;
+                cachedGeneration = generation;
+                cachedTopology = topology;
+            }
+            if (index < frameCache.size()) {
+                return frameCache.get(index);
+            }
+        }
+
+        EncodedFrame frame = ssePublisherService.encode(history.get(index), stateService.getMachines(),
+                stateService.getQueues(), SimulationMode.REPLAY);
+
+        synchronized (frameCache) {
+            boolean sameRun = generation == cachedGeneration && topology == cachedTopology;
+            if (sameRun && index == frameCache.size() && cachedBytes + frame.size() <= cacheMaxBytes) {
+                frameCache.add(frame);
+                cachedBytes += frame.size();
+            }
+        }
+        return frame;
+    }
+
     public synchronized void stopReplay() {
         replaying = false;
 
@@ -0,0 +1,209 @@
+package com.example.backend.service;
+
+import com.example.backend.InputGenerator;
+import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.EstimateDTO;
+import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.dto.ReplicationReportDTO;
+import com.example.backend.dto.ReplicationRequestDTO;
+import com.example.backend.dto.ReplicationRunDTO;
+import com.example.backend.engine.DiscreteEventEngine;
+import com.example.backend.engine.RunStatistics;
+import com.example.backend.facade.SimulationFacade;
+import com.example.backend.model.Machine;
+import com.example.backend.model.ProductFlow;
+import com.example.backend.util.StudentT;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs one graph many times on the discrete-event engine, each replication
+ * with its own copy of the graph and its own seed, spread over a pool with a
+ * thread per core. No session's graph is touched, so replications can run
+ * next to live simulations.
+ */
+@Service
+public class ReplicationService {
+
+    @Autowired
+    private SimulationFacade simulationFacade;
+
+    // settings a replica graph shares with the graphs of the sessions
+    @Value("${simulation.queue.ring-capacity:65536}")
+    private int ringCapacity = 65536;
+
+    @Value("${simulation.trace.dir:traces}")
+    private String traceDir = "traces";
+
+    // threads running replications, 0 for one per available core
+    @Value("${simulation.replications.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${simulation.replications.max:1000}")
+    private int maxReplications = 1000;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public ReplicationReportDTO run(ReplicationRequestDTO request) {
+        int count = request.getReplications();
+        if (count < 1 || count > maxReplications)
+            throw new IllegalArgumentException("Replications must be between 1 and " + maxReplications + ": " + count);
+        double confidence = request.getConfidence();
+        if (!(confidence > 0 && confidence < 1))
+            throw new IllegalArgumentException("Confidence must be between 0 and 1: " + confidence);
+        validate(request.getObjects(), request.getConnections(), request.getProductCount());
+
+        long seed = seedOf(request.getObjects());
+        List<Callable<ReplicationRunDTO>> tasks = new ArrayList<>();
+        for (long runSeed : replicationSeeds(seed, count)) {
+            tasks.add(() -> replicate(request.getObjects(), request.getConnections(), request.getProductCount(), runSeed));
+        }
+
+        long started = System.currentTimeMillis();
+        List<ReplicationRunDTO> runs = runAll(tasks);
+        long wall = System.currentTimeMillis() - started;
+        System.out.println(count + " replications in " + wall + " ms on " + pool.getParallelism() + " threads");
+
+        Map<String, EstimateDTO> queueLengths = new LinkedHashMap<>();
+        for (String queueId : runs.get(0).getQueueLengths().keySet()) {
+            queueLengths.put(queueId, estimate(runs, run -> run.getQueueLengths().get(queueId), confidence));
+        }
+        return new ReplicationReportDTO(count, confidence, seed, wall, pool.getParallelism(),
+                estimate(runs, ReplicationRunDTO::getThroughput, confidence),
+                estimate(runs, ReplicationRunDTO::getMeanWip, confidence),
+                estimate(runs, ReplicationRunDTO::getMeanSojourn, confidence),
+                estimate(runs, ReplicationRunDTO::getP50Sojourn, confidence),
+                estimate(runs, ReplicationRunDTO::getP90Sojourn, confidence),
+                estimate(runs, ReplicationRunDTO::getP99Sojourn, confidence),
+                queueLengths, runs);
+    }
+
+    // a broken graph fails here, before any run starts
+    void validate(ObjectInitDTO objects, List<ConnectionDTO> connections, int productCount) {
+        if (objects == null)
+            throw new IllegalArgumentException("Replications need a graph");
+        if (productCount < 0 || (productCount == 0 && objects.getTrace() == null))
+            throw new IllegalArgumentException("Product count must be positive: " + productCount);
+        SimulationStateService probe = replica(objects, connections);
+        probe.validateConnections();
+        probe.resolveSinks();
+    }
+
+    static long seedOf(ObjectInitDTO objects) {
+        return objects.getSeed() != null ? objects.getSeed() : new SplittableRandom().nextLong();
+    }
+
+    // the seeds of replications 0..count-1, the same for every graph run from one seed
+    static long[] replicationSeeds(long seed, int count) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] runSeeds = new long[count];
+        for (int i = 0; i < count; i++) {
+            runSeeds[i] = seeds.nextLong();
+        }
+        return runSeeds;
+    }
+
+    // runs every task on the pool and returns the results in task order; the first failure is rethrown
+    <T> List<T> runAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replications interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException("Replication failed", e.getCause());
+        }
+        return results;
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // one discrete-event run on a graph of its own, without frames
+    ReplicationRunDTO replicate(ObjectInitDTO objects, List<ConnectionDTO> connections, int productCount, long seed) {
+        SimulationStateService state = replica(objects, connections);
+        state.setSeed(seed);
+        state.resolveSinks();
+        SplittableRandom inputRandom = state.seedRun();
+
+        ProductFlow flow = new ProductFlow(state.getTrace() == null ? productCount : -1, null);
+        for (Machine machine : state.getAllMachines()) {
+            machine.setFlow(flow);
+        }
+        InputGenerator generator = state.createInputGenerator(state.getAllQueues().get(0), productCount, inputRandom);
+        generator.setFlow(flow);
+
+        DiscreteEventEngine engine = new DiscreteEventEngine(state.getAllMachines(), generator, time -> {
+        });
+        RunStatistics statistics = new RunStatistics(state.getAllQueues());
+        engine.setStatistics(statistics);
+        engine.run();
+
+        return new ReplicationRunDTO(seed, statistics.getDeparted(), engine.getVirtualTime(),
+                statistics.throughput(), statistics.meanWip(), statistics.meanSojourn(), statistics.sojournPercentile(0.5),
+                statistics.sojournPercentile(0.9), statistics.sojournPercentile(0.99),
+                statistics.meanQueueLengths());
+    }
+
+    private SimulationStateService replica(ObjectInitDTO objects, List<ConnectionDTO> connections) {
+        SimulationStateService state = new SimulationStateService();
+        state.setDetached(true);
+        state.setRingCapacity(ringCapacity);
+        state.setTraceDir(traceDir);
+        simulationFacade.initializeObjects(state, objects);
+        simulationFacade.connectComponents(state, connections);
+        return state;
+    }
+
+    // mean over the replications with a Student t interval, the replications being independent
+    static EstimateDTO estimate(List<ReplicationRunDTO> runs, ToDoubleFunction<ReplicationRunDTO> measure,
+                                double confidence) {
+        int n = runs.size();
+        double sum = 0;
+        for (ReplicationRunDTO run : runs) {
+            sum += measure.applyAsDouble(run);
+        }
+        double mean = sum / n;
+        if (n == 1)
+            return new EstimateDTO(mean, 0, 0, mean, mean);
+
+        double squares = 0;
+        for (ReplicationRunDTO run : runs) {
+            double d = measure.applyAsDouble(run) - mean;
+            squares += d * d;
+        }
+        double stdDev = Math.sqrt(squares / (n - 1));
+        double halfWidth = StudentT.critical(confidence, n - 1) * stdDev / Math.sqrt(n);
+        return new EstimateDTO(mean, stdDev, halfWidth, mean - halfWidth, mean + halfWidth);
+    }
+}
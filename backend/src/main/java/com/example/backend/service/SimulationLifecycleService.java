@@ -1,13 +1,22 @@
 package com.example.backend.service;
 
 import com.example.backend.InputGenerator;
+import com.example.backend.engine.DiscreteEventEngine;
 import com.example.backend.model.Machine;
-import com.example.backend.model.MachineState;
+import com.example.backend.model.ProductFlow;
 import com.example.backend.model.SimQueue;
+import com.example.backend.model.SimulationClock;
+import com.example.backend.persistence.RunRecording;
+import com.example.backend.persistence.RunStore;
+import com.example.backend.session.SessionComponent;
+import com.example.backend.util.SimulationThreads;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.annotation.Value;
 
-@Service
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+@SessionComponent
 public class SimulationLifecycleService {
 
     @Autowired
@@ -19,90 +28,197 @@ public class SimulationLifecycleService {
     @Autowired
     private SsePublisherService ssePublisherService;
 
+    @Autowired(required = false)
+    private SimulationMetrics metrics;
+
+    @Autowired(required = false)
+    private RunStore runStore;
+
+    // set by the session, so stored runs tell which session made them
+    @Value("${simulation.session.id:default}")
+    private String sessionId = "default";
+
+    // thread flavour for machines, the input generator and the monitor
+    @Value("${simulation.executor.mode:PLATFORM}")
+    private ExecutorMode executorMode;
+
+    // simulated time per wall time of realtime runs that do not ask for a speed
+    @Value("${simulation.clock.speed:1.0}")
+    private double defaultSpeed = 1.0;
+
+    // per-session quotas: threads a realtime run may start, and products per run
+    @Value("${simulation.session.max-threads:64}")
+    private int maxThreads = 64;
+
+    @Value("${simulation.session.max-products:1000000}")
+    private int maxProducts = 1_000_000;
+
     private InputGenerator inputGenerator;
     private Thread inputThread;
 
+    private EngineType engineType = EngineType.REALTIME;
+    private DiscreteEventEngine eventEngine;
+    // product counts of the current run
+    private ProductFlow flow;
+    // the current run's frames on their way to the run store, null when it is not stored
+    private RunRecording recording;
+
     public void startSimulation(int productCount) {
+        startSimulation(productCount, EngineType.REALTIME);
+    }
+
+    public void startSimulation(int productCount, EngineType engine) {
+        startSimulation(productCount, engine, null);
+    }
+
+    // speed only applies to the realtime engine; null runs at simulation.clock.speed.
+    // on the monitor of stop and reset, so two starts cannot both pass the mode check
+    public synchronized void startSimulation(int productCount, EngineType engine, Double speed) {
         snapshotService.clearHistory();
         System.out.println("Starting simulation");
         if (stateService.isRunning() || stateService.getMode() != SimulationMode.STOPPED)
             return;
 
-        stateService.setMode(SimulationMode.LIVE);
-        stateService.setRunning(true);
+        // one thread per machine plus the input generator; the discrete-event engine only needs its own
+        int threads = engine == EngineType.DISCRETE_EVENT ? 1 : stateService.getMachines().size() + 1;
+        if (threads > maxThreads)
+            throw new IllegalStateException("Run needs " + threads + " threads, the session quota is " + maxThreads);
+        if (productCount > maxProducts)
+            throw new IllegalArgumentException("Product count " + productCount + " exceeds the session quota of "
+                    + maxProducts);
 
+        // a graph that cannot run is rejected before the session leaves STOPPED
         if (stateService.getAllQueues().isEmpty()) {
             throw new IllegalStateException("No queues configured.");
         }
 
         // 1. Get Q0 (first queue)
         SimQueue q0 = stateService.getAllQueues().get(0); // assume first queue is Q0
-        SimQueue lastQueue = stateService.getAllQueues().get(stateService.getAllQueues().size() - 1);
 
         stateService.validateConnections();
+        stateService.resolveSinks();
 
         System.out.println("validated connections");
 
+        // an unreadable trace fails the start here as well
+        SplittableRandom inputRandom = stateService.seedRun();
+        Path trace = stateService.getTrace();
+        if (trace != null && productCount == 0)
+            productCount = maxProducts; // the quota caps a trace replayed to its end as well
+        InputGenerator runInput = stateService.createInputGenerator(q0, productCount, inputRandom);
+
+        // frames of the new run are stamped in its simulated time from here on
+        SimulationClock clock = stateService.getClock();
+        clock.restart(speed != null ? speed : defaultSpeed);
+
+        stateService.setMode(SimulationMode.LIVE);
+        stateService.setRunning(true);
+        engineType = engine;
+
+        ExecutorMode mode = SimulationThreads.effectiveMode(executorMode);
+        if (mode != executorMode) {
+            System.out.println("virtual threads not available on this runtime, using platform threads");
+        }
+
+        // in realtime the delivery that completes the run stops it, off the machine thread that made it;
+        // the discrete-event engine stops itself after recording its last frame
+        Runnable onComplete = engine == EngineType.DISCRETE_EVENT ? null
+                : () -> SimulationThreads.start(mode, "SimulationStop", this::stopSimulation);
+        ProductFlow runFlow = new ProductFlow(trace == null ? productCount : -1, onComplete);
+        flow = runFlow;
+        for (Machine m : stateService.getAllMachines()) {
+            m.setFlow(runFlow);
+        }
+        if (metrics != null)
+            metrics.bind(runFlow);
+
+        inputGenerator = runInput;
+        if (trace != null) {
+            System.out.println("replaying arrivals from " + trace);
+        }
+        inputGenerator.setFlow(runFlow);
+        inputGenerator.setClock(clock);
+
+        // a run whose history outgrows the session quota is stopped instead of taking the memory of others
+        snapshotService.setOnHistoryFull(() -> {
+            System.out.println("history quota reached, stopping simulation");
+            SimulationThreads.start(mode, "SimulationStop", this::stopSimulation);
+        });
+
+        recording = runStore != null ? runStore.startRun(sessionId, engine, productCount, stateService) : null;
+        if (recording != null)
+            snapshotService.setFrameSink(recording::frame);
+
+        if (engine == EngineType.DISCRETE_EVENT) {
+            startDiscreteEvent();
+            return;
+        }
+        snapshotService.setLiveCapture(true);
+        inputGenerator.setEventLog(stateService.openEventLog(clock::currentTimeMillis));
+
+        if (trace == null && productCount <= 0) {
+            stopSimulation(); // nothing will ever reach a sink
+            return;
+        }
+
         // 2. Start InputGenerator thread
-        inputGenerator = new InputGenerator(q0, productCount);
-        inputThread = new Thread(inputGenerator);
-        inputThread.start();
+        inputThread = SimulationThreads.start(mode, "InputGenerator", inputGenerator);
         System.out.println("started input generator");
 
         // 3. Start all machines threads
         for (Machine m : stateService.getMachines().values()) {
+            m.setSimulationClock(clock);
+            m.useClock(clock::nanos);
             m.setRunning(true);
-            Thread t = new Thread(m);
-            t.start();
+            SimulationThreads.start(mode, "Machine-" + m.getId(), m);
         }
         System.out.println("started replay thread");
 
         // 4. Start snapshot thread
         snapshotService.triggerSnapshot();
         System.out.println("started snapshot thread");
+    }
 
-        // 5. Start monitoring thread to auto-stop when done
-        Thread monitorThread = new Thread(() -> {
+    // runs the whole graph on one thread with a virtual clock; frames carry virtual time.
+    // the engine ends by itself once no event is left, which is when the last product reached its sink
+    private void startDiscreteEvent() {
+        snapshotService.setLiveCapture(false);
+
+        DiscreteEventEngine engine = new DiscreteEventEngine(stateService.getAllMachines(), inputGenerator,
+                snapshotService::recordFrame);
+        eventEngine = engine;
+        inputGenerator.setEventLog(stateService.openEventLog(engine::getVirtualTime));
+
+        Thread engineThread = new Thread(() -> {
+            long started = System.currentTimeMillis();
             try {
-                inputThread.join(); // Wait for input generator to finish
-                Thread.sleep(2000); // Give machines time to process remaining products
-
-                // Check if all queues are empty and machines are idle
-                while (stateService.isRunning()) {
-                    if (lastQueue.size() == productCount) {
-                        Thread.sleep(2000);
-                        stopSimulation();
-                        break;
-                    }
-
-                    boolean nonLastEmpty = true;
-                    for (SimQueue queue : stateService.getAllQueues()) {
-                        if (queue == lastQueue)
-                            continue;
-                        if (queue.size() != 0) {
-                            nonLastEmpty = false;
-                            break;
-                        }
-                    }
-                    boolean allEmpty = nonLastEmpty && lastQueue.size() == productCount;
-
-                    boolean allIdle = stateService.getMachines().values().stream()
-                            .allMatch(m -> m.getState() == MachineState.IDLE);
-
-                    if (allEmpty && allIdle) {
-                        stopSimulation();
-                        break;
-                    }
-                    Thread.sleep(500);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                engine.run();
+                System.out.println("discrete-event run finished: " + engine.getGenerated() + " products, "
+                        + engine.getProcessedEvents() + " events, " + engine.getVirtualTime() + " ms simulated in "
+                        + (System.currentTimeMillis() - started) + " ms");
+            } catch (RuntimeException e) {
+                System.out.println("discrete-event run failed: " + e.getMessage());
+            } finally {
+                stopSimulation();
             }
-        });
-        monitorThread.start();
+        }, "DiscreteEventEngine");
+        engineThread.start();
+        System.out.println("started discrete-event engine");
     }
 
-    public void stopSimulation() {
+    // takes effect right away in a running realtime simulation, simulated time stays continuous
+    public void setSpeed(double speed) {
+        stateService.getClock().setSpeed(speed);
+        System.out.println("simulation speed " + speed + "x");
+    }
+
+    public double getSpeed() {
+        return stateService.getClock().getSpeed();
+    }
+
+    // the run completing, the history quota, the discrete-event engine and a client may all stop at once;
+    // only the first one does
+    public synchronized void stopSimulation() {
         System.out.println("stopped simulation1");
         if (!stateService.isRunning() || stateService.getMode() != SimulationMode.LIVE)
             return; // simulation already stopped
@@ -114,19 +230,38 @@ public class SimulationLifecycleService {
             inputGenerator.stop();
         }
 
+        if (eventEngine != null) {
+            eventEngine.stop();
+            eventEngine = null;
+        }
+
         // Stop all machines
         for (Machine m : stateService.getMachines().values()) {
             m.stopMachine(); // sets running = false in each machine
-            synchronized (m.getLock()) {
-                m.getLock().notify(); // wake up any machine waiting on empty input queues
-            }
+            m.wakeUp(); // wake up any machine waiting on empty input queues
         }
 
-        // Record final snapshot
-        snapshotService.triggerSnapshot();
+        // Record final snapshot; the discrete-event engine already recorded its last frame in virtual time
+        if (engineType == EngineType.DISCRETE_EVENT) {
+            snapshotService.publishCurrentSnapshot();
+        } else {
+            snapshotService.publishNow();
+        }
+
+        RunRecording finished = recording;
+        recording = null;
+        if (finished != null) {
+            snapshotService.setFrameSink(null);
+            finished.finish(flow.getGenerated(), flow.getAtSinks());
+        }
 
         ssePublisherService.notifySimulationStopped(); // inform clients
 
+        if (flow != null) {
+            System.out.println("products: " + flow.getGenerated() + " generated, " + flow.getQueued() + " queued, "
+                    + flow.getInMachines() + " in machines, " + flow.getAtSinks() + " at sinks");
+        }
+
         System.out.println("stopped simulation");
     }
 
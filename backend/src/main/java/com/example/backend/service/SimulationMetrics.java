@@ -0,0 +1,135 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.ProductFlow;
+import com.example.backend.model.SimQueue;
+import com.example.backend.session.SessionComponent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Per-node meters, tagged with the queue or machine id. They are registered
+ * when a node is added to the graph and removed again on reset, so a new
+ * graph never reports the ids of the previous one.
+ */
+@SessionComponent
+public class SimulationMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Meter> nodeMeters = new ArrayList<>(); // guarded by this
+    private final List<Meter> flowMeters = new ArrayList<>(); // of the current run, guarded by this
+
+    public synchronized void bind(SimQueue queue) {
+        String id = queue.getId();
+        if (queue.isBounded()) {
+            nodeMeters.add(Gauge.builder("simulation.queue.capacity", queue, SimQueue::getCapacity)
+                    .description("Products the queue holds before its producers block")
+                    .tag("queue", id)
+                    .register(meterRegistry));
+        }
+        nodeMeters.add(Gauge.builder("simulation.queue.depth", queue, SimQueue::size)
+                .description("Products waiting in the queue")
+                .tag("queue", id)
+                .register(meterRegistry));
+        Timer wait = Timer.builder("simulation.queue.wait")
+                .description("Time from put to take")
+                .tag("queue", id)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Counter dequeued = Counter.builder("simulation.queue.throughput")
+                .description("Products taken from the queue")
+                .tag("queue", id)
+                .register(meterRegistry);
+        nodeMeters.add(wait);
+        nodeMeters.add(dequeued);
+        queue.setWaitRecorder(nanos -> {
+            wait.record(nanos, TimeUnit.NANOSECONDS);
+            dequeued.increment();
+        });
+    }
+
+    public synchronized void bind(Machine machine) {
+        String id = machine.getId();
+        nodeMeters.add(FunctionCounter.builder("simulation.machine.busy.time", machine,
+                        m -> m.getBusyNanos() / 1e9)
+                .description("Time spent processing")
+                .baseUnit("seconds")
+                .tag("machine", id)
+                .register(meterRegistry));
+        nodeMeters.add(FunctionCounter.builder("simulation.machine.idle.time", machine,
+                        m -> m.getIdleNanos() / 1e9)
+                .description("Time spent waiting for input or handing a product on")
+                .baseUnit("seconds")
+                .tag("machine", id)
+                .register(meterRegistry));
+        nodeMeters.add(FunctionCounter.builder("simulation.machine.blocked.time", machine,
+                        m -> m.getBlockedNanos() / 1e9)
+                .description("Time spent holding a finished product for a full output queue")
+                .baseUnit("seconds")
+                .tag("machine", id)
+                .register(meterRegistry));
+        nodeMeters.add(Gauge.builder("simulation.machine.utilization", machine, SimulationMetrics::utilization)
+                .description("Share of server time spent busy since the machine was added")
+                .tag("machine", id)
+                .register(meterRegistry));
+
+        Timer service = Timer.builder("simulation.machine.service.time")
+                .description("Time a product or batch spent being processed")
+                .tag("machine", id)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Timer wakeup = Timer.builder("simulation.machine.wakeup.latency")
+                .description("Time from a queue update() until the waiting machine thread resumed")
+                .tag("machine", id)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        nodeMeters.add(service);
+        nodeMeters.add(wakeup);
+        machine.setServiceTimeRecorder(nanos -> service.record(nanos, TimeUnit.NANOSECONDS));
+        machine.setWakeupRecorder(nanos -> wakeup.record(nanos, TimeUnit.NANOSECONDS));
+    }
+
+    // product counts of the run that just started, replacing those of the previous run
+    public synchronized void bind(ProductFlow flow) {
+        flowMeters.forEach(meterRegistry::remove);
+        flowMeters.clear();
+        flowMeters.add(FunctionCounter.builder("simulation.products.generated", flow, ProductFlow::getGenerated)
+                .description("Products the input generator placed in this run")
+                .register(meterRegistry));
+        flowMeters.add(products(flow, "queue", ProductFlow::getQueued));
+        flowMeters.add(products(flow, "machine", ProductFlow::getInMachines));
+        flowMeters.add(products(flow, "sink", ProductFlow::getAtSinks));
+    }
+
+    private Gauge products(ProductFlow flow, String location, ToDoubleFunction<ProductFlow> count) {
+        return Gauge.builder("simulation.products", flow, count)
+                .description("Products of this run by where they are")
+                .tag("location", location)
+                .register(meterRegistry);
+    }
+
+    public synchronized void unbindAll() {
+        nodeMeters.forEach(meterRegistry::remove);
+        nodeMeters.clear();
+        flowMeters.forEach(meterRegistry::remove);
+        flowMeters.clear();
+    }
+
+    // with several servers the machine is only fully utilized while all of them work
+    private static double utilization(Machine machine) {
+        long total = machine.getBusyNanos() + machine.getIdleNanos() + machine.getBlockedNanos();
+        return total == 0 ? 0 : (double) machine.getServiceNanos() / ((double) total * machine.getServers());
+    }
+}
@@ -1,18 +1,37 @@
 package com.example.backend.service;
 
+import com.example.backend.InputGenerator;
 import com.example.backend.model.Machine;
+import com.example.backend.model.ProductEventLog;
 import com.example.backend.model.SimQueue;
+import com.example.backend.model.SimulationClock;
+import com.example.backend.model.WaitStrategy;
+import com.example.backend.model.buffer.QueueBackend;
+import com.example.backend.model.distribution.Distribution;
+import com.example.backend.model.distribution.UniformDistribution;
+import com.example.backend.model.input.InputPolicyType;
+import com.example.backend.model.routing.RoutingType;
+import com.example.backend.session.SessionComponent;
+import com.example.backend.trace.TraceReader;
 import lombok.Getter;
 import lombok.Setter;
-import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 
 @Getter
 @Setter
-@Service
+@SessionComponent
 public class SimulationStateService {
     // Getters
     private SimulationMode mode = SimulationMode.STOPPED;
@@ -31,25 +50,102 @@ public class SimulationStateService {
 
     private Runnable onSnapshotTrigger;
 
+    // absent when the service is created outside Spring, e.g. in benchmarks
+    @Autowired(required = false)
+    private SimulationMetrics metrics;
+
+    // bumped on every graph edit, lets consumers cache anything derived from the topology
+    private volatile long topologyVersion = 0;
+
+    // nodes changed since the last recorded frame, each listed once
+    private final Queue<Machine> dirtyMachines = new ConcurrentLinkedQueue<>();
+    private final Queue<SimQueue> dirtyQueues = new ConcurrentLinkedQueue<>();
+
+    // how idle machines wait for input, and for how long SPIN_THEN_PARK spins first
+    @Value("${simulation.machine.wait-strategy:PARK}")
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+    @Value("${simulation.machine.spin-micros:50}")
+    private long spinMicros = 50;
+
+    // seed of the next run, null to draw a new one each start
+    private Long seed;
+    // time between products of the input generator
+    private Distribution arrivalTime = new UniformDistribution(1000, 3000);
+
+    // simulated time of realtime runs, restarted on every start
+    private final SimulationClock clock = new SimulationClock();
+
+    // arrival traces are only read from this directory
+    @Value("${simulation.trace.dir:traces}")
+    private String traceDir = "traces";
+    // trace replayed by the next run instead of random arrivals, null for random ones
+    private Path trace;
+
+    // queue ids declared as sinks; when empty every queue no machine reads from is one
+    private final Set<String> declaredSinks = ConcurrentHashMap.newKeySet();
+
+    // a private graph of one replication: nothing records frames from it and building it stays quiet
+    private boolean detached = false;
+
+    // slots per RING queue; a full ring makes producers wait
+    @Value("${simulation.queue.ring-capacity:65536}")
+    private int ringCapacity = 65536;
+
+    // product events the log of one run holds, 0 to keep none
+    @Value("${simulation.event-log.max-events:4194304}")
+    private long eventLogCapacity = 4_194_304;
+    // off-heap bytes that log may take in one session, so the logs of every session fit in direct memory
+    @Value("${simulation.session.max-event-log-bytes:67108864}")
+    private long maxEventLogBytes = 64L << 20;
+    // the products of the last run, kept until the next one starts or the graph is reset
+    private ProductEventLog eventLog;
+
     public void setOnSnapshotTrigger(Runnable callback) {
         this.onSnapshotTrigger = callback;
     }
 
     public void addQueue(String id) {
+        addQueue(id, QueueBackend.LINKED);
+    }
+
+    public void addQueue(String id, QueueBackend backend) {
+        addQueue(id, backend, 0);
+    }
+
+    // capacity 0 leaves the queue unbounded; a RING queue is never bounded above its ring, 0 means the ring size
+    public void addQueue(String id, QueueBackend backend, int capacity) {
         if (running)
             return; // prevent changes during simulation
         if (queues.containsKey(id)) {
             throw new IllegalArgumentException("Queue with ID " + id + " already exists.");
         }
+        if (backend == QueueBackend.RING) {
+            if (capacity > ringCapacity)
+                throw new IllegalArgumentException("Capacity " + capacity + " of RING queue " + id
+                        + " exceeds the ring size " + ringCapacity);
+            if (capacity <= 0)
+                capacity = ringCapacity; // producers then wait on the queue, not spin on a full ring
+        }
 
-        SimQueue queue = new SimQueue(id);
-        queue.setOnUpdate(this::triggerSnapshot);
+        SimQueue queue = new SimQueue(id, backend.create(ringCapacity), capacity);
+        if (!detached) {
+            queue.setOnUpdate(() -> {
+                markDirty(queue);
+                triggerSnapshot();
+            });
+            queue.getJournal().requestResync();
+            markDirty(queue);
+        }
+        if (metrics != null)
+            metrics.bind(queue);
         String queueId = queue.getId();
         queues.put(queueId, queue);
         allQueues.add(queue);
+        topologyVersion++;
 
-        System.out.println("Added queue with ID " + queueId);
-        System.out.println(allQueues);
+        log("Added queue with ID " + queueId);
+        log(allQueues);
 
     }
 
@@ -63,13 +159,24 @@ public class SimulationStateService {
 
         // Initialize with empty input/output queues
         Machine machine = new Machine(id);
-        machine.setOnStateChange(this::triggerSnapshot);
+        machine.setWaitStrategy(waitStrategy);
+        machine.setSpinNanos(TimeUnit.MICROSECONDS.toNanos(spinMicros));
+        if (!detached) {
+            machine.setOnStateChange(() -> {
+                markDirty(machine);
+                triggerSnapshot();
+            });
+            markDirty(machine);
+        }
+        if (metrics != null)
+            metrics.bind(machine);
         String machineId = machine.getId();
         machines.put(machineId, machine);
         allMachines.add(machine);
+        topologyVersion++;
 
-        System.out.println("Added machine with ID " + machineId);
-        System.out.println(allMachines);
+        log("Added machine with ID " + machineId);
+        log(allMachines);
 
         return machine.getId();
     }
@@ -91,10 +198,11 @@ public class SimulationStateService {
             machine.getInputQueues().add(queue);
         }
 
-        System.out.println("Connected input queue " + queueId + " to machine " + machineId);
+        log("Connected input queue " + queueId + " to machine " + machineId);
 
-        // Register machine as observer to the queue
+        // Register machine as observer to the queue, once for the lifetime of the graph
         queue.attach(machine);
+        topologyVersion++;
     }
 
     public void connectOutputQueue(String machineId, String queueId) {
@@ -113,8 +221,130 @@ public class SimulationStateService {
         if (!machine.getOutputQueues().contains(queue)) {
             machine.getOutputQueues().add(queue);
         }
+        topologyVersion++;
+
+        log("Connected output queue " + queueId + " to machine " + machineId);
+    }
 
-        System.out.println("Connected output queue " + queueId + " to machine " + machineId);
+    public void setRouting(String machineId, RoutingType routing) {
+        if (running)
+            return;
+
+        Machine machine = machines.get(machineId);
+        if (machine == null)
+            throw new IllegalArgumentException("Machine not found: " + machineId);
+        machine.setRouting(routing.create());
+    }
+
+    public void setOutputWeight(String machineId, String queueId, double weight) {
+        if (running)
+            return;
+
+        Machine machine = machines.get(machineId);
+        if (machine == null)
+            throw new IllegalArgumentException("Machine not found: " + machineId);
+        if (!(weight > 0))
+            throw new IllegalArgumentException("Output weight must be positive: " + weight);
+        if (machine.getOutputQueues().stream().noneMatch(q -> q.getId().equals(queueId)))
+            throw new IllegalArgumentException("Queue " + queueId + " is not an output of machine " + machineId);
+        machine.getOutputWeights().put(queueId, weight);
+    }
+
+    public void setServers(String machineId, int servers) {
+        if (running)
+            return;
+
+        Machine machine = machines.get(machineId);
+        if (machine == null)
+            throw new IllegalArgumentException("Machine not found: " + machineId);
+        machine.setServers(servers);
+    }
+
+    public void setBatchSize(String machineId, int batchSize) {
+        if (running)
+            return;
+
+        Machine machine = machines.get(machineId);
+        if (machine == null)
+            throw new IllegalArgumentException("Machine not found: " + machineId);
+        machine.setBatchSize(batchSize);
+    }
+
+    public void setInputPolicy(String machineId, InputPolicyType policy) {
+        if (running)
+            return;
+
+        Machine machine = machines.get(machineId);
+        if (machine == null)
+            throw new IllegalArgumentException("Machine not found: " + machineId);
+        machine.setInputPolicy(policy.create());
+    }
+
+    public void setInputWeight(String machineId, String queueId, double weight) {
+        if (running)
+            return;
+
+        Machine machine = machines.get(machineId);
+        if (machine == null)
+            throw new IllegalArgumentException("Machine not found: " + machineId);
+        if (!(weight > 0))
+            throw new IllegalArgumentException("Input weight must be positive: " + weight);
+        if (machine.getInputQueues().stream().noneMatch(q -> q.getId().equals(queueId)))
+            throw new IllegalArgumentException("Queue " + queueId + " is not an input of machine " + machineId);
+        machine.getInputWeights().put(queueId, weight);
+    }
+
+    // a file name inside simulation.trace.dir, null to go back to random arrivals
+    public void setTrace(String name) {
+        if (running)
+            return;
+        trace = resolveTrace(name);
+    }
+
+    // the file setTrace would use, checked without changing anything; null for no trace
+    public Path resolveTrace(String name) {
+        if (name == null)
+            return null;
+        Path dir = Path.of(traceDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(name).normalize();
+        if (!file.startsWith(dir))
+            throw new IllegalArgumentException("Trace must be inside " + dir + ": " + name);
+        if (!Files.isRegularFile(file))
+            throw new IllegalArgumentException("Trace not found: " + file);
+        return file;
+    }
+
+    public void declareSink(String queueId) {
+        if (running)
+            return;
+        if (!queues.containsKey(queueId))
+            throw new IllegalArgumentException("Queue not found: " + queueId);
+        declaredSinks.add(queueId);
+    }
+
+    // flags the sink queues of the current graph and returns them
+    public List<SimQueue> resolveSinks() {
+        Set<SimQueue> consumed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Machine machine : machines.values()) {
+            consumed.addAll(machine.getInputQueues());
+        }
+
+        List<SimQueue> sinks = new ArrayList<>();
+        for (SimQueue queue : queues.values()) {
+            boolean sink = declaredSinks.isEmpty() ? !consumed.contains(queue) : declaredSinks.contains(queue.getId());
+            if (sink && consumed.contains(queue))
+                throw new IllegalStateException("Sink queue " + queue.getId() + " feeds a machine");
+            // products would pile up there without ever counting as done, so the run would never complete
+            if (!sink && !consumed.contains(queue))
+                throw new IllegalArgumentException("Queue " + queue.getId()
+                        + " feeds no machine and is not a declared sink");
+            queue.setSink(sink);
+            if (sink)
+                sinks.add(queue);
+        }
+        if (sinks.isEmpty())
+            throw new IllegalStateException("No sink queue: every queue feeds a machine");
+        return sinks;
     }
 
     public void validateConnections() {
@@ -128,6 +358,29 @@ public class SimulationStateService {
         }
     }
 
+    public void markDirty(Machine machine) {
+        if (machine.markDirty())
+            dirtyMachines.add(machine);
+    }
+
+    public void markDirty(SimQueue queue) {
+        if (queue.markDirty())
+            dirtyQueues.add(queue);
+    }
+
+    // list every node as changed and re-read queue contents on the next frame
+    public void markAllDirty() {
+        synchronized (allMachines) {
+            allMachines.forEach(this::markDirty);
+        }
+        synchronized (allQueues) {
+            for (SimQueue queue : allQueues) {
+                queue.getJournal().requestResync();
+                markDirty(queue);
+            }
+        }
+    }
+
     public synchronized void reset() {
         for (SimQueue q : allQueues) {
             q.getProducts().clear();
@@ -141,11 +394,77 @@ public class SimulationStateService {
         machines.clear();
         allQueues.clear();
         allMachines.clear();
+        dirtyMachines.clear();
+        dirtyQueues.clear();
+        if (metrics != null)
+            metrics.unbindAll();
+        topologyVersion++;
+
+        eventLog = null;
+        seed = null;
+        trace = null;
+        declaredSinks.clear();
+        arrivalTime = new UniformDistribution(1000, 3000);
 
         mode = SimulationMode.STOPPED;
         running = false;
     }
 
+    // random arrivals into q0, or the trace when one is set; productCount caps a trace run, 0 replays all of it
+    public InputGenerator createInputGenerator(SimQueue q0, int productCount, SplittableRandom random) {
+        if (trace == null)
+            return new InputGenerator(q0, productCount, arrivalTime, random);
+        try {
+            return InputGenerator.fromTrace(q0, productCount, TraceReader.open(trace), queues, random);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read trace " + trace, e);
+        }
+    }
+
+    // a fresh event log for the run about to start, handed to every node; null when detached or disabled
+    public ProductEventLog openEventLog(LongSupplier clock) {
+        eventLog = null;
+        ProductEventLog log = null;
+        long capacity = Math.min(eventLogCapacity, maxEventLogBytes / ProductEventLog.RECORD_BYTES);
+        if (!detached && capacity > 0) {
+            log = new ProductEventLog(allQueues.stream().map(SimQueue::getId).toList(),
+                    allMachines.stream().map(Machine::getId).toList(), capacity, clock);
+        }
+        synchronized (allQueues) {
+            for (int i = 0; i < allQueues.size(); i++) {
+                allQueues.get(i).setEventLog(log);
+                allQueues.get(i).setEventNode(log == null ? 0 : log.queueNode(i));
+            }
+        }
+        synchronized (allMachines) {
+            for (int i = 0; i < allMachines.size(); i++) {
+                allMachines.get(i).setEventLog(log);
+                allMachines.get(i).setEventNode(log == null ? 0 : log.machineNode(i));
+            }
+        }
+        eventLog = log;
+        return log;
+    }
+
+    // one generator per run, split into an independent stream for the input and each machine in graph order
+    public SplittableRandom seedRun() {
+        long runSeed = seed != null ? seed : new SplittableRandom().nextLong();
+        log("simulation seed " + runSeed);
+        SplittableRandom root = new SplittableRandom(runSeed);
+        SplittableRandom input = root.split();
+        synchronized (allMachines) {
+            for (Machine machine : allMachines) {
+                machine.setRandom(root.split());
+            }
+        }
+        return input;
+    }
+
+    private void log(Object message) {
+        if (!detached)
+            System.out.println(message);
+    }
+
     private void triggerSnapshot() {
         if (onSnapshotTrigger != null) {
             onSnapshotTrigger.run();
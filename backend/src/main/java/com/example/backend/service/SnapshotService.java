@@ -1,19 +1,30 @@
 package com.example.backend.service;
 
 import com.example.backend.model.Machine;
-import com.example.backend.model.Product;
 import com.example.backend.model.SimQueue;
+import com.example.backend.session.SessionComponent;
+import com.example.backend.snapshot.QueueOps;
 import com.example.backend.snapshot.SimulationCareTaker;
 import com.example.backend.snapshot.SimulationSnapshot;
+import com.example.backend.snapshot.SnapshotDelta;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.annotation.Value;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
-@Service
+@SessionComponent
 public class SnapshotService {
 
     @Autowired
@@ -25,39 +36,152 @@ public class SnapshotService {
     @Autowired
     private SsePublisherService ssePublisherService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${simulation.publish.mode:INLINE}")
+    private PublishMode publishMode;
+
+    @Value("${simulation.publish.rate:30}")
+    private int publishRate; // frames per second in COALESCED mode
+
+    // per-session quota on the history, in recorded changes (about a map entry each); 0 for none
+    @Value("${simulation.session.max-history-items:5000000}")
+    private long maxHistoryItems = 5_000_000;
+    // runs once when the history passes the quota; guarded by this
+    private Runnable onHistoryFull;
+
+    // receives every recorded frame, used to store the run; guarded by this
+    private Consumer<SnapshotDelta> frameSink;
+
+    // off while the discrete-event engine records frames against its own clock
+    private volatile boolean liveCapture = true;
+
+    // changes since the last coalesced frame; 0 means nothing to publish
+    private final AtomicLong pendingChanges = new AtomicLong();
+    private ScheduledExecutorService publisher;
+    private Counter publishedFrames;
+    private Counter coalescedFrames;
+    private Timer recordTimer;
+
     @PostConstruct
     public void init() {
         // Wire up the snapshot trigger callback
         stateService.setOnSnapshotTrigger(this::triggerSnapshot);
+
+        publishedFrames = Counter.builder("simulation.frames.published")
+                .description("Frames recorded and sent to clients")
+                .register(meterRegistry);
+        coalescedFrames = Counter.builder("simulation.frames.coalesced")
+                .description("State changes folded into a later frame instead of being published on their own")
+                .register(meterRegistry);
+        recordTimer = Timer.builder("simulation.frame.record")
+                .description("Time to capture the changed nodes into a history frame")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        if (publishMode == PublishMode.COALESCED) {
+            publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "SnapshotPublisher");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1, 1_000_000 / Math.max(1, publishRate));
+            publisher.scheduleAtFixedRate(this::publishIfDirty, period, period, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (publisher != null) {
+            publisher.shutdownNow();
+        }
     }
 
-    public void recordFrame(long currentTime) {
+    // only visits the machines and queues that changed since the previous frame
+    public synchronized void recordFrame(long currentTime) {
+        long start = System.nanoTime();
         Map<String, String> colors = new HashMap<>();
         Map<String, String> states = new HashMap<>();
         Map<String, Integer> qSizes = new HashMap<>();
-        Map<String, List<String>> qProductColors = new HashMap<>();
+        Map<String, QueueOps> qOps = new HashMap<>();
 
-        for (Machine m : stateService.getAllMachines()) {
+        Machine m;
+        while ((m = stateService.getDirtyMachines().poll()) != null) {
+            m.clearDirty(); // before reading, so a concurrent change lists it again
             colors.put(m.getId(), m.getCurrentColor());
             states.put(m.getId(), m.getState().toString());
         }
 
-        for (SimQueue q : stateService.getAllQueues()) {
+        SimQueue q;
+        while ((q = stateService.getDirtyQueues().poll()) != null) {
+            q.clearDirty();
             qSizes.put(q.getId(), q.size());
+            QueueOps ops = q.getJournal().drain(q.getProducts());
+            if (!ops.isEmpty()) {
+                qOps.put(q.getId(), ops);
+            }
+        }
+
+        SnapshotDelta delta = new SnapshotDelta(colors, states, qSizes, qOps, currentTime);
+        caretaker.addDelta(delta);
+        if (frameSink != null)
+            frameSink.accept(delta);
+        recordTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-            List<String> currentColors = q.getProducts().stream()
-                    .map(Product::getColor)
-                    .toList();
-            qProductColors.put(q.getId(), currentColors);
+        if (maxHistoryItems > 0 && onHistoryFull != null && caretaker.getVolume() > maxHistoryItems) {
+            Runnable full = onHistoryFull;
+            onHistoryFull = null;
+            full.run();
         }
+    }
+
+    // called on every state change
+    public void triggerSnapshot() {
+        if (!liveCapture)
+            return;
 
-        caretaker.addSnapshot(new SimulationSnapshot(colors, states, qSizes, qProductColors, currentTime));
+        if (publishMode == PublishMode.COALESCED) {
+            pendingChanges.incrementAndGet(); // latest state wins at the next tick
+            return;
+        }
+        publishNow();
     }
 
-    public synchronized void triggerSnapshot() {
+    // record and publish right away whatever the mode, used for the final frame of a run
+    public synchronized void publishNow() {
+        if (!liveCapture)
+            return;
+
+        pendingChanges.set(0);
         // allow final frame publication even after running flag flips false during
         // shutdown
-        recordFrame(System.currentTimeMillis());
+        recordFrame(stateService.getClock().currentTimeMillis());
+        publishCurrentSnapshot();
+        publishedFrames.increment();
+    }
+
+    private void publishIfDirty() {
+        long changes = pendingChanges.getAndSet(0);
+        if (changes == 0)
+            return;
+
+        coalescedFrames.increment(changes - 1);
+        try {
+            synchronized (this) {
+                recordFrame(stateService.getClock().currentTimeMillis());
+                publishCurrentSnapshot();
+            }
+            publishedFrames.increment();
+        } catch (RuntimeException e) {
+            // keep the schedule alive, a failed tick is retried with the next change
+            System.out.println("snapshot publish failed: " + e.getMessage());
+        }
+    }
+
+    public void publishCurrentSnapshot() {
+        if (ssePublisherService.getClientCount() == 0)
+            return; // skip materializing a frame nobody receives
 
         SimulationSnapshot latest = caretaker.getCurrentSnapshot();
         if (latest != null) {
@@ -66,8 +190,31 @@ public class SnapshotService {
         }
     }
 
-    public void clearHistory() {
+    public synchronized void setOnHistoryFull(Runnable onHistoryFull) {
+        this.onHistoryFull = onHistoryFull;
+    }
+
+    public synchronized void setFrameSink(Consumer<SnapshotDelta> frameSink) {
+        this.frameSink = frameSink;
+    }
+
+    public void setLiveCapture(boolean liveCapture) {
+        this.liveCapture = liveCapture;
+    }
+
+    public synchronized void clearHistory() {
         caretaker.clear();
+        stateService.markAllDirty(); // the first frame of the new history holds everything
+    }
+
+    // adds a frame recorded earlier, e.g. by a stored run, to the history without publishing it
+    public synchronized void appendFrame(SnapshotDelta delta) {
+        caretaker.addDelta(delta);
+    }
+
+    // changes whenever the history is cleared, so cached encodings of it can be dropped
+    public long getHistoryGeneration() {
+        return caretaker.getGeneration();
     }
 
     public List<SimulationSnapshot> getHistory() {
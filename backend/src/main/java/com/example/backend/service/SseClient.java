@@ -0,0 +1,268 @@
+package com.example.backend.service;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One connected stream with its own bounded outbound buffer. The simulation
+ * only enqueues; a sender thread drains the buffer into the emitter, so a slow
+ * browser only ever delays itself. Frames may be dropped under the configured
+ * policy, control events such as the stop notice never are.
+ * <p>
+ * A {@link StreamProtocol#DELTA} client gets a {@code topology} event on
+ * connect and whenever the graph version changes, then {@code frame} events
+ * holding only what changed. After a dropped frame the next one is sent in full, so the client
+ * never applies a delta to a state it does not have.
+ */
+public class SseClient {
+
+    private static class Outbound {
+        final Object payload;
+        final boolean droppable;
+        final long enqueuedNanos;
+
+        Outbound(Object payload, boolean droppable, long enqueuedNanos) {
+            this.payload = payload;
+            this.droppable = droppable;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private record Topology(long version, Supplier<byte[]> json) {
+    }
+
+    @Getter
+    private final int id;
+    @Getter
+    private final SseEmitter emitter;
+    @Getter
+    private final StreamProtocol protocol;
+    private final int capacity;
+    private final FrameDropPolicy policy;
+    private final long maxLagNanos;
+    private final Executor sender;
+    private final Timer lagTimer;
+    private final Timer sendTimer;
+    private final Consumer<SseClient> onDisconnect;
+
+    private final ArrayDeque<Outbound> outbound = new ArrayDeque<>(); // guarded by this
+    private boolean draining = false;
+    private boolean closed = false;
+    private Thread sendingThread; // the sender inside drain, if any
+    private long lastProgressNanos = System.nanoTime(); // last send, or when the client was last caught up
+    @Getter
+    private long droppedFrames = 0;
+
+    // what a delta client already holds; only touched by the draining sender
+    private long lastSeq = -1;
+    private long topologyVersion = -1;
+
+    public SseClient(int id, SseEmitter emitter, StreamProtocol protocol, int capacity, FrameDropPolicy policy, long maxLagMillis,
+                     Executor sender, Timer lagTimer, Timer sendTimer, Consumer<SseClient> onDisconnect) {
+        this.id = id;
+        this.emitter = emitter;
+        this.protocol = protocol;
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        this.sender = sender;
+        this.lagTimer = lagTimer;
+        this.sendTimer = sendTimer;
+        this.onDisconnect = onDisconnect;
+    }
+
+    // returns how many frames were dropped to make room
+    public int offerFrame(Object frame) {
+        return enqueue(new Outbound(frame, true, System.nanoTime()));
+    }
+
+    public void offerControl(Object event) {
+        enqueue(new Outbound(event, false, System.nanoTime()));
+    }
+
+    // the graph as it is now, so a delta client can render before the first frame arrives
+    public void offerTopology(long version, Supplier<byte[]> json) {
+        enqueue(new Outbound(new Topology(version, json), false, System.nanoTime()));
+    }
+
+    private int enqueue(Outbound item) {
+        int dropped = 0;
+        boolean startDrain = false;
+        boolean evict = false;
+        synchronized (this) {
+            if (closed)
+                return 0;
+
+            if (!draining && outbound.isEmpty()) {
+                lastProgressNanos = item.enqueuedNanos; // idle and caught up until now
+            }
+            if (item.droppable) {
+                if (policy == FrameDropPolicy.LATEST_ONLY) {
+                    dropped += dropFrames(Integer.MAX_VALUE);
+                } else if (outbound.size() >= capacity) {
+                    dropped += dropFrames(outbound.size() - capacity + 1);
+                }
+                // still dropping while nothing went out for too long: this client cannot keep up
+                evict = dropped > 0 && item.enqueuedNanos - lastProgressNanos > maxLagNanos;
+            }
+            outbound.addLast(item);
+            droppedFrames += dropped;
+
+            if (!draining && !evict) {
+                draining = true;
+                startDrain = true;
+            }
+        }
+
+        if (evict) {
+            System.out.println("evicting slow SSE client " + id);
+            close();
+        } else if (startDrain) {
+            sender.execute(this::drain);
+        }
+        return dropped;
+    }
+
+    // oldest droppable frames first; control events stay
+    private int dropFrames(int count) {
+        int dropped = 0;
+        Iterator<Outbound> it = outbound.iterator();
+        while (it.hasNext() && dropped < count) {
+            if (it.next().droppable) {
+                it.remove();
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private void drain() {
+        try {
+            drainOutbound();
+        } finally {
+            // an eviction may have interrupted this pooled thread; the next client it drains must not inherit that
+            Thread.interrupted();
+        }
+    }
+
+    private void drainOutbound() {
+        while (true) {
+            Outbound item;
+            synchronized (this) {
+                item = outbound.pollFirst();
+                if (item == null || closed) {
+                    draining = false;
+                    sendingThread = null;
+                    return;
+                }
+                sendingThread = Thread.currentThread();
+            }
+            try {
+                if (item.payload instanceof PublishedFrame frame) {
+                    sendFrame(frame);
+                } else if (item.payload instanceof Topology topology) {
+                    sendTopology(topology.version(), topology.json().get());
+                } else if (item.payload instanceof SseEmitter.SseEventBuilder event) {
+                    send(event);
+                } else {
+                    send(SseEmitter.event().data(item.payload));
+                }
+                long sentAt = System.nanoTime();
+                lagTimer.record(sentAt - item.enqueuedNanos, TimeUnit.NANOSECONDS);
+                synchronized (this) {
+                    lastProgressNanos = sentAt;
+                }
+            } catch (Exception e) {
+                synchronized (this) {
+                    draining = false;
+                    sendingThread = null;
+                }
+                close();
+                return;
+            }
+        }
+    }
+
+    private void sendFrame(PublishedFrame frame) throws Exception {
+        if (protocol == StreamProtocol.FULL) {
+            // raw bytes, no re-encoding
+            send(SseEmitter.event().data(frame.legacy().getJson(), MediaType.APPLICATION_JSON));
+            return;
+        }
+        if (!frame.hasState()) {
+            lastSeq = -1; // nothing to send, resync on the next frame that has state
+            return;
+        }
+        if (frame.getTopologyVersion() != topologyVersion) {
+            sendTopology(frame.getTopologyVersion(), frame.topology());
+        }
+        byte[] json = lastSeq == frame.getSeq() - 1 ? frame.delta() : frame.full();
+        send(SseEmitter.event().name("frame").data(json, MediaType.APPLICATION_JSON));
+        lastSeq = frame.getSeq();
+    }
+
+    private void sendTopology(long version, byte[] json) throws IOException {
+        send(SseEmitter.event().name("topology").data(json, MediaType.APPLICATION_JSON));
+        topologyVersion = version;
+        lastSeq = -1; // ids may have changed, start from a full frame
+    }
+
+    // encoding happens before this, so the timer only sees the write to the connection
+    private void send(SseEmitter.SseEventBuilder event) throws IOException {
+        long start = System.nanoTime();
+        emitter.send(event);
+        sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // how long the oldest undelivered item has been waiting
+    public synchronized long lagNanos() {
+        Outbound oldest = outbound.peekFirst();
+        return oldest == null ? 0 : System.nanoTime() - oldest.enqueuedNanos;
+    }
+
+    // checked periodically: a send that has not returned within the lag limit will not get new frames
+    // to trip the eviction in enqueue, so the stuck sender is interrupted and the client dropped here
+    public boolean evictIfStalled() {
+        synchronized (this) {
+            if (closed || !draining || System.nanoTime() - lastProgressNanos <= maxLagNanos)
+                return false;
+            closed = true;
+            outbound.clear();
+            if (sendingThread != null)
+                sendingThread.interrupt(); // still inside our drain while we hold the lock
+        }
+        System.out.println("evicting stalled SSE client " + id);
+        onDisconnect.accept(this);
+        sender.execute(this::complete); // may wait for the stuck send to give up, so not on the caller
+        return true;
+    }
+
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            outbound.clear();
+        }
+        onDisconnect.accept(this);
+        complete();
+    }
+
+    private void complete() {
+        try {
+            emitter.complete();
+        } catch (Exception ignored) {
+            // already gone
+        }
+    }
+}
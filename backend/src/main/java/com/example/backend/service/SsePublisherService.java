@@ -1,56 +1,256 @@
 package com.example.backend.service;
 
 import com.example.backend.dto.SimStateDTO;
+import com.example.backend.dto.TopologyDTO;
 import com.example.backend.mapper.SimStateMapper;
 import com.example.backend.model.Machine;
 import com.example.backend.model.SimQueue;
+import com.example.backend.session.SessionComponent;
 import com.example.backend.snapshot.SimulationSnapshot;
-import org.springframework.stereotype.Service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
-@Service
+@SessionComponent
 public class SsePublisherService {
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final List<SseClient> clients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger clientIds = new AtomicInteger();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private SimulationStateService stateService;
+
+    @Value("${simulation.sse.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${simulation.sse.drop-policy:DROP_OLDEST}")
+    private FrameDropPolicy dropPolicy;
+
+    @Value("${simulation.sse.max-lag-ms:10000}")
+    private long maxLagMillis;
+
+    // drains client buffers; a slow client only ties up the thread sending to it
+    private final ExecutorService sender = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "SseSender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // evicts clients whose send hangs; those never reach the check in enqueue
+    private final ScheduledExecutorService lagCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "SseLagCheck");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Counter droppedFrames;
+    private Timer mapTimer;
+    private Timer sendTimer;
+
+    // frame numbering for delta clients; guarded by this
+    private long seq = 0;
+    private SimulationSnapshot lastPublished;
+    private long topologyCachedFor = -1;
+    private Supplier<byte[]> topologyCache;
+    // the graph part of legacy frames; encode also runs on sender and replay threads
+    private volatile SimStateMapper.Layout layout;
+
+    @PostConstruct
+    public void init() {
+        droppedFrames = Counter.builder("simulation.sse.frames.dropped")
+                .description("Frames discarded from client buffers that fell behind")
+                .register(meterRegistry);
+        mapTimer = Timer.builder("simulation.frame.map")
+                .description("Time to map a snapshot to its DTO, once per frame and wire format")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        sendTimer = Timer.builder("simulation.sse.send")
+                .description("Time spent inside a single emitter send")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("simulation.sse.clients", clients, List::size)
+                .description("Connected SSE clients")
+                .register(meterRegistry);
+        Gauge.builder("simulation.sse.lag.max", clients, list -> list.stream()
+                        .mapToLong(SseClient::lagNanos).max().orElse(0) / 1_000_000.0)
+                .description("Age in ms of the oldest undelivered item across all clients")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        long period = Math.max(100, maxLagMillis / 4);
+        lagCheck.scheduleAtFixedRate(() -> clients.forEach(SseClient::evictIfStalled), period, period,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lagCheck.shutdownNow();
+        clients.forEach(SseClient::close); // the session is gone, so are its streams
+        sender.shutdownNow();
+    }
 
     public SseEmitter createEmitter() {
+        return createEmitter(StreamProtocol.FULL);
+    }
+
+    public SseEmitter createEmitter(StreamProtocol protocol) {
         System.out.println("Creating emitter");
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE); // no timeout, the connection stays alive indefinitely
-        emitters.add(emitter);
+        // no timeout, the connection stays alive indefinitely
+        return register(new SseEmitter(Long.MAX_VALUE), protocol);
+    }
 
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        emitter.onError((e) -> emitters.remove(emitter));
+    SseEmitter register(SseEmitter emitter, StreamProtocol protocol) {
+        int id = clientIds.incrementAndGet();
+        Timer lag = Timer.builder("simulation.sse.delivery.lag")
+                .description("Time from enqueue to send, per client")
+                .tag("client", String.valueOf(id))
+                .register(meterRegistry);
+        SseClient client = new SseClient(id, emitter, protocol, bufferSize, dropPolicy, maxLagMillis, sender, lag,
+                sendTimer, this::removeClient);
+        // same lock as publish, so the topology goes out ahead of any frame
+        synchronized (this) {
+            clients.add(client);
+            if (protocol == StreamProtocol.DELTA) {
+                client.offerTopology(stateService.getTopologyVersion(),
+                        topology(stateService.getMachines(), stateService.getQueues()));
+            }
+        }
+
+        emitter.onCompletion(client::close);
+        emitter.onTimeout(client::close);
+        emitter.onError((e) -> client.close());
 
         return emitter;
     }
 
+    private void removeClient(SseClient client) {
+        if (clients.remove(client)) {
+            meterRegistry.find("simulation.sse.delivery.lag")
+                    .tag("client", String.valueOf(client.getId()))
+                    .meters()
+                    .forEach(meterRegistry::remove);
+        }
+    }
+
+    // enqueues the frame for every client and returns at once; senders deliver it
     public void publishSnapshot(SimulationSnapshot snapshot, Map<String, Machine> machines,
             Map<String, SimQueue> queues, SimulationMode mode) {
-        SimStateDTO dto = SimStateMapper.toDTO(snapshot, machines, queues, mode);
-        emitters.removeIf(emitter -> {
-            try {
-                emitter.send(dto);
-                return false;
-            } catch (Exception e) {
-                return true;
+        if (clients.isEmpty())
+            return; // nobody to encode for
+        publish(() -> encode(snapshot, machines, queues, mode), snapshot, machines, queues, mode);
+    }
+
+    public EncodedFrame encode(SimulationSnapshot snapshot, Map<String, Machine> machines,
+            Map<String, SimQueue> queues, SimulationMode mode) {
+        SimStateMapper.Layout graph = layout(machines, queues);
+        SimStateDTO dto = mapTimer.record(() -> SimStateMapper.toDTO(snapshot, machines, queues, mode, graph));
+        return new EncodedFrame(jsonMapper.writeValueAsBytes(dto), snapshot.getTimestamp());
+    }
+
+    // an already encoded legacy frame; snapshot may be null when no client streams deltas
+    public void publishEncoded(EncodedFrame frame, SimulationSnapshot snapshot, SimulationMode mode) {
+        publish(() -> frame, snapshot, stateService.getMachines(), stateService.getQueues(), mode);
+    }
+
+    private void publish(Supplier<EncodedFrame> legacy, SimulationSnapshot snapshot, Map<String, Machine> machines,
+            Map<String, SimQueue> queues, SimulationMode mode) {
+        // numbering and enqueueing stay in one order so every client sees frames in seq order
+        synchronized (this) {
+            long frameSeq = ++seq;
+            SimulationSnapshot previous = lastPublished;
+            lastPublished = snapshot;
+
+            Supplier<byte[]> full = null;
+            Supplier<byte[]> delta = null;
+            if (snapshot != null) {
+                full = () -> jsonMapper.writeValueAsBytes(
+                        mapTimer.record(() -> SimStateMapper.toFrameDTO(frameSeq, snapshot, null, machines, mode)));
+                delta = previous == null ? full
+                        : () -> jsonMapper.writeValueAsBytes(
+                                mapTimer.record(() -> SimStateMapper.toFrameDTO(frameSeq, snapshot, previous, machines, mode)));
             }
-        });
+            PublishedFrame frame = new PublishedFrame(frameSeq, stateService.getTopologyVersion(), legacy, delta, full,
+                    topology(machines, queues));
+
+            for (SseClient client : clients) {
+                int dropped = client.offerFrame(frame);
+                if (dropped > 0) {
+                    droppedFrames.increment(dropped);
+                }
+            }
+        }
     }
 
-    public void notifySimulationStopped() {
-        emitters.removeIf(emitter -> {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("simulationStopped")
-                        .data("STOPPED"));
-                return false;
-            } catch (Exception e) {
+    // rebuilt only when the graph version changes, like the topology below
+    private SimStateMapper.Layout layout(Map<String, Machine> machines, Map<String, SimQueue> queues) {
+        long version = stateService.getTopologyVersion();
+        SimStateMapper.Layout current = layout;
+        if (current == null || current.version() != version) {
+            current = SimStateMapper.toLayout(machines, queues, version);
+            layout = current;
+        }
+        return current;
+    }
+
+    // encoded once per graph version; sent to delta clients on connect and when a frame carries a new version
+    private Supplier<byte[]> topology(Map<String, Machine> machines, Map<String, SimQueue> queues) {
+        long version = stateService.getTopologyVersion();
+        if (topologyCache == null || topologyCachedFor != version) {
+            topologyCachedFor = version;
+            topologyCache = new Supplier<>() {
+                private byte[] json;
+
+                @Override
+                public synchronized byte[] get() {
+                    if (json == null) {
+                        TopologyDTO dto = SimStateMapper.toTopologyDTO(machines, queues, version);
+                        json = jsonMapper.writeValueAsBytes(dto);
+                    }
+                    return json;
+                }
+            };
+        }
+        return topologyCache;
+    }
+
+    public boolean hasDeltaClients() {
+        for (SseClient client : clients) {
+            if (client.getProtocol() == StreamProtocol.DELTA)
                 return true;
-            }
-        });
+        }
+        return false;
+    }
+
+    public void notifySimulationStopped() {
+        for (SseClient client : clients) {
+            client.offerControl(SseEmitter.event()
+                    .name("simulationStopped")
+                    .data("STOPPED"));
+        }
+    }
+
+    public int getClientCount() {
+        return clients.size();
     }
 }
@@ -0,0 +1,6 @@
+package com.example.backend.service;
+
+public enum StreamProtocol {
+    FULL,  // every frame is a complete SimStateDTO including the graph
+    DELTA  // a topology event once, then frame events with only what changed
+}
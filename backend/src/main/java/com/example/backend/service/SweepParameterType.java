@@ -0,0 +1,8 @@
+package com.example.backend.service;
+
+// what a sweep varies on the base graph
+public enum SweepParameterType {
+    SERVERS,        // products a machine serves at once, the parallel machines of a stage
+    QUEUE_CAPACITY, // places in a queue, 0 for unbounded
+    SERVICE_TIME    // one field of a machine's service-time distribution
+}
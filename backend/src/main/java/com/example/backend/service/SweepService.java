@@ -0,0 +1,255 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.DistributionDTO;
+import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.dto.ReplicationRunDTO;
+import com.example.backend.dto.SweepCandidateDTO;
+import com.example.backend.dto.SweepParameterDTO;
+import com.example.backend.dto.SweepReportDTO;
+import com.example.backend.dto.SweepRequestDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+
+/**
+ * Capacity planning without editing graphs by hand: varies server counts,
+ * queue capacities and service-time parameters of a base graph over a grid
+ * or a random sample of it, runs every candidate on the discrete-event engine
+ * through the replication pool and returns the Pareto front of throughput
+ * against WIP and sojourn time.
+ */
+@Service
+public class SweepService {
+
+    @Autowired
+    private ReplicationService replicationService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    // upper bound for candidates times replications of one sweep
+    @Value("${simulation.sweep.max-runs:100000}")
+    private long maxRuns = 100_000;
+
+    public SweepReportDTO run(SweepRequestDTO request) {
+        List<SweepParameterDTO> parameters = request.getParameters();
+        if (parameters == null || parameters.isEmpty())
+            throw new IllegalArgumentException("A sweep needs at least one parameter");
+        if (request.getObjects() == null)
+            throw new IllegalArgumentException("A sweep needs a base graph");
+        Set<String> names = new HashSet<>();
+        for (SweepParameterDTO parameter : parameters) {
+            checkParameter(parameter);
+            if (!names.add(name(parameter)))
+                throw new IllegalArgumentException("Sweep parameter " + name(parameter) + " given twice");
+        }
+        int replications = request.getReplications();
+        if (replications < 1)
+            throw new IllegalArgumentException("Replications must be at least 1: " + replications);
+
+        long gridSize = gridSize(parameters);
+        long candidateCount = request.getStrategy() == SweepStrategy.RANDOM
+                ? Math.min(gridSize, Math.max(0, request.getSamples())) : gridSize;
+        if (candidateCount > maxRuns / replications)
+            throw new IllegalArgumentException("Sweep of " + candidateCount + " candidates with " + replications
+                    + " replications each exceeds " + maxRuns + " runs");
+
+        long seed = ReplicationService.seedOf(request.getObjects());
+        long[] combinations = pick(gridSize, request.getStrategy(), request.getSamples(), seed);
+        long runs = (long) combinations.length * replications;
+
+        // every candidate is built once up front, so a bad value fails before anything runs
+        List<Map<String, Double>> values = new ArrayList<>();
+        List<ObjectInitDTO> graphs = new ArrayList<>();
+        for (long combination : combinations) {
+            Map<String, Double> chosen = valuesOf(parameters, combination);
+            ObjectInitDTO graph = apply(request.getObjects(), parameters, chosen);
+            replicationService.validate(graph, request.getConnections(), request.getProductCount());
+            values.add(chosen);
+            graphs.add(graph);
+        }
+
+        // common random numbers: replication i of every candidate uses the same seed
+        long[] seeds = ReplicationService.replicationSeeds(seed, replications);
+        List<Callable<ReplicationRunDTO>> tasks = new ArrayList<>();
+        for (ObjectInitDTO graph : graphs) {
+            for (long runSeed : seeds) {
+                tasks.add(() -> replicationService.replicate(graph, request.getConnections(),
+                        request.getProductCount(), runSeed));
+            }
+        }
+
+        long started = System.currentTimeMillis();
+        List<ReplicationRunDTO> results = replicationService.runAll(tasks);
+        long wall = System.currentTimeMillis() - started;
+        System.out.println("sweep of " + graphs.size() + " candidates, " + runs + " runs in " + wall + " ms");
+
+        List<SweepCandidateDTO> candidates = new ArrayList<>();
+        for (int c = 0; c < graphs.size(); c++) {
+            List<ReplicationRunDTO> own = results.subList(c * replications, (c + 1) * replications);
+            candidates.add(new SweepCandidateDTO(values.get(c),
+                    own.stream().mapToDouble(ReplicationRunDTO::getThroughput).average().orElse(0),
+                    own.stream().mapToDouble(ReplicationRunDTO::getMeanWip).average().orElse(0),
+                    own.stream().mapToDouble(ReplicationRunDTO::getMeanSojourn).average().orElse(0),
+                    own.stream().mapToDouble(ReplicationRunDTO::getP90Sojourn).average().orElse(0)));
+        }
+        return new SweepReportDTO(request.getStrategy(), replications, seed, runs, wall,
+                replicationService.getParallelism(), paretoFront(candidates), candidates);
+    }
+
+    private static void checkParameter(SweepParameterDTO parameter) {
+        if (parameter.getType() == null || parameter.getTarget() == null)
+            throw new IllegalArgumentException("Sweep parameter needs a type and a target");
+        if (parameter.getValues() == null || parameter.getValues().isEmpty())
+            throw new IllegalArgumentException("Sweep parameter " + name(parameter) + " has no values");
+        if (parameter.getType() == SweepParameterType.SERVICE_TIME && parameter.getField() == null)
+            throw new IllegalArgumentException("Service time parameter of " + parameter.getTarget() + " needs a field");
+        if (parameter.getType() != SweepParameterType.SERVICE_TIME) {
+            for (Double value : parameter.getValues()) {
+                if (value == null || value != Math.rint(value))
+                    throw new IllegalArgumentException(name(parameter) + " takes whole numbers: " + value);
+            }
+        }
+    }
+
+    static String name(SweepParameterDTO parameter) {
+        return switch (parameter.getType()) {
+            case SERVERS -> parameter.getTarget() + ".servers";
+            case QUEUE_CAPACITY -> parameter.getTarget() + ".capacity";
+            case SERVICE_TIME -> parameter.getTarget() + ".serviceTime." + parameter.getField();
+        };
+    }
+
+    // combinations in the grid, Long.MAX_VALUE when they no longer fit in a long
+    static long gridSize(List<SweepParameterDTO> parameters) {
+        long size = 1;
+        try {
+            for (SweepParameterDTO parameter : parameters) {
+                size = Math.multiplyExact(size, parameter.getValues().size());
+            }
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+        return size;
+    }
+
+    // grid positions to run: all of them, or a seeded sample of distinct ones
+    static long[] pick(long gridSize, SweepStrategy strategy, int samples, long seed) {
+        if (strategy == SweepStrategy.GRID) {
+            if (gridSize > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Grid of " + gridSize + " combinations is too large, sample it");
+            long[] all = new long[(int) gridSize];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        if (samples < 1)
+            throw new IllegalArgumentException("RANDOM sweep needs a positive sample count: " + samples);
+        if (samples >= gridSize)
+            return pick(gridSize, SweepStrategy.GRID, 0, seed);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Set<Long> chosen = new LinkedHashSet<>();
+        while (chosen.size() < samples) {
+            chosen.add(random.nextLong(gridSize));
+        }
+        return chosen.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // the value of every parameter at one grid position, the last parameter varying fastest
+    private static Map<String, Double> valuesOf(List<SweepParameterDTO> parameters, long combination) {
+        Double[] picked = new Double[parameters.size()];
+        long rest = combination;
+        for (int i = parameters.size() - 1; i >= 0; i--) {
+            List<Double> values = parameters.get(i).getValues();
+            picked[i] = values.get((int) (rest % values.size()));
+            rest /= values.size();
+        }
+        Map<String, Double> chosen = new LinkedHashMap<>();
+        for (int i = 0; i < picked.length; i++) {
+            chosen.put(name(parameters.get(i)), picked[i]);
+        }
+        return chosen;
+    }
+
+    // a copy of the base graph with the candidate's values applied
+    private ObjectInitDTO apply(ObjectInitDTO base, List<SweepParameterDTO> parameters, Map<String, Double> chosen) {
+        ObjectInitDTO graph = jsonMapper.convertValue(base, ObjectInitDTO.class);
+        for (SweepParameterDTO parameter : parameters) {
+            double value = chosen.get(name(parameter));
+            String target = parameter.getTarget();
+            switch (parameter.getType()) {
+                case SERVERS -> {
+                    if (graph.getServers() == null)
+                        graph.setServers(new HashMap<>());
+                    graph.getServers().put(target, (int) value);
+                }
+                case QUEUE_CAPACITY -> {
+                    if (graph.getQueueCapacities() == null)
+                        graph.setQueueCapacities(new HashMap<>());
+                    graph.getQueueCapacities().put(target, (int) value);
+                }
+                case SERVICE_TIME -> {
+                    DistributionDTO serviceTime = graph.getServiceTimes() == null ? null
+                            : graph.getServiceTimes().get(target);
+                    if (serviceTime == null)
+                        throw new IllegalArgumentException("Base graph has no service time for " + target);
+                    setField(serviceTime, parameter.getField(), value);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static void setField(DistributionDTO distribution, String field, double value) {
+        switch (field) {
+            case "value" -> distribution.setValue(value);
+            case "min" -> distribution.setMin(value);
+            case "max" -> distribution.setMax(value);
+            case "mean" -> distribution.setMean(value);
+            case "stdDev" -> distribution.setStdDev(value);
+            default -> throw new IllegalArgumentException("Unknown service time field: " + field);
+        }
+    }
+
+    // higher throughput, lower WIP and lower sojourn time are better; a candidate stays unless another
+    // is at least as good on all three and better on one
+    static List<SweepCandidateDTO> paretoFront(List<SweepCandidateDTO> candidates) {
+        List<SweepCandidateDTO> front = new ArrayList<>();
+        for (SweepCandidateDTO candidate : candidates) {
+            boolean dominated = false;
+            for (SweepCandidateDTO other : candidates) {
+                if (other != candidate && dominates(other, candidate)) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated)
+                front.add(candidate);
+        }
+        front.sort(Comparator.comparingDouble(SweepCandidateDTO::getThroughput).reversed());
+        return front;
+    }
+
+    private static boolean dominates(SweepCandidateDTO a, SweepCandidateDTO b) {
+        boolean noWorse = a.getThroughput() >= b.getThroughput() && a.getMeanWip() <= b.getMeanWip()
+                && a.getMeanSojourn() <= b.getMeanSojourn();
+        boolean better = a.getThroughput() > b.getThroughput() || a.getMeanWip() < b.getMeanWip()
+                || a.getMeanSojourn() < b.getMeanSojourn();
+        return noWorse && better;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.backend.service;
+
+public enum SweepStrategy {
+    GRID,  // every combination of the parameter values
+    RANDOM // a seeded sample of distinct combinations, for grids too large to run whole
+}
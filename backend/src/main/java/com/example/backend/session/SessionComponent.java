@@ -0,0 +1,18 @@
+package com.example.backend.session;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A bean that exists once per simulation session instead of once per
+ * application. Such classes are not component-scanned; every session
+ * registers them in a context of its own, see {@link SimulationSession}.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SessionComponent {
+}
@@ -0,0 +1,117 @@
+package com.example.backend.session;
+
+import com.example.backend.service.ReplayService;
+import com.example.backend.service.SimulationLifecycleService;
+import com.example.backend.service.SimulationMetrics;
+import com.example.backend.service.SimulationStateService;
+import com.example.backend.service.SnapshotService;
+import com.example.backend.service.SsePublisherService;
+import com.example.backend.snapshot.SimulationCareTaker;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * One team's simulation: its own graph, history, SSE clients and threads.
+ * The {@link SessionComponent} beans live in a child context of the
+ * application, so they keep autowiring each other as before while the
+ * application-wide beans (JSON mapper, settings) come from the parent.
+ * Meters registered by the session carry a {@code session} tag.
+ */
+public class SimulationSession {
+
+    // every bean a session owns
+    static final Class<?>[] BEANS = {
+            SimulationStateService.class,
+            SimulationCareTaker.class,
+            SnapshotService.class,
+            SsePublisherService.class,
+            SimulationLifecycleService.class,
+            ReplayService.class,
+            SimulationMetrics.class
+    };
+
+    private final String id;
+    private final long createdAt = System.currentTimeMillis();
+    private final AnnotationConfigApplicationContext context;
+    private final MeterRegistry rootRegistry;
+    private final CompositeMeterRegistry meters;
+
+    private final SimulationStateService state;
+    private final SimulationLifecycleService lifecycle;
+    private final SnapshotService snapshots;
+    private final ReplayService replay;
+    private final SsePublisherService publisher;
+
+    SimulationSession(String id, ApplicationContext parent, MeterRegistry rootRegistry) {
+        this.id = id;
+        this.rootRegistry = rootRegistry;
+
+        // equal queue and machine ids in two sessions stay two meters
+        meters = new CompositeMeterRegistry();
+        meters.config().commonTags("session", id);
+        meters.add(rootRegistry);
+
+        context = new AnnotationConfigApplicationContext();
+        context.setParent(parent);
+        context.setDisplayName("simulation session " + id);
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("session", Map.of("simulation.session.id", id)));
+        context.registerBean("sessionMeterRegistry", MeterRegistry.class, () -> meters, bd -> bd.setPrimary(true));
+        context.register(BEANS);
+        context.refresh();
+
+        state = context.getBean(SimulationStateService.class);
+        lifecycle = context.getBean(SimulationLifecycleService.class);
+        snapshots = context.getBean(SnapshotService.class);
+        replay = context.getBean(ReplayService.class);
+        publisher = context.getBean(SsePublisherService.class);
+    }
+
+    // stops whatever runs, disconnects the clients and drops the session's meters
+    void close() {
+        replay.stopReplay();
+        lifecycle.reset();
+        context.close();
+        // closing a composite closes the registries in it, so the application's one is taken out first
+        meters.remove(rootRegistry);
+        meters.close();
+        for (Meter meter : rootRegistry.getMeters()) {
+            if (id.equals(meter.getId().getTag("session")))
+                rootRegistry.remove(meter);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public SimulationStateService getState() {
+        return state;
+    }
+
+    public SimulationLifecycleService getLifecycle() {
+        return lifecycle;
+    }
+
+    public SnapshotService getSnapshots() {
+        return snapshots;
+    }
+
+    public ReplayService getReplay() {
+        return replay;
+    }
+
+    public SsePublisherService getPublisher() {
+        return publisher;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.backend.session;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The open simulation sessions by id. The default session always exists and
+ * serves the API paths without a session id.
+ */
+@Service
+public class SimulationSessionRegistry {
+
+    public static final String DEFAULT_SESSION = "default";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // sessions open at once, the default one included
+    @Value("${simulation.session.max-sessions:16}")
+    private int maxSessions = 16;
+
+    private final Map<String, SimulationSession> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        open(DEFAULT_SESSION);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        sessions.values().forEach(SimulationSession::close);
+        sessions.clear();
+    }
+
+    public synchronized SimulationSession create() {
+        String id;
+        do {
+            id = UUID.randomUUID().toString().substring(0, 8);
+        } while (sessions.containsKey(id));
+        return open(id);
+    }
+
+    private synchronized SimulationSession open(String id) {
+        if (sessions.size() >= maxSessions)
+            throw new IllegalStateException("Session limit of " + maxSessions + " reached");
+        SimulationSession session = new SimulationSession(id, applicationContext, meterRegistry);
+        sessions.put(id, session);
+        System.out.println("opened session " + id);
+        return session;
+    }
+
+    // null selects the default session
+    public SimulationSession get(String id) {
+        SimulationSession session = sessions.get(id != null ? id : DEFAULT_SESSION);
+        if (session == null)
+            throw new IllegalArgumentException("Session not found: " + id);
+        return session;
+    }
+
+    public List<SimulationSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    public synchronized void close(String id) {
+        if (DEFAULT_SESSION.equals(id))
+            throw new IllegalArgumentException("The default session cannot be closed");
+        SimulationSession session = sessions.remove(id);
+        if (session == null)
+            throw new IllegalArgumentException("Session not found: " + id);
+        session.close();
+        System.out.println("closed session " + id);
+    }
+}
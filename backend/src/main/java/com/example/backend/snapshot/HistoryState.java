@@ -0,0 +1,95 @@
+package com.example.backend.snapshot;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mutable simulation state that deltas are applied to, used both for the
+ * caretaker's live frame and for rebuilding past frames.
+ */
+class HistoryState {
+    private final Map<String, String> machineColors = new HashMap<>();
+    private final Map<String, String> machineStates = new HashMap<>();
+    private final Map<String, Integer> queueSizes = new HashMap<>();
+    private final Map<String, QueueColors> queueColors = new HashMap<>();
+    private long timestamp;
+    private long itemCount; // queued colors held, the cost of materializing
+
+    // lists handed out by the last materialize; unchanged queues reuse theirs, so equal content is the same list
+    // and a changed one is a new window over its queue's colors, so no queue is copied per frame
+    private final Map<String, List<String>> materialized = new HashMap<>();
+    private final Set<String> changedQueues = new HashSet<>();
+
+    HistoryState() {
+    }
+
+    HistoryState(SimulationSnapshot snapshot) {
+        machineColors.putAll(snapshot.getMachineColors());
+        machineStates.putAll(snapshot.getMachineStates());
+        queueSizes.putAll(snapshot.getQueueSizes());
+        snapshot.getQueueProductColors().forEach((id, colors) -> {
+            queueColors.put(id, new QueueColors(colors));
+            materialized.put(id, colors);
+            itemCount += colors.size();
+        });
+        timestamp = snapshot.getTimestamp();
+    }
+
+    void apply(SnapshotDelta delta) {
+        applyChanges(machineColors, delta.getMachineColors());
+        applyChanges(machineStates, delta.getMachineStates());
+        applyChanges(queueSizes, delta.getQueueSizes());
+        delta.getQueueOps().forEach((id, ops) -> {
+            QueueColors colors = queueColors.computeIfAbsent(id, k -> new QueueColors());
+            itemCount -= colors.size();
+            colors.apply(ops);
+            itemCount += colors.size();
+            changedQueues.add(id);
+        });
+        delta.getQueueSizes().forEach((id, size) -> {
+            if (size != null) {
+                if (!queueColors.containsKey(id)) {
+                    queueColors.put(id, new QueueColors()); // an empty queue still has a list
+                    changedQueues.add(id);
+                }
+            } else {
+                QueueColors removed = queueColors.remove(id); // queue no longer in the graph
+                materialized.remove(id);
+                if (removed != null)
+                    itemCount -= removed.size();
+            }
+        });
+        timestamp = delta.getTimestamp();
+    }
+
+    private static <V> void applyChanges(Map<String, V> target, Map<String, V> changes) {
+        changes.forEach((key, value) -> {
+            if (value == null) {
+                target.remove(key);
+            } else {
+                target.put(key, value);
+            }
+        });
+    }
+
+    long getItemCount() {
+        return itemCount;
+    }
+
+    // costs the changed queues and the node maps, never the queued colors
+    SimulationSnapshot materialize() {
+        for (String id : changedQueues) {
+            QueueColors colors = queueColors.get(id);
+            if (colors != null) {
+                materialized.put(id, colors.view());
+            }
+        }
+        changedQueues.clear();
+        Map<String, List<String>> colors = new HashMap<>(materialized);
+        return new SimulationSnapshot(new HashMap<>(machineColors), new HashMap<>(machineStates),
+                new HashMap<>(queueSizes), colors, timestamp);
+    }
+}
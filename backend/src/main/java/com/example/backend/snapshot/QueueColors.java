@@ -0,0 +1,75 @@
+package com.example.backend.snapshot;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Colors of one queue in a history, head first. Slots are only ever written
+ * once, at the tail, so a window over the live range never changes after it
+ * is handed out and a frame takes the content without copying it. A take
+ * just moves the head; once the array fills, the live range moves to a fresh
+ * array and windows handed out earlier keep the old one.
+ */
+final class QueueColors {
+
+    private String[] items;
+    private int head;
+    private int tail;
+
+    QueueColors() {
+        items = new String[8];
+    }
+
+    QueueColors(List<String> colors) {
+        items = colors.toArray(new String[Math.max(8, colors.size())]);
+        tail = colors.size();
+    }
+
+    int size() {
+        return tail - head;
+    }
+
+    void apply(QueueOps ops) {
+        head += Math.min(ops.getPops(), size());
+        for (String color : ops.getPushes()) {
+            if (tail == items.length) {
+                // amortized: at least size() pushes happen before the next move
+                String[] moved = new String[Math.max(8, size() * 2)];
+                System.arraycopy(items, head, moved, 0, size());
+                tail = size();
+                head = 0;
+                items = moved;
+            }
+            items[tail++] = color;
+        }
+    }
+
+    List<String> view() {
+        return size() == 0 ? List.of() : new Window(items, head, tail);
+    }
+
+    private static final class Window extends AbstractList<String> implements RandomAccess {
+        private final String[] items;
+        private final int from;
+        private final int to;
+
+        Window(String[] items, int from, int to) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= to - from)
+                throw new IndexOutOfBoundsException("Color " + index + " of " + (to - from));
+            return items[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.backend.snapshot;
+
+import lombok.Getter;
+
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Queue content change between two frames: drop {@code pops} products from the
+ * head, then append {@code pushes} at the tail. A queue whose content is not a
+ * FIFO continuation of the previous frame is encoded as popping everything and
+ * pushing the new content.
+ */
+@Getter
+public class QueueOps {
+    private final int pops;
+    private final List<String> pushes;
+
+    public QueueOps(int pops, List<String> pushes) {
+        this.pops = pops;
+        this.pushes = pushes;
+    }
+
+    public static QueueOps diff(List<String> before, List<String> after) {
+        // as many head items taken as leaves the rest of before a prefix of after
+        int kept = overlap(before, after);
+        return new QueueOps(before.size() - kept, List.copyOf(after.subList(kept, after.size())));
+    }
+
+    // longest suffix of before that is a prefix of after: KMP with after as the pattern, run over the
+    // tail of before, so O(before + after) even for a deep queue of one color
+    private static int overlap(List<String> before, List<String> after) {
+        int m = after.size();
+        if (m == 0 || before.isEmpty())
+            return 0;
+
+        int[] fallback = new int[m]; // longest proper prefix of after.subList(0, i + 1) that is also its suffix
+        for (int i = 1, k = 0; i < m; i++) {
+            while (k > 0 && !after.get(i).equals(after.get(k)))
+                k = fallback[k - 1];
+            if (after.get(i).equals(after.get(k)))
+                k++;
+            fallback[i] = k;
+        }
+
+        int matched = 0;
+        for (String color : before.subList(Math.max(0, before.size() - m), before.size())) {
+            if (matched == m)
+                matched = fallback[m - 1];
+            while (matched > 0 && !color.equals(after.get(matched)))
+                matched = fallback[matched - 1];
+            if (color.equals(after.get(matched)))
+                matched++;
+        }
+        return matched;
+    }
+
+    public boolean isEmpty() {
+        return pops == 0 && pushes.isEmpty();
+    }
+
+    public void applyTo(Deque<String> colors) {
+        for (int i = 0; i < pops && !colors.isEmpty(); i++) {
+            colors.pollFirst();
+        }
+        colors.addAll(pushes);
+    }
+}
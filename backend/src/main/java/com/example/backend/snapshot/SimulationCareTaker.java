@@ -1,27 +1,154 @@
 package com.example.backend.snapshot;
 
-import lombok.Getter;
-import org.springframework.stereotype.Service;
+import com.example.backend.session.SessionComponent;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
-
-@Service
+/**
+ * Keeps the frame history as one {@link SnapshotDelta} per frame plus
+ * occasional full keyframes. Adding a frame only costs its delta: a keyframe
+ * is taken at most every {@code keyframeInterval} frames and only once the
+ * deltas since the last one outweigh the state it copies. Full snapshots are
+ * rebuilt on demand by {@link #getHistory()} and {@link #getCurrentSnapshot()}.
+ */
+@SessionComponent
 public class SimulationCareTaker {
-    private final List<com.example.backend.snapshot.SimulationSnapshot> history = new ArrayList<>();
-    @Getter
-    public SimulationSnapshot currentSnapshot;
 
-    public void addSnapshot(com.example.backend.snapshot.SimulationSnapshot snapshot) {
-        history.add(snapshot);
+    private static final SimulationSnapshot EMPTY = new SimulationSnapshot(Map.of(), Map.of(), Map.of(), Map.of(), 0);
+
+    @Value("${simulation.history.keyframe-interval:256}")
+    private int keyframeInterval = 256;
+
+    private List<SnapshotDelta> deltas = new ArrayList<>();
+    private List<SimulationSnapshot> keyframes = new ArrayList<>();
+    private List<Integer> keyframeIndexes = new ArrayList<>(); // frame index of each keyframe
+
+    private HistoryState live = new HistoryState();
+    private long volumeSinceKeyframe = 0;
+    private long volume = 0; // changes held by the whole history
+    private SimulationSnapshot currentSnapshot; // materialized lazily
+    private long generation = 0; // bumped on clear
+
+    public SimulationCareTaker() {
+    }
+
+    SimulationCareTaker(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    // full snapshot, stored as its difference from the current frame
+    public synchronized void addSnapshot(SimulationSnapshot snapshot) {
+        SimulationSnapshot previous = deltas.isEmpty() ? EMPTY : getCurrentSnapshot();
+        addDelta(SnapshotDelta.between(previous, snapshot));
         currentSnapshot = snapshot;
     }
 
-    public List<com.example.backend.snapshot.SimulationSnapshot> getHistory() {
-        return new ArrayList<>(history);
+    public synchronized void addDelta(SnapshotDelta delta) {
+        int index = deltas.size();
+        deltas.add(delta);
+        live.apply(delta);
+        currentSnapshot = null;
+        long changes = delta.volume();
+        volumeSinceKeyframe += changes;
+        volume += changes;
+
+        int sinceKeyframe = keyframeIndexes.isEmpty() ? Integer.MAX_VALUE
+                : index - keyframeIndexes.get(keyframeIndexes.size() - 1);
+        if (sinceKeyframe >= keyframeInterval && volumeSinceKeyframe >= live.getItemCount()) {
+            keyframes.add(getCurrentSnapshot());
+            keyframeIndexes.add(index);
+            volumeSinceKeyframe = 0;
+        }
+    }
+
+    public synchronized SimulationSnapshot getCurrentSnapshot() {
+        if (currentSnapshot == null && !deltas.isEmpty()) {
+            currentSnapshot = live.materialize();
+        }
+        return currentSnapshot;
+    }
+
+    // a read-only view that rebuilds each frame from its keyframe; sequential reads only apply one delta each
+    public synchronized List<SimulationSnapshot> getHistory() {
+        return new HistoryView(deltas, keyframes, keyframeIndexes, deltas.size());
     }
 
-    public void clear() {
-        history.clear();
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized long getVolume() {
+        return volume;
+    }
+
+    public synchronized int size() {
+        return deltas.size();
+    }
+
+    public synchronized void clear() {
+        // fresh lists so views handed out earlier keep reading the old run
+        deltas = new ArrayList<>();
+        keyframes = new ArrayList<>();
+        keyframeIndexes = new ArrayList<>();
+        live = new HistoryState();
+        volumeSinceKeyframe = 0;
+        volume = 0;
+        currentSnapshot = null;
+        generation++;
+    }
+
+    private class HistoryView extends AbstractList<SimulationSnapshot> {
+        private final List<SnapshotDelta> deltas;
+        private final List<SimulationSnapshot> keyframes;
+        private final List<Integer> keyframeIndexes;
+        private final int size;
+
+        // state of the last rebuilt frame
+        private HistoryState state;
+        private int cursor = -1;
+        private int cursorKeyframe = -1;
+
+        HistoryView(List<SnapshotDelta> deltas, List<SimulationSnapshot> keyframes,
+                    List<Integer> keyframeIndexes, int size) {
+            this.deltas = deltas;
+            this.keyframes = keyframes;
+            this.keyframeIndexes = keyframeIndexes;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public SimulationSnapshot get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Frame " + index + " of " + size);
+
+            synchronized (SimulationCareTaker.this) {
+                int found = Collections.binarySearch(keyframeIndexes, index);
+                int keyframe = found >= 0 ? found : -found - 2;
+                if (found >= 0) {
+                    return keyframes.get(keyframe);
+                }
+
+                if (state == null || cursorKeyframe != keyframe || cursor > index) {
+                    state = new HistoryState(keyframes.get(keyframe));
+                    cursor = keyframeIndexes.get(keyframe);
+                    cursorKeyframe = keyframe;
+                }
+                while (cursor < index) {
+                    cursor++;
+                    state.apply(deltas.get(cursor));
+                }
+                return state.materialize();
+            }
+        }
     }
-}
\ No newline at end of file
+}
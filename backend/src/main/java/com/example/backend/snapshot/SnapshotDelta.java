@@ -0,0 +1,78 @@
+package com.example.backend.snapshot;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The difference between two consecutive frames: only the machine fields and
+ * queue sizes that changed, and each changed queue's content as head pops plus
+ * tail pushes.
+ */
+@Getter
+public class SnapshotDelta {
+    private final Map<String, String> machineColors;
+    private final Map<String, String> machineStates;
+    private final Map<String, Integer> queueSizes;
+    private final Map<String, QueueOps> queueOps;
+    private final long timestamp;
+
+    public SnapshotDelta(Map<String, String> machineColors,
+                         Map<String, String> machineStates,
+                         Map<String, Integer> queueSizes,
+                         Map<String, QueueOps> queueOps,
+                         long timestamp) {
+        this.machineColors = machineColors;
+        this.machineStates = machineStates;
+        this.queueSizes = queueSizes;
+        this.queueOps = queueOps;
+        this.timestamp = timestamp;
+    }
+
+    // how much work applying this delta is, used to pace keyframes
+    public long volume() {
+        long volume = machineColors.size() + machineStates.size() + queueSizes.size();
+        for (QueueOps ops : queueOps.values()) {
+            volume += ops.getPops() + ops.getPushes().size();
+        }
+        return volume;
+    }
+
+    public static SnapshotDelta between(SimulationSnapshot previous, SimulationSnapshot next) {
+        Map<String, List<String>> nextColors = next.getQueueProductColors();
+        Map<String, QueueOps> ops = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : nextColors.entrySet()) {
+            List<String> before = previous.getQueueProductColors().getOrDefault(entry.getKey(), List.of());
+            QueueOps queueOps = QueueOps.diff(before, entry.getValue());
+            if (!queueOps.isEmpty()) {
+                ops.put(entry.getKey(), queueOps);
+            }
+        }
+
+        return new SnapshotDelta(
+                changed(previous.getMachineColors(), next.getMachineColors()),
+                changed(previous.getMachineStates(), next.getMachineStates()),
+                changed(previous.getQueueSizes(), next.getQueueSizes()),
+                ops,
+                next.getTimestamp());
+    }
+
+    // entries of next that are new or differ from previous; keys only in previous map to null
+    private static <V> Map<String, V> changed(Map<String, V> previous, Map<String, V> next) {
+        Map<String, V> changes = new HashMap<>();
+        for (Map.Entry<String, V> entry : next.entrySet()) {
+            if (!Objects.equals(previous.get(entry.getKey()), entry.getValue())) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String key : previous.keySet()) {
+            if (!next.containsKey(key)) {
+                changes.put(key, null);
+            }
+        }
+        return changes.isEmpty() ? Map.of() : changes;
+    }
+}
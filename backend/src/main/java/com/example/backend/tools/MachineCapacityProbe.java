@@ -0,0 +1,70 @@
+package com.example.backend.tools;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+import com.example.backend.service.ExecutorMode;
+import com.example.backend.util.SimulationThreads;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how many idle machines one JVM can hold in a given executor mode.
+ * Machines are started in growing steps, all parked on one empty input queue,
+ * and each step prints the live platform thread count and used heap.
+ * The probe stops at the limit or at the first failure to start a thread.
+ *
+ * <pre>
+ * java -Xmx1g -cp target/classes com.example.backend.tools.MachineCapacityProbe VIRTUAL 1000000
+ * </pre>
+ */
+public class MachineCapacityProbe {
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorMode requested = args.length > 0 ? ExecutorMode.valueOf(args[0].toUpperCase()) : ExecutorMode.PLATFORM;
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        ExecutorMode mode = SimulationThreads.effectiveMode(requested);
+
+        System.out.println("mode=" + mode + (mode != requested ? " (requested " + requested + ")" : "")
+                + " limit=" + limit);
+        System.out.println("machines,platformThreads,heapUsedMb,stepMillis");
+
+        SimQueue input = new SimQueue("Q-probe");
+        SimQueue output = new SimQueue("Q-sink");
+        List<Machine> machines = new ArrayList<>();
+
+        int step = 1000;
+        try {
+            while (machines.size() < limit) {
+                long started = System.currentTimeMillis();
+                int target = Math.min(limit, machines.size() + step);
+                while (machines.size() < target) {
+                    Machine machine = new Machine("M" + machines.size());
+                    machine.getInputQueues().add(input);
+                    machine.getOutputQueues().add(output);
+                    machine.setRunning(true);
+                    machines.add(machine);
+                    SimulationThreads.start(mode, "Machine-" + machine.getId(), machine);
+                }
+                report(machines.size(), System.currentTimeMillis() - started);
+                step = Math.min(step * 2, 100_000);
+            }
+        } catch (OutOfMemoryError | InternalError e) {
+            System.out.println("stopped at " + machines.size() + " machines: " + e);
+        } finally {
+            for (Machine machine : machines) {
+                machine.stopMachine();
+                machine.wakeUp();
+            }
+        }
+    }
+
+    private static void report(int machines, long stepMillis) throws InterruptedException {
+        Thread.sleep(200); // let the new threads reach their wait
+        Runtime runtime = Runtime.getRuntime();
+        long usedMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.out.println(machines + "," + threads + "," + usedMb + "," + stepMillis);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.backend.tools;
+
+import com.example.backend.InputGenerator;
+import com.example.backend.engine.DiscreteEventEngine;
+import com.example.backend.model.Machine;
+import com.example.backend.model.SimQueue;
+import com.example.backend.model.distribution.ExponentialDistribution;
+import com.example.backend.model.distribution.LogNormalDistribution;
+import com.example.backend.model.routing.RoutingType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Runs one wide fan-out graph on the discrete-event engine once per routing
+ * strategy with the same seed, and prints throughput and how evenly the
+ * fan-out queues filled up. A dispatcher machine spreads products over
+ * {@code fanOut} queues, each drained by a worker of different speed, about
+ * 75% loaded overall. WEIGHTED routing gets each worker's speed as weight.
+ *
+ * <pre>
+ * java -cp target/classes com.example.backend.tools.RoutingComparison 64 50000 1
+ * </pre>
+ */
+public class RoutingComparison {
+
+    private static final double ARRIVAL_MEAN = 250;
+
+    public static void main(String[] args) {
+        int fanOut = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int products = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        System.out.println("fanOut=" + fanOut + " products=" + products + " seed=" + seed);
+        System.out.println("routing,simulatedS,throughputPerS,meanDepth,maxQueueMeanDepth,peakDepth,wallMs");
+        for (RoutingType routing : RoutingType.values()) {
+            run(routing, fanOut, products, seed);
+        }
+    }
+
+    private static void run(RoutingType routing, int fanOut, int products, long seed) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SimQueue input = new SimQueue("Q-in");
+        SimQueue sink = new SimQueue("Q-sink");
+        InputGenerator generator = new InputGenerator(input, products, new ExponentialDistribution(ARRIVAL_MEAN),
+                root.split());
+
+        Machine dispatcher = new Machine("M-dispatch");
+        dispatcher.getInputQueues().add(input);
+        dispatcher.setServiceTime(random -> 0);
+        dispatcher.setRouting(routing.create());
+        dispatcher.setRandom(root.split());
+
+        List<Machine> machines = new ArrayList<>();
+        machines.add(dispatcher);
+        List<SimQueue> lanes = new ArrayList<>();
+        // worker cycles of fanOut * 180 ms on average plus the flash: capacity ~ 1/180 products per ms
+        double base = fanOut * 180.0;
+        for (int i = 0; i < fanOut; i++) {
+            SimQueue lane = new SimQueue("Q" + i);
+            lanes.add(lane);
+            dispatcher.getOutputQueues().add(lane);
+
+            double mean = base * (0.5 + (fanOut == 1 ? 0.5 : (double) i / (fanOut - 1)));
+            dispatcher.getOutputWeights().put(lane.getId(), 1 / (mean + Machine.FLASH_TIME));
+
+            Machine worker = new Machine("M" + i);
+            worker.getInputQueues().add(lane);
+            worker.getOutputQueues().add(sink);
+            worker.setServiceTime(new LogNormalDistribution(mean, mean / 3));
+            worker.setRandom(root.split());
+            machines.add(worker);
+        }
+
+        LaneStats stats = new LaneStats(lanes);
+        DiscreteEventEngine engine = new DiscreteEventEngine(machines, generator, stats::record);
+        long started = System.currentTimeMillis();
+        engine.run();
+        long wall = System.currentTimeMillis() - started;
+
+        double seconds = engine.getVirtualTime() / 1000.0;
+        System.out.printf("%s,%.1f,%.3f,%.2f,%.2f,%d,%d%n", routing, seconds, sink.size() / seconds,
+                stats.meanDepth(), stats.maxQueueMeanDepth(), stats.peak, wall);
+    }
+
+    // time-weighted depth of each fan-out queue, sampled at every frame of the run
+    private static class LaneStats {
+        private final List<SimQueue> lanes;
+        private final double[] area;
+        private final int[] depth;
+        private long last = 0;
+        private int peak = 0;
+
+        LaneStats(List<SimQueue> lanes) {
+            this.lanes = lanes;
+            this.area = new double[lanes.size()];
+            this.depth = new int[lanes.size()];
+        }
+
+        // the depths seen at the previous frame held until this one
+        void record(long time) {
+            for (int i = 0; i < depth.length; i++) {
+                area[i] += (double) depth[i] * (time - last);
+                depth[i] = lanes.get(i).size();
+                peak = Math.max(peak, depth[i]);
+            }
+            last = time;
+        }
+
+        double meanDepth() {
+            double sum = 0;
+            for (double a : area) {
+                sum += a;
+            }
+            return last == 0 ? 0 : sum / area.length / last;
+        }
+
+        double maxQueueMeanDepth() {
+            double max = 0;
+            for (double a : area) {
+                max = Math.max(max, a);
+            }
+            return last == 0 ? 0 : max / last;
+        }
+    }
+}
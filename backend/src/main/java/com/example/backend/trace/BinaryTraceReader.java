@@ -0,0 +1,92 @@
+package com.example.backend.trace;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the binary trace format of {@link BinaryTraceWriter} by mapping the
+ * file one window at a time, so only the window being read is mapped however
+ * large the trace is.
+ * <p>
+ * Layout, big-endian: magic, version, queue count, each queue id as a
+ * length-prefixed UTF-8 string, then fixed 16 byte records of time (long),
+ * color (int, -1 for none) and queue index (int, -1 for the first queue).
+ */
+public class BinaryTraceReader implements TraceReader {
+
+    static final int MAGIC = 0x50435452; // "PCTR"
+    static final int VERSION = 1;
+    static final int RECORD_BYTES = 16;
+    static final int WINDOW_RECORDS = 1 << 22; // 64 MiB mapped at a time
+
+    private final FileChannel channel;
+    private final String[] queues;
+    private final long size;
+    private final long windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position; // next record
+
+    public BinaryTraceReader(Path path) throws IOException {
+        this(path, WINDOW_RECORDS);
+    }
+
+    BinaryTraceReader(Path path, int windowRecords) throws IOException {
+        long headerBytes = 3 * Integer.BYTES;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a binary trace: " + path);
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported trace version " + version);
+            queues = new String[in.readInt()];
+            for (int i = 0; i < queues.length; i++) {
+                byte[] id = new byte[in.readUnsignedShort()];
+                in.readFully(id);
+                queues[i] = new String(id, StandardCharsets.UTF_8);
+                headerBytes += Short.BYTES + id.length;
+            }
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowBytes = (long) windowRecords * RECORD_BYTES;
+        this.position = headerBytes;
+        if ((size - headerBytes) % RECORD_BYTES != 0)
+            throw new IOException("Trace " + path + " ends inside a record");
+    }
+
+    @Override
+    public TraceRecord next() throws IOException {
+        if (position >= size)
+            return null;
+        if (window == null || position >= windowStart + window.limit()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowBytes, size - position));
+        }
+
+        int offset = (int) (position - windowStart);
+        long time = window.getLong(offset);
+        int rgb = window.getInt(offset + Long.BYTES);
+        int queue = window.getInt(offset + Long.BYTES + Integer.BYTES);
+        position += RECORD_BYTES;
+
+        if (queue >= queues.length)
+            throw new IOException("Trace record names queue index " + queue + " of " + queues.length);
+        if (rgb < TraceRecord.NO_COLOR || rgb > 0xFFFFFF)
+            throw new IOException("Trace record color " + Integer.toHexString(rgb) + " is not 0xRRGGBB");
+        return new TraceRecord(time, rgb, queue < 0 ? null : queues[queue]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null; // unmapped once collected
+        channel.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.backend.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// writes the format read by BinaryTraceReader; every queue a record names is listed up front
+public class BinaryTraceWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> queueIndexes = new HashMap<>();
+
+    public BinaryTraceWriter(Path path, List<String> queues) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        out.writeInt(BinaryTraceReader.MAGIC);
+        out.writeInt(BinaryTraceReader.VERSION);
+        out.writeInt(queues.size());
+        for (String queue : queues) {
+            byte[] id = queue.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(id.length);
+            out.write(id);
+            queueIndexes.put(queue, queueIndexes.size());
+        }
+    }
+
+    public void write(TraceRecord record) throws IOException {
+        Integer queue = record.queue() == null ? Integer.valueOf(-1) : queueIndexes.get(record.queue());
+        if (queue == null)
+            throw new IllegalArgumentException("Queue " + record.queue() + " is not listed in the trace header");
+        out.writeLong(record.timeMillis());
+        out.writeInt(record.rgb());
+        out.writeInt(queue);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
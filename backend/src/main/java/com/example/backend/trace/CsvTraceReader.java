@@ -0,0 +1,180 @@
+package com.example.backend.trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads {@code time,color,queue} lines, e.g. {@code 1500,#FF8800,Q0}, through
+ * a fixed chunk buffer. Color and queue may be left out; a header line, blank
+ * lines and lines starting with {@code #} are skipped. Times are milliseconds
+ * and only their differences matter.
+ */
+public class CsvTraceReader implements TraceReader {
+
+    static final int CHUNK_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private boolean eof = false;
+    private long line = 0;
+    private int scanned; // bytes from position already searched for a line end
+
+    public CsvTraceReader(Path path) throws IOException {
+        this(path, CHUNK_BYTES);
+    }
+
+    CsvTraceReader(Path path, int chunkBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(chunkBytes);
+        buffer.flip(); // start out empty
+    }
+
+    @Override
+    public TraceRecord next() throws IOException {
+        while (true) {
+            int end = lineEnd();
+            if (end < 0) {
+                if (!eof) {
+                    fill();
+                    continue;
+                }
+                if (!buffer.hasRemaining())
+                    return null;
+                end = buffer.limit(); // last line without a newline
+            }
+
+            int start = buffer.position();
+            buffer.position(Math.min(end + 1, buffer.limit()));
+            scanned = 0;
+            line++;
+            TraceRecord record = parse(start, end);
+            if (record != null)
+                return record;
+        }
+    }
+
+    private int lineEnd() {
+        for (int i = buffer.position() + scanned; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n')
+                return i;
+        }
+        scanned = buffer.remaining();
+        return -1;
+    }
+
+    // keeps the partial line and reads the next chunk behind it
+    private void fill() throws IOException {
+        buffer.compact();
+        if (!buffer.hasRemaining())
+            throw new IOException("Trace line " + (line + 1) + " is longer than " + buffer.capacity() + " bytes");
+        if (channel.read(buffer) < 0)
+            eof = true;
+        buffer.flip();
+    }
+
+    // null for lines without a record
+    private TraceRecord parse(int start, int end) throws IOException {
+        while (end > start && isBlank(buffer.get(end - 1)))
+            end--;
+        start = skipBlanks(start, end);
+        if (start == end || buffer.get(start) == '#')
+            return null;
+
+        int comma = indexOf(',', start, end);
+        int timeEnd = comma < 0 ? end : comma;
+        if (!isDigit(buffer.get(start))) {
+            if (line == 1)
+                return null; // header
+            throw error("time expected");
+        }
+        long time = parseLong(start, trimEnd(start, timeEnd));
+
+        int rgb = TraceRecord.NO_COLOR;
+        String queue = null;
+        if (comma >= 0) {
+            int colorStart = skipBlanks(comma + 1, end);
+            int next = indexOf(',', colorStart, end);
+            int colorEnd = trimEnd(colorStart, next < 0 ? end : next);
+            if (colorEnd > colorStart)
+                rgb = parseColor(colorStart, colorEnd);
+            if (next >= 0) {
+                int queueStart = skipBlanks(next + 1, end);
+                if (end > queueStart)
+                    queue = string(queueStart, end);
+            }
+        }
+        return new TraceRecord(time, rgb, queue);
+    }
+
+    private long parseLong(int start, int end) throws IOException {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (!isDigit(b))
+                throw error("bad time");
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    // #RRGGBB
+    private int parseColor(int start, int end) throws IOException {
+        if (end - start != 7 || buffer.get(start) != '#')
+            throw error("color must look like #RRGGBB");
+        int rgb = 0;
+        for (int i = start + 1; i < end; i++) {
+            int digit = Character.digit(buffer.get(i), 16);
+            if (digit < 0)
+                throw error("color must look like #RRGGBB");
+            rgb = rgb << 4 | digit;
+        }
+        return rgb;
+    }
+
+    private String string(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int indexOf(char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == c)
+                return i;
+        }
+        return -1;
+    }
+
+    private int skipBlanks(int start, int end) {
+        while (start < end && isBlank(buffer.get(start)))
+            start++;
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && isBlank(buffer.get(end - 1)))
+            end--;
+        return end;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private IOException error(String message) {
+        return new IOException("Trace line " + line + ": " + message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
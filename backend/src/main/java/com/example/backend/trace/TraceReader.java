@@ -0,0 +1,28 @@
+package com.example.backend.trace;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams the records of an arrival trace in file order. Readers hold at most
+ * a chunk or a mapped window of the file, so traces of any size can drive a run.
+ */
+public interface TraceReader extends Closeable {
+
+    // the next record, null at the end of the trace
+    TraceRecord next() throws IOException;
+
+    // binary traces are told apart by their magic number, anything else is read as CSV
+    static TraceReader open(Path path) throws IOException {
+        int magic = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            if (Files.size(path) >= Integer.BYTES)
+                magic = new DataInputStream(in).readInt();
+        }
+        return magic == BinaryTraceReader.MAGIC ? new BinaryTraceReader(path) : new CsvTraceReader(path);
+    }
+}
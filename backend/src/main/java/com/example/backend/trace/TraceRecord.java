@@ -0,0 +1,11 @@
+package com.example.backend.trace;
+
+/**
+ * One arrival of a trace: when it happens in trace milliseconds, the product
+ * color as 0xRRGGBB (or {@link #NO_COLOR} to draw one) and the entry queue id
+ * (null for the first queue of the graph).
+ */
+public record TraceRecord(long timeMillis, int rgb, String queue) {
+
+    public static final int NO_COLOR = -1;
+}
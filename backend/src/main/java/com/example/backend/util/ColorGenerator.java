@@ -1,16 +1,66 @@
 package com.example.backend.util;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Product colors as packed 0xRRGGBB ints from a fixed palette of 4096
+ * colors (16 levels per channel). Every palette entry has one shared hex
+ * string, so showing a generated color never formats or allocates anything.
+ * Colors from outside the palette, such as those of a trace, are shown
+ * exactly; the first few thousand of them are cached the same way.
+ */
 public class ColorGenerator {
 
-    private static final Random random = new Random();
+    private static final int LEVELS = 16;
+    private static final String[] HEX = new String[LEVELS * LEVELS * LEVELS];
+    private static final int MAX_OTHER = 4096;
+    // off-palette colors seen so far, up to MAX_OTHER of them; later ones are formatted on each call
+    private static final ConcurrentHashMap<Integer, String> OTHER = new ConcurrentHashMap<>();
 
-    public String randomHexColor() {
-        int r = random.nextInt(256);
-        int g = random.nextInt(256);
-        int b = random.nextInt(256);
+    static {
+        for (int i = 0; i < HEX.length; i++) {
+            HEX[i] = String.format("#%06X", rgbOf(i));
+        }
+    }
+
+    private ColorGenerator() {
+    }
+
+    public static int randomRgb() {
+        return rgbOf(ThreadLocalRandom.current().nextInt(HEX.length));
+    }
+
+    // from a seeded generator, so a seeded run also repeats its colors
+    public static int randomRgb(SplittableRandom random) {
+        return rgbOf(random.nextInt(HEX.length));
+    }
+
+    // "#RRGGBB", shared by every product of a palette color
+    public static String toHex(int rgb) {
+        int index = indexOf(rgb);
+        if (rgbOf(index) == rgb)
+            return HEX[index];
+
+        String hex = OTHER.get(rgb);
+        if (hex == null) {
+            hex = String.format("#%06X", rgb);
+            if (OTHER.size() < MAX_OTHER)
+                OTHER.putIfAbsent(rgb, hex);
+        }
+        return hex;
+    }
+
+    // each 4-bit level becomes a full channel value, 0x0 -> 0x00 ... 0xF -> 0xFF
+    private static int rgbOf(int index) {
+        int r = (index >> 8) & 0xF;
+        int g = (index >> 4) & 0xF;
+        int b = index & 0xF;
+        return (r * 0x11) << 16 | (g * 0x11) << 8 | (b * 0x11);
+    }
 
-        return String.format("#%02X%02X%02X", r, g, b);
+    private static int indexOf(int rgb) {
+        return ((rgb >> 20) & 0xF) << 8 | ((rgb >> 12) & 0xF) << 4 | ((rgb >> 4) & 0xF);
     }
 }
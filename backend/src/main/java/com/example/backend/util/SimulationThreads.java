@@ -0,0 +1,50 @@
+package com.example.backend.util;
+
+import com.example.backend.service.ExecutorMode;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Starts simulation threads in the configured {@link ExecutorMode}.
+ * The project compiles for Java 17, so virtual threads are looked up
+ * reflectively and the platform mode is used when the runtime has none.
+ */
+public final class SimulationThreads {
+
+    private static final ThreadFactory VIRTUAL_FACTORY = lookupVirtualFactory();
+
+    private SimulationThreads() {
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    public static ExecutorMode effectiveMode(ExecutorMode requested) {
+        if (requested == ExecutorMode.VIRTUAL && !virtualThreadsSupported())
+            return ExecutorMode.PLATFORM;
+        return requested;
+    }
+
+    public static Thread start(ExecutorMode mode, String name, Runnable task) {
+        Thread thread;
+        if (effectiveMode(mode) == ExecutorMode.VIRTUAL) {
+            thread = VIRTUAL_FACTORY.newThread(task);
+            thread.setName(name);
+        } else {
+            thread = new Thread(task, name);
+        }
+        thread.start();
+        return thread;
+    }
+
+    private static ThreadFactory lookupVirtualFactory() {
+        try {
+            // Thread.ofVirtual().factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
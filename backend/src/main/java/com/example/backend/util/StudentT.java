@@ -0,0 +1,67 @@
+package com.example.backend.util;
+
+/**
+ * Critical values of Student's t distribution for confidence intervals over
+ * a handful of replications. The distribution function of integer degrees
+ * of freedom is a finite series (Abramowitz and Stegun 26.7.3 and 26.7.4),
+ * so the quantile is found by bisection without a statistics library.
+ */
+public final class StudentT {
+
+    private StudentT() {
+    }
+
+    // t with P(|T| < t) = confidence, the half-width factor of a two-sided interval
+    public static double critical(double confidence, int degreesOfFreedom) {
+        if (!(confidence > 0 && confidence < 1))
+            throw new IllegalArgumentException("Confidence must be between 0 and 1: " + confidence);
+        if (degreesOfFreedom < 1)
+            throw new IllegalArgumentException("Degrees of freedom must be at least 1: " + degreesOfFreedom);
+
+        double low = 0;
+        double high = 1;
+        while (centralProbability(high, degreesOfFreedom) < confidence) {
+            low = high;
+            high *= 2;
+        }
+        for (int i = 0; i < 100 && high - low > 1e-12; i++) {
+            double mid = (low + high) / 2;
+            if (centralProbability(mid, degreesOfFreedom) < confidence) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    // P(|T| < t) for t >= 0
+    static double centralProbability(double t, int df) {
+        double theta = Math.atan(t / Math.sqrt(df));
+        double cos = Math.cos(theta);
+        double cos2 = cos * cos;
+
+        if (df % 2 == 0) {
+            // sin(theta) * (1 + 1/2 cos^2 + 1*3/(2*4) cos^4 + ... up to cos^(df-2))
+            double term = 1;
+            double sum = 1;
+            for (int k = 0; 2 * k + 2 <= df - 2; k++) {
+                term *= cos2 * (2 * k + 1) / (2 * k + 2);
+                sum += term;
+            }
+            return Math.sin(theta) * sum;
+        }
+
+        // 2/pi * (theta + sin(theta) * (cos + 2/3 cos^3 + ... up to cos^(df-2))), no series for df = 1
+        double sum = 0;
+        if (df > 1) {
+            double term = cos;
+            sum = cos;
+            for (int k = 0; 2 * k + 3 <= df - 2; k++) {
+                term *= cos2 * (2 * k + 2) / (2 * k + 3);
+                sum += term;
+            }
+        }
+        return 2 / Math.PI * (theta + Math.sin(theta) * sum);
+    }
+}
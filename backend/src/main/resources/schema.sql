@@ -0,0 +1,24 @@
+-- stored simulation runs, written by RunStore; a run's graph is kept so it can be rebuilt for replay
+CREATE TABLE IF NOT EXISTS sim_run (
+    id                 BIGINT PRIMARY KEY,
+    session_id         VARCHAR(64) NOT NULL,
+    engine             VARCHAR(32) NOT NULL,
+    product_count      INT NOT NULL,
+    started_at         BIGINT NOT NULL,
+    stopped_at         BIGINT,
+    products_generated BIGINT DEFAULT 0 NOT NULL,
+    products_at_sinks  BIGINT DEFAULT 0 NOT NULL,
+    frames             BIGINT DEFAULT 0 NOT NULL,
+    simulated_millis   BIGINT DEFAULT 0 NOT NULL,
+    truncated          BOOLEAN DEFAULT FALSE NOT NULL,
+    graph              CLOB NOT NULL
+);
+
+-- the history deltas of a run in recording order
+CREATE TABLE IF NOT EXISTS sim_run_frame (
+    run_id             BIGINT NOT NULL,
+    seq                BIGINT NOT NULL,
+    time_millis        BIGINT NOT NULL,
+    delta              BLOB NOT NULL,
+    PRIMARY KEY (run_id, seq)
+);
@@ -0,0 +1,344 @@
+package com.example.backend.engine;
+
+import com.example.backend.InputGenerator;
+import com.example.backend.model.Machine;
+import com.example.backend.model.ProductEventLog;
+import com.example.backend.model.ProductEventType;
+import com.example.backend.model.ProductFlow;
+import com.example.backend.model.SimQueue;
+import com.example.backend.model.buffer.LinkedProductBuffer;
+import com.example.backend.model.distribution.ConstantDistribution;
+import com.example.backend.model.distribution.ExponentialDistribution;
+import com.example.backend.model.distribution.LogNormalDistribution;
+import com.example.backend.model.routing.RoundRobinRouting;
+import com.example.backend.snapshot.SimulationSnapshot;
+import com.example.backend.trace.TraceReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiscreteEventEngineTest {
+
+    @Test
+    void runsEveryProductThroughTheGraphOnVirtualTime() {
+        SimQueue q0 = new SimQueue("Q0");
+        SimQueue q1 = new SimQueue("Q1");
+        SimQueue q2 = new SimQueue("Q2");
+
+        Machine m1 = new Machine("M1");
+        m1.getInputQueues().add(q0);
+        m1.getOutputQueues().add(q1);
+        Machine m2 = new Machine("M2");
+        m2.getInputQueues().add(q0);
+        m2.getOutputQueues().add(q1);
+        Machine m3 = new Machine("M3");
+        m3.getInputQueues().add(q1);
+        m3.getOutputQueues().add(q2);
+
+        List<Long> frames = new ArrayList<>();
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(m1, m2, m3),
+                new InputGenerator(q0, 10_000), frames::add);
+        engine.run();
+
+        assertThat(q2.size()).isEqualTo(10_000);
+        assertThat(q0.size()).isZero();
+        assertThat(q1.size()).isZero();
+        // 10k arrivals at least a second apart cannot fit into less than 10k simulated seconds
+        assertThat(engine.getVirtualTime()).isGreaterThan(10_000_000L);
+        assertThat(frames).isSorted();
+        assertThat(frames.get(frames.size() - 1)).isEqualTo(engine.getVirtualTime());
+    }
+
+    @Test
+    void sameSeedRepeatsTheRunExactly() {
+        List<String> first = new ArrayList<>();
+        long firstTime = seededRun(42, first);
+        List<String> second = new ArrayList<>();
+        long secondTime = seededRun(42, second);
+        List<String> other = new ArrayList<>();
+        long otherTime = seededRun(7, other);
+
+        assertThat(secondTime).isEqualTo(firstTime);
+        assertThat(second).isEqualTo(first);
+        assertThat(otherTime).isNotEqualTo(firstTime);
+    }
+
+    @Test
+    void fullQueuesBlockUpstreamInsteadOfGrowing() {
+        SimQueue q0 = new SimQueue("Q0", new LinkedProductBuffer(), 4);
+        SimQueue q1 = new SimQueue("Q1", new LinkedProductBuffer(), 2);
+        SimQueue q2 = new SimQueue("Q2");
+
+        Machine fast = new Machine("fast");
+        fast.getInputQueues().add(q0);
+        fast.getOutputQueues().add(q1);
+        fast.setServiceTime(new ConstantDistribution(100));
+        Machine slow = new Machine("slow");
+        slow.getInputQueues().add(q1);
+        slow.getOutputQueues().add(q2);
+        slow.setServiceTime(new ConstantDistribution(5_000));
+
+        int[] peak = new int[2];
+        InputGenerator input = new InputGenerator(q0, 200, new ConstantDistribution(50), new SplittableRandom(1));
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(fast, slow), input, t -> {
+            peak[0] = Math.max(peak[0], q0.size());
+            peak[1] = Math.max(peak[1], q1.size());
+        });
+        engine.run();
+
+        assertThat(q2.size()).isEqualTo(200);
+        assertThat(peak[0]).isLessThanOrEqualTo(4);
+        assertThat(peak[1]).isLessThanOrEqualTo(2);
+        // the slow stage sets the pace, so the fast one spends most of the run holding a finished product
+        assertThat(fast.getBlockedNanos()).isGreaterThan(fast.getBusyNanos());
+        assertThat(slow.getBlockedNanos()).isZero();
+        assertThat(engine.getVirtualTime()).isGreaterThanOrEqualTo(200 * 5_200L);
+    }
+
+    @Test
+    void multiServerMachineKeepsPaceWithAsManyMachines() {
+        SimQueue q0 = new SimQueue("Q0");
+        SimQueue q1 = new SimQueue("Q1");
+        Machine station = new Machine("station");
+        station.getInputQueues().add(q0);
+        station.getOutputQueues().add(q1);
+        station.setServiceTime(new ConstantDistribution(1_000));
+        station.setServers(3);
+
+        InputGenerator input = new InputGenerator(q0, 300, new ConstantDistribution(100), new SplittableRandom(1));
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(station), input, t -> { });
+        engine.run();
+
+        List<Machine> separate = new ArrayList<>();
+        SimQueue p0 = new SimQueue("Q0");
+        SimQueue p1 = new SimQueue("Q1");
+        for (int i = 0; i < 3; i++) {
+            Machine m = new Machine("M" + i);
+            m.getInputQueues().add(p0);
+            m.getOutputQueues().add(p1);
+            m.setServiceTime(new ConstantDistribution(1_000));
+            separate.add(m);
+        }
+        InputGenerator separateInput = new InputGenerator(p0, 300, new ConstantDistribution(100), new SplittableRandom(1));
+        DiscreteEventEngine reference = new DiscreteEventEngine(separate, separateInput, t -> { });
+        reference.run();
+
+        assertThat(q1.size()).isEqualTo(300);
+        assertThat(engine.getVirtualTime()).isEqualTo(reference.getVirtualTime());
+        // 1000 ms of service per product, spread over three servers
+        assertThat(station.getServiceNanos()).isEqualTo(300 * 1_000_000_000L);
+        assertThat(station.getBusyNanos()).isLessThan(station.getServiceNanos());
+    }
+
+    @Test
+    void batchMachineServesAndEmitsProductsTogether() {
+        SimQueue q0 = new SimQueue("Q0");
+        SimQueue q1 = new SimQueue("Q1", new LinkedProductBuffer(), 3);
+        SimQueue q2 = new SimQueue("Q2");
+
+        Machine oven = new Machine("oven");
+        oven.getInputQueues().add(q0);
+        oven.getOutputQueues().add(q1);
+        oven.setServiceTime(new ConstantDistribution(1_000));
+        oven.setBatchSize(5);
+        Machine packer = new Machine("packer");
+        packer.getInputQueues().add(q1);
+        packer.getOutputQueues().add(q2);
+        packer.setServiceTime(new ConstantDistribution(10));
+
+        InputGenerator input = new InputGenerator(q0, 100, new ConstantDistribution(10), new SplittableRandom(1));
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(oven, packer), input, t -> { });
+        engine.run();
+
+        assertThat(q2.size()).isEqualTo(100);
+        // one product at a time the oven alone would need 100 services
+        assertThat(engine.getVirtualTime()).isLessThan(40 * 1_200L);
+    }
+
+    @Test
+    void flowCountsProductsIntoEverySink() {
+        SimQueue q0 = new SimQueue("Q0");
+        SimQueue left = new SimQueue("left");
+        SimQueue right = new SimQueue("right");
+        left.setSink(true);
+        right.setSink(true);
+
+        Machine splitter = new Machine("splitter");
+        splitter.getInputQueues().add(q0);
+        splitter.getOutputQueues().add(left);
+        splitter.getOutputQueues().add(right);
+        splitter.setRouting(new RoundRobinRouting());
+        splitter.setServers(2);
+
+        int[] completions = new int[1];
+        ProductFlow flow = new ProductFlow(500, () -> completions[0]++);
+        splitter.setFlow(flow);
+        InputGenerator input = new InputGenerator(q0, 500);
+        input.setFlow(flow);
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(splitter), input, t -> { });
+        engine.run();
+
+        // neither sink alone ever holds all products
+        assertThat(left.size()).isEqualTo(250);
+        assertThat(right.size()).isEqualTo(250);
+        assertThat(completions[0]).isEqualTo(1);
+        assertThat(flow.getGenerated()).isEqualTo(500);
+        assertThat(flow.getAtSinks()).isEqualTo(500);
+        assertThat(flow.getQueued()).isZero();
+        assertThat(flow.getInMachines()).isZero();
+    }
+
+    @Test
+    void traceDrivesArrivalsIntoTheirEntryQueues(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("shift.csv");
+        Files.writeString(file, "1000,#FF0000,A\n1000,#00FF00,B\n4000,#0000FF,A\n4000,,B\n");
+        SimQueue a = new SimQueue("A");
+        SimQueue b = new SimQueue("B");
+        SimQueue done = new SimQueue("done");
+        done.setSink(true);
+        Machine ma = new Machine("MA");
+        ma.getInputQueues().add(a);
+        ma.getOutputQueues().add(done);
+        ma.setServiceTime(new ConstantDistribution(100));
+        Machine mb = new Machine("MB");
+        mb.getInputQueues().add(b);
+        mb.getOutputQueues().add(done);
+        mb.setServiceTime(new ConstantDistribution(100));
+
+        ProductFlow flow = new ProductFlow(-1, null);
+        InputGenerator input = InputGenerator.fromTrace(a, 0, TraceReader.open(file), Map.of("A", a, "B", b),
+                new SplittableRandom(1));
+        input.setFlow(flow);
+        ma.setFlow(flow);
+        mb.setFlow(flow);
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(ma, mb), input, t -> { });
+        engine.run();
+
+        assertThat(done.size()).isEqualTo(4);
+        assertThat(flow.isComplete()).isTrue();
+        assertThat(flow.getExpected()).isEqualTo(4);
+        // the last arrivals come 3 s after the first ones, which come after the start delay
+        assertThat(engine.getVirtualTime()).isEqualTo(InputGenerator.START_DELAY + 3_000 + 100 + Machine.FLASH_TIME);
+        List<String> colors = new ArrayList<>();
+        done.getProducts().forEach(p -> colors.add(p.getColor()));
+        assertThat(colors.subList(0, 3)).containsExactly("#FF0000", "#00FF00", "#0000FF");
+    }
+
+    @Test
+    void statisticsMeasureSojournAndQueueLengthInSimulatedTime() {
+        RunStatistics steady = measuredRun(100);
+        // every product is served right away: service plus the finish flash
+        assertThat(steady.getDeparted()).isEqualTo(10);
+        assertThat(steady.meanSojourn()).isEqualTo(100.0 + Machine.FLASH_TIME);
+        assertThat(steady.sojournPercentile(0.99)).isEqualTo(100 + Machine.FLASH_TIME);
+        // from the first arrival, the start delay before it is left out
+        assertThat(steady.getElapsed()).isEqualTo(9 * 1_000 + 100 + Machine.FLASH_TIME);
+        // one product in the graph for 100 ms plus the flash out of every second
+        assertThat(steady.meanWip()).isEqualTo(10 * (100.0 + Machine.FLASH_TIME) / steady.getElapsed());
+        assertThat(steady.throughput()).isEqualTo(10 * 1000.0 / steady.getElapsed());
+        // the sink only fills up and is not reported
+        assertThat(steady.meanQueueLengths()).containsOnlyKeys("Q0").containsEntry("Q0", 0.0);
+
+        RunStatistics overloaded = measuredRun(1_500);
+        assertThat(overloaded.getDeparted()).isEqualTo(10);
+        assertThat(overloaded.meanQueueLengths().get("Q0")).isGreaterThan(0.0);
+        assertThat(overloaded.sojournPercentile(0.99)).isGreaterThan(overloaded.sojournPercentile(0.5));
+        assertThat(overloaded.sojournPercentile(0.5)).isGreaterThan(1_500 + Machine.FLASH_TIME);
+    }
+
+    @Test
+    void eventLogFollowsEveryProductAndRebuildsAnyMoment() {
+        SimQueue q0 = new SimQueue("Q0");
+        SimQueue done = new SimQueue("done");
+        Machine machine = new Machine("M");
+        machine.getInputQueues().add(q0);
+        machine.getOutputQueues().add(done);
+        machine.setServiceTime(new ConstantDistribution(1_500));
+        InputGenerator input = new InputGenerator(q0, 10, new ConstantDistribution(1_000), new SplittableRandom(1));
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(machine), input, t -> { });
+
+        ProductEventLog log = new ProductEventLog(List.of("Q0", "done"), List.of("M"), 1_000, engine::getVirtualTime);
+        q0.setEventLog(log);
+        q0.setEventNode(log.queueNode(0));
+        done.setEventLog(log);
+        done.setEventNode(log.queueNode(1));
+        machine.setEventLog(log);
+        machine.setEventNode(log.machineNode(0));
+        input.setEventLog(log);
+        engine.run();
+
+        // six events per product: generated, into Q0, out of it, served and into done
+        assertThat(log.size()).isEqualTo(60);
+        List<Long> ids = new ArrayList<>();
+        List<String> colors = new ArrayList<>();
+        done.getProducts().forEach(p -> {
+            ids.add(p.getId());
+            colors.add(p.getColor());
+        });
+        List<ProductEventLog.Event> journey = log.productEvents(ids.get(0));
+        assertThat(journey).extracting(ProductEventLog.Event::type).containsExactly(ProductEventType.GENERATED,
+                ProductEventType.ENQUEUED, ProductEventType.DEQUEUED, ProductEventType.SERVICE_START,
+                ProductEventType.SERVICE_END, ProductEventType.ENQUEUED);
+        assertThat(journey).extracting(ProductEventLog.Event::time).containsExactly(2_000L, 2_000L, 2_000L, 2_000L,
+                3_500L, 3_700L);
+
+        // arrivals at 2, 3, 4 and 5 s; each product holds the machine for 1.5 s plus the finish flash
+        SimulationSnapshot busy = log.snapshotAt(5_500);
+        assertThat(busy.getQueueSizes()).containsEntry("Q0", 1).containsEntry("done", 2);
+        assertThat(busy.getMachineStates()).containsEntry("M", "BUSY");
+        assertThat(log.snapshotAt(3_600).getMachineStates()).containsEntry("M", "IDLE");
+        SimulationSnapshot end = log.snapshotAt(engine.getVirtualTime());
+        assertThat(end.getQueueSizes()).containsEntry("Q0", 0).containsEntry("done", 10);
+        assertThat(end.getQueueProductColors().get("done")).isEqualTo(colors);
+    }
+
+    // ten arrivals a second apart into one machine with a constant service time
+    private RunStatistics measuredRun(long serviceMillis) {
+        SimQueue q0 = new SimQueue("Q0");
+        SimQueue done = new SimQueue("done");
+        done.setSink(true);
+        Machine machine = new Machine("M");
+        machine.getInputQueues().add(q0);
+        machine.getOutputQueues().add(done);
+        machine.setServiceTime(new ConstantDistribution(serviceMillis));
+
+        RunStatistics statistics = new RunStatistics(List.of(q0, done));
+        DiscreteEventEngine engine = new DiscreteEventEngine(List.of(machine),
+                new InputGenerator(q0, 10, new ConstantDistribution(1_000), new SplittableRandom(1)), t -> { });
+        engine.setStatistics(statistics);
+        engine.run();
+        return statistics;
+    }
+
+    // colors in the final queue, in arrival order; returns the simulated duration
+    private long seededRun(long seed, List<String> finished) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SimQueue q0 = new SimQueue("Q0");
+        SimQueue q1 = new SimQueue("Q1");
+        InputGenerator input = new InputGenerator(q0, 1_000, new ExponentialDistribution(500), root.split());
+
+        List<Machine> machines = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Machine m = new Machine("M" + i);
+            m.getInputQueues().add(q0);
+            m.getOutputQueues().add(q1);
+            m.setServiceTime(new LogNormalDistribution(1200, 400));
+            m.setRandom(root.split());
+            machines.add(m);
+        }
+
+        DiscreteEventEngine engine = new DiscreteEventEngine(machines, input, t -> { });
+        engine.run();
+        q1.getProducts().forEach(p -> finished.add(p.getColor()));
+        assertThat(finished).hasSize(1_000);
+        return engine.getVirtualTime();
+    }
+}
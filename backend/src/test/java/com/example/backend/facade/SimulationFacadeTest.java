@@ -0,0 +1,98 @@
+package com.example.backend.facade;
+
+import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.DistributionDTO;
+import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.model.distribution.DistributionType;
+import com.example.backend.service.SimulationStateService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimulationFacadeTest {
+
+    private final SimulationFacade facade = new SimulationFacade();
+
+    @Test
+    void unknownServiceTimeMachineLeavesTheGraphUntouched() {
+        SimulationStateService state = connectedGraph();
+        ObjectInitDTO broken = graph();
+        broken.setServiceTimes(Map.of("M9", constant(10.0)));
+
+        assertThatThrownBy(() -> facade.initializeObjects(state, broken))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("M9");
+        assertUntouched(state);
+    }
+
+    @Test
+    void missingTraceLeavesTheGraphUntouched() {
+        SimulationStateService state = connectedGraph();
+        ObjectInitDTO broken = graph();
+        broken.setTrace("no-such-trace.csv");
+
+        assertThatThrownBy(() -> facade.initializeObjects(state, broken))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no-such-trace.csv");
+        assertThatThrownBy(() -> facade.initializeObjects(state, withTrace("../outside.csv")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("inside");
+        assertUntouched(state);
+    }
+
+    @Test
+    void badServersOrBatchSizesLeaveTheGraphUntouched() {
+        SimulationStateService state = connectedGraph();
+        ObjectInitDTO unknownServers = graph();
+        unknownServers.setServers(Map.of("M9", 2));
+        ObjectInitDTO noServers = graph();
+        noServers.setServers(Map.of("M1", 0));
+        ObjectInitDTO unknownBatch = graph();
+        unknownBatch.setBatchSizes(Map.of("M9", 2));
+        ObjectInitDTO emptyBatch = graph();
+        emptyBatch.setBatchSizes(Map.of("M1", 0));
+
+        for (ObjectInitDTO broken : List.of(unknownServers, noServers, unknownBatch, emptyBatch)) {
+            assertThatThrownBy(() -> facade.initializeObjects(state, broken))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertUntouched(state);
+    }
+
+    // Q0 -> M1 -> Q1
+    private SimulationStateService connectedGraph() {
+        SimulationStateService state = new SimulationStateService();
+        facade.initializeObjects(state, graph());
+        facade.connectComponents(state, List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                new ConnectionDTO("M1", "Q1", "OUTPUT")));
+        return state;
+    }
+
+    private static void assertUntouched(SimulationStateService state) {
+        assertThat(state.getQueues()).containsOnlyKeys("Q0", "Q1");
+        assertThat(state.getMachines()).containsOnlyKeys("M1");
+        assertThat(state.getMachines().get("M1").getInputQueues()).hasSize(1);
+        assertThat(state.getMachines().get("M1").getOutputQueues()).hasSize(1);
+    }
+
+    private static ObjectInitDTO graph() {
+        ObjectInitDTO graph = new ObjectInitDTO();
+        graph.setQueues(List.of("Q0", "Q1"));
+        graph.setMachines(List.of("M1"));
+        return graph;
+    }
+
+    private static ObjectInitDTO withTrace(String trace) {
+        ObjectInitDTO graph = graph();
+        graph.setTrace(trace);
+        return graph;
+    }
+
+    private static DistributionDTO constant(double millis) {
+        return new DistributionDTO(DistributionType.CONSTANT, millis, null, null, null, null, null);
+    }
+}
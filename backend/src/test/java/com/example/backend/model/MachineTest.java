@@ -0,0 +1,82 @@
+package com.example.backend.model;
+
+import com.example.backend.model.distribution.ConstantDistribution;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class MachineTest {
+
+    @Test
+    void serversShareOneThread() throws Exception {
+        SimQueue in = new SimQueue("in");
+        SimQueue out = new SimQueue("out");
+        Machine machine = new Machine("M");
+        machine.getInputQueues().add(in);
+        machine.getOutputQueues().add(out);
+        machine.setServiceTime(new ConstantDistribution(300));
+        machine.setServers(4);
+        in.attach(machine);
+        for (int i = 0; i < 8; i++) {
+            in.put(new Product());
+        }
+
+        machine.setRunning(true);
+        Thread thread = new Thread(machine);
+        long start = System.nanoTime();
+        thread.start();
+        while (out.size() < 8 && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10)) {
+            Thread.sleep(10);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        machine.stopMachine();
+        machine.wakeUp();
+        thread.interrupt();
+        thread.join(1_000);
+
+        assertThat(out.size()).isEqualTo(8);
+        // two rounds of four; one server alone would need 8 x (300 + 200) ms
+        assertThat(elapsed).isLessThan(2_000);
+        assertThat(thread.isAlive()).isFalse();
+    }
+
+    @Test
+    void batchLeavesTogether() throws Exception {
+        SimQueue in = new SimQueue("in");
+        SimQueue out = new SimQueue("out");
+        Machine machine = new Machine("M");
+        machine.getInputQueues().add(in);
+        machine.getOutputQueues().add(out);
+        machine.setServiceTime(new ConstantDistribution(100));
+        machine.setBatchSize(3);
+        for (int i = 0; i < 3; i++) {
+            in.put(new Product());
+        }
+
+        assertThat(machine.pollBatch()).hasSize(3);
+        assertThat(machine.pollBatch()).isEmpty();
+    }
+
+    @Test
+    void connectedNodesPrintAndHashWithoutWalkingTheGraph() {
+        SimQueue in = new SimQueue("in");
+        SimQueue out = new SimQueue("out");
+        Machine machine = new Machine("M");
+        machine.getInputQueues().add(in);
+        machine.getOutputQueues().add(out);
+        in.attach(machine);
+        out.attach(machine); // a cycle back into the same machine
+
+        assertThat(machine.toString()).contains("M");
+        assertThat(in.toString()).contains("in");
+        assertThatCode(() -> {
+            machine.hashCode();
+            in.hashCode();
+            out.hashCode();
+        }).doesNotThrowAnyException();
+        assertThat(in).isNotEqualTo(out);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductEventLogTest {
+
+    @Test
+    void recordsSpanSegmentsAndEventsPastTheCapacityAreDropped() {
+        AtomicLong time = new AtomicLong();
+        long capacity = ProductEventLog.SEGMENT_RECORDS + 10;
+        ProductEventLog log = new ProductEventLog(List.of("Q0"), List.of("M"), capacity, time::getAndIncrement);
+        Product product = new Product(0x123456);
+        for (int i = 0; i < capacity + 5; i++) {
+            log.append(ProductEventType.ENQUEUED, product, log.queueNode(0));
+        }
+
+        assertThat(log.size()).isEqualTo(capacity);
+        assertThat(log.getAppended()).isEqualTo(capacity + 5);
+        assertThat(log.getDropped()).isEqualTo(5);
+        ProductEventLog.Event event = log.get(ProductEventLog.SEGMENT_RECORDS + 1);
+        assertThat(event).isEqualTo(new ProductEventLog.Event(ProductEventLog.SEGMENT_RECORDS + 1,
+                ProductEventType.ENQUEUED, product.getId(), "Q0", ProductEventLog.SEGMENT_RECORDS + 1, 0x123456));
+        assertThat(log.get(capacity)).isNull();
+        assertThat(log.events(capacity - 2, 100)).hasSize(2);
+    }
+
+    @Test
+    void colorBitsNeverOverwriteTheEventType() {
+        ProductEventLog log = new ProductEventLog(List.of("Q0"), List.of("M"), 10, () -> 0);
+        Product product = new Product(0xFF123456);
+        log.append(ProductEventType.ENQUEUED, product, log.queueNode(0));
+
+        assertThat(log.get(0).type()).isEqualTo(ProductEventType.ENQUEUED);
+        assertThat(log.get(0).rgb()).isEqualTo(0x123456);
+    }
+
+    @Test
+    void concurrentAppendsAreAllKept() throws InterruptedException {
+        ProductEventLog log = new ProductEventLog(List.of("Q0"), List.of("M"), 1 << 20, () -> 0);
+        List<Thread> threads = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Product product = new Product();
+            products.add(product);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    log.append(i % 2 == 0 ? ProductEventType.SERVICE_START : ProductEventType.SERVICE_END, product,
+                            log.machineNode(0));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(log.size()).isEqualTo(80_000);
+        for (Product product : products) {
+            assertThat(log.productEvents(product.getId())).hasSize(20_000)
+                    .allMatch(event -> event.node().equals("M") && event.rgb() == product.getRgb());
+        }
+        // every start was matched by an end, nothing is in service at the end
+        assertThat(log.snapshotAt(0).getMachineStates()).containsEntry("M", "IDLE");
+        assertThat(log.snapshotAt(0).getQueueSizes()).containsEntry("Q0", 0);
+    }
+}
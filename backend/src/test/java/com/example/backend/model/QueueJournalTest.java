@@ -0,0 +1,94 @@
+package com.example.backend.model;
+
+import com.example.backend.model.buffer.QueueBackend;
+import com.example.backend.snapshot.QueueOps;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueueJournalTest {
+
+    @ParameterizedTest
+    @EnumSource(QueueBackend.class)
+    void drainedOpsRebuildTheBufferUnderContention(QueueBackend backend) throws Exception {
+        int producers = 4;
+        int consumers = 3;
+        int perProducer = 1_000; // 4000 distinct palette colors, so any reordering shows
+        int toTake = producers * perProducer / 2;
+        SimQueue queue = new SimQueue("Q0", backend.create(8192));
+        QueueJournal journal = queue.getJournal();
+        journal.requestResync();
+
+        ArrayDeque<String> shown = new ArrayDeque<>();
+        journal.drain(queue.getProducts()).applyTo(shown);
+
+        ExecutorService pool = Executors.newFixedThreadPool(producers + consumers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger remaining = new AtomicInteger(toTake);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = first; i < first + perProducer; i++) {
+                    queue.put(new Product(paletteRgb(i)));
+                }
+                return null;
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                while (remaining.get() > 0) {
+                    if (remaining.getAndDecrement() <= 0)
+                        break;
+                    while (queue.take() == null) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> recorder = pool.submit(() -> {
+            start.await();
+            while (running.get()) {
+                QueueOps ops = journal.drain(queue.getProducts());
+                ops.applyTo(shown);
+            }
+            return null;
+        });
+        start.countDown();
+
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        recorder.get(30, TimeUnit.SECONDS);
+        pool.shutdownNow();
+        journal.drain(queue.getProducts()).applyTo(shown);
+
+        List<String> held = new ArrayList<>();
+        queue.getProducts().forEach(p -> held.add(p.getColor()));
+        assertThat(held).hasSize(producers * perProducer - toTake);
+        assertThat(new ArrayList<>(shown)).containsExactlyElementsOf(held);
+    }
+
+    // the i-th of the 4096 palette colors
+    private static int paletteRgb(int i) {
+        return ((i >> 8) & 0xF) * 0x11 << 16 | ((i >> 4) & 0xF) * 0x11 << 8 | (i & 0xF) * 0x11;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimulationClockTest {
+
+    @Test
+    void fasterClockSleepsLessWallTime() throws Exception {
+        SimulationClock clock = new SimulationClock();
+        clock.restart(100);
+
+        long start = System.nanoTime();
+        clock.sleep(2_000);
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(wallMillis).isLessThan(500);
+        assertThat(clock.nanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(2_000));
+    }
+
+    @Test
+    void speedChangeKeepsSimulatedTimeContinuous() throws Exception {
+        SimulationClock clock = new SimulationClock();
+        clock.restart(1_000);
+        Thread.sleep(20);
+        long wallStart = System.nanoTime();
+        long before = clock.nanos();
+        clock.setSpeed(1);
+        long after = clock.nanos();
+        // at most everything in between ran at 1000x; a scheduler pause must not fail the test
+        long bound = 1_000 * (System.nanoTime() - wallStart);
+
+        assertThat(before).isGreaterThanOrEqualTo(TimeUnit.SECONDS.toNanos(20));
+        assertThat(after).isBetween(before, before + bound);
+    }
+
+    @Test
+    void speedChangeReachesAThreadAlreadyWaiting() throws Exception {
+        SimulationClock clock = new SimulationClock();
+        clock.restart(1);
+        Thread sleeper = new Thread(() -> {
+            try {
+                clock.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sleeper.start();
+        Thread.sleep(100);
+        clock.setSpeed(1_000);
+        sleeper.join(5_000);
+
+        assertThat(sleeper.isAlive()).isFalse();
+    }
+
+    @Test
+    void rejectsSpeedsThatStopOrReverseTime() {
+        SimulationClock clock = new SimulationClock();
+        assertThatThrownBy(() -> clock.setSpeed(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> clock.restart(-2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> clock.setSpeed(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
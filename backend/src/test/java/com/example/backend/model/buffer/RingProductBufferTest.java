@@ -0,0 +1,143 @@
+package com.example.backend.model.buffer;
+
+import com.example.backend.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingProductBufferTest {
+
+    @Test
+    void keepsFifoOrderAndReportsFull() {
+        RingProductBuffer ring = new RingProductBuffer(4);
+        Product a = new Product();
+        Product b = new Product();
+
+        assertThat(ring.offer(a)).isTrue();
+        assertThat(ring.offer(b)).isTrue();
+        assertThat(ring.offer(new Product())).isTrue();
+        assertThat(ring.offer(new Product())).isTrue();
+        assertThat(ring.offer(new Product())).isFalse();
+        assertThat(ring.size()).isEqualTo(4);
+
+        assertThat(ring.poll()).isSameAs(a);
+        assertThat(ring.poll()).isSameAs(b);
+        assertThat(ring.size()).isEqualTo(2);
+
+        ring.clear();
+        assertThat(ring.poll()).isNull();
+        assertThat(ring.isEmpty()).isTrue();
+    }
+
+    @Test
+    void deliversEveryProductExactlyOnceUnderContention() throws Exception {
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 20_000;
+        RingProductBuffer ring = new RingProductBuffer(64);
+        ExecutorService pool = Executors.newFixedThreadPool(producers + consumers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger remaining = new AtomicInteger(producers * perProducer);
+
+        List<Future<List<Product>>> taken = new ArrayList<>();
+        for (int c = 0; c < consumers; c++) {
+            taken.add(pool.submit(() -> {
+                List<Product> mine = new ArrayList<>();
+                start.await();
+                while (remaining.get() > 0) {
+                    Product product = ring.poll();
+                    if (product != null) {
+                        mine.add(product);
+                        remaining.decrementAndGet();
+                    }
+                }
+                return mine;
+            }));
+        }
+        for (int p = 0; p < producers; p++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    Product product = new Product();
+                    while (!ring.offer(product)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+
+        Set<Product> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int total = 0;
+        for (Future<List<Product>> future : taken) {
+            List<Product> products = future.get(30, TimeUnit.SECONDS);
+            total += products.size();
+            seen.addAll(products);
+        }
+        pool.shutdownNow();
+
+        assertThat(total).isEqualTo(producers * perProducer);
+        assertThat(seen).hasSize(producers * perProducer);
+        assertThat(ring.isEmpty()).isTrue();
+    }
+
+    @Test
+    void walkOnlySeesLiveSlotsInOrderWhileTheRingTurns() throws Exception {
+        int count = 10_000;
+        RingProductBuffer ring = new RingProductBuffer(8);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger taken = new AtomicInteger();
+
+        Future<?> producer = pool.submit(() -> {
+            start.await();
+            for (int i = 0; i < count; i++) {
+                Product product = new Product(); // ids rise in append order
+                while (!ring.offer(product)) {
+                    Thread.yield();
+                }
+            }
+            return null;
+        });
+        Future<?> consumer = pool.submit(() -> {
+            start.await();
+            while (taken.get() < count) {
+                if (ring.poll() != null)
+                    taken.incrementAndGet();
+                else
+                    Thread.yield();
+            }
+            return null;
+        });
+        start.countDown();
+
+        // a slot read from the wrong lap would show up out of order
+        int walks = 0;
+        while (taken.get() < count) {
+            List<Long> ids = new ArrayList<>();
+            ring.forEach(p -> ids.add(p.getId()));
+            assertThat(ids).hasSizeLessThanOrEqualTo(ring.capacity()).isSorted().doesNotHaveDuplicates();
+            walks++;
+            Thread.yield();
+        }
+        producer.get(30, TimeUnit.SECONDS);
+        consumer.get(30, TimeUnit.SECONDS);
+        pool.shutdownNow();
+
+        assertThat(walks).isPositive();
+        assertThat(ring.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.backend.model.distribution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DistributionTest {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void samplesMatchTheConfiguredMean() {
+        assertThat(mean(new ConstantDistribution(750))).isEqualTo(750.0);
+        assertThat(mean(new UniformDistribution(1000, 3000))).isCloseTo(1999.5, within(15.0));
+        assertThat(mean(new ExponentialDistribution(800))).isCloseTo(800.0, within(15.0));
+        assertThat(mean(new NormalDistribution(2000, 300))).isCloseTo(2000.0, within(15.0));
+        assertThat(mean(new LogNormalDistribution(1500, 600))).isCloseTo(1500.0, within(15.0));
+        assertThat(mean(new EmpiricalDistribution(List.of(100.0, 200.0, 600.0)))).isCloseTo(300.0, within(5.0));
+    }
+
+    @Test
+    void neverSamplesNegativeDurations() {
+        Distribution wide = new NormalDistribution(10, 100);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertThat(wide.sample(random)).isNotNegative();
+        }
+    }
+
+    @Test
+    void sameSeedGivesTheSameSequence() {
+        Distribution d = new LogNormalDistribution(1000, 500);
+        SplittableRandom a = new SplittableRandom(99);
+        SplittableRandom b = new SplittableRandom(99);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(d.sample(a)).isEqualTo(d.sample(b));
+        }
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThatThrownBy(() -> new UniformDistribution(3000, 1000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ExponentialDistribution(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EmpiricalDistribution(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static double mean(Distribution distribution) {
+        SplittableRandom random = new SplittableRandom(2024);
+        long sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            sum += distribution.sample(random);
+        }
+        return (double) sum / SAMPLES;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.backend.model.input;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class InputPolicyTest {
+
+    @Test
+    void inOrderDrainsTheFirstInputBeforeTheSecond() {
+        Machine machine = machineWithInputs(InputPolicyType.IN_ORDER, 3, 3);
+
+        assertThat(sources(machine, 3)).containsOnly(input(machine, 0));
+    }
+
+    @Test
+    void roundRobinAlternatesBetweenBusyInputs() {
+        Machine machine = machineWithInputs(InputPolicyType.ROUND_ROBIN, 3, 3);
+
+        assertThat(sources(machine, 4)).containsExactly(input(machine, 0), input(machine, 1),
+                input(machine, 0), input(machine, 1));
+    }
+
+    @Test
+    void longestQueueTakesFromTheFullestInput() {
+        Machine machine = machineWithInputs(InputPolicyType.LONGEST_QUEUE, 1, 4);
+
+        // 1 vs 4, then 1 vs 3, 1 vs 2; at 1 vs 1 the first input wins the tie
+        assertThat(sources(machine, 4)).containsExactly(input(machine, 1), input(machine, 1),
+                input(machine, 1), input(machine, 0));
+    }
+
+    @Test
+    void weightedFavoursTheHeavierInput() {
+        Machine machine = machineWithInputs(InputPolicyType.WEIGHTED, 0, 0);
+        machine.getInputWeights().put("Q1", 3.0);
+
+        Map<SimQueue, Integer> counts = new IdentityHashMap<>();
+        int n = 40_000;
+        for (int i = 0; i < n; i++) {
+            machine.getInputQueues().forEach(q -> q.put(new Product()));
+            Product taken = machine.pollInputs();
+            SimQueue from = input(machine, 0).size() == 0 ? input(machine, 0) : input(machine, 1);
+            counts.merge(from, 1, Integer::sum);
+            assertThat(taken).isNotNull();
+            machine.getInputQueues().forEach(q -> q.getProducts().clear());
+        }
+
+        assertThat(counts.get(input(machine, 1)) / (double) n).isCloseTo(0.75, within(0.01));
+    }
+
+    @Test
+    void emptyInputsGiveNothing() {
+        for (InputPolicyType type : InputPolicyType.values()) {
+            assertThat(machineWithInputs(type, 0, 0).pollInputs()).isNull();
+        }
+    }
+
+    // the input each of the next n products came from, told apart by which queue shrank
+    private static List<SimQueue> sources(Machine machine, int n) {
+        List<SimQueue> sources = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int[] before = machine.getInputQueues().stream().mapToInt(SimQueue::size).toArray();
+            assertThat(machine.pollInputs()).isNotNull();
+            for (int q = 0; q < before.length; q++) {
+                if (input(machine, q).size() < before[q]) {
+                    sources.add(input(machine, q));
+                }
+            }
+        }
+        return sources;
+    }
+
+    private static SimQueue input(Machine machine, int index) {
+        return machine.getInputQueues().get(index);
+    }
+
+    private static Machine machineWithInputs(InputPolicyType type, int... depths) {
+        Machine machine = new Machine("M");
+        for (int i = 0; i < depths.length; i++) {
+            SimQueue queue = new SimQueue("Q" + i);
+            for (int p = 0; p < depths[i]; p++) {
+                queue.put(new Product());
+            }
+            machine.getInputQueues().add(queue);
+        }
+        machine.setInputPolicy(type.create());
+        machine.setRandom(new SplittableRandom(3));
+        return machine;
+    }
+}
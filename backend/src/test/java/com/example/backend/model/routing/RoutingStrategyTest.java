@@ -0,0 +1,77 @@
+package com.example.backend.model.routing;
+
+import com.example.backend.model.Machine;
+import com.example.backend.model.Product;
+import com.example.backend.model.SimQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RoutingStrategyTest {
+
+    @Test
+    void roundRobinVisitsOutputsInTurn() {
+        Machine machine = machineWithOutputs(3, RoutingType.ROUND_ROBIN);
+
+        for (int round = 0; round < 2; round++) {
+            for (SimQueue expected : machine.getOutputQueues()) {
+                assertThat(machine.selectOutputQueue()).isSameAs(expected);
+            }
+        }
+    }
+
+    @Test
+    void shortestQueueAndPowerOfTwoAvoidAFullOutput() {
+        for (RoutingType type : new RoutingType[]{RoutingType.SHORTEST_QUEUE, RoutingType.POWER_OF_TWO}) {
+            Machine machine = machineWithOutputs(2, type);
+            SimQueue full = machine.getOutputQueues().get(0);
+            for (int i = 0; i < 5; i++) {
+                full.put(new Product());
+            }
+
+            for (int i = 0; i < 100; i++) {
+                assertThat(machine.selectOutputQueue()).isSameAs(machine.getOutputQueues().get(1));
+            }
+        }
+    }
+
+    @Test
+    void weightedSplitsInProportionToTheWeights() {
+        Machine machine = machineWithOutputs(3, RoutingType.WEIGHTED);
+        machine.getOutputWeights().put("Q0", 1.0);
+        machine.getOutputWeights().put("Q1", 3.0);
+        // Q2 keeps the default weight of 1
+
+        Map<SimQueue, Integer> counts = new IdentityHashMap<>();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            counts.merge(machine.selectOutputQueue(), 1, Integer::sum);
+        }
+
+        assertThat(counts.get(machine.getOutputQueues().get(0)) / (double) n).isCloseTo(0.2, within(0.01));
+        assertThat(counts.get(machine.getOutputQueues().get(1)) / (double) n).isCloseTo(0.6, within(0.01));
+        assertThat(counts.get(machine.getOutputQueues().get(2)) / (double) n).isCloseTo(0.2, within(0.01));
+    }
+
+    @Test
+    void noOutputsRoutesNowhere() {
+        for (RoutingType type : RoutingType.values()) {
+            assertThat(machineWithOutputs(0, type).selectOutputQueue()).isNull();
+        }
+    }
+
+    private static Machine machineWithOutputs(int outputs, RoutingType type) {
+        Machine machine = new Machine("M");
+        for (int i = 0; i < outputs; i++) {
+            machine.getOutputQueues().add(new SimQueue("Q" + i));
+        }
+        machine.setRouting(type.create());
+        machine.setRandom(new SplittableRandom(5));
+        return machine;
+    }
+}
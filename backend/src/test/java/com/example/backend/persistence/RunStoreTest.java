@@ -0,0 +1,183 @@
+package com.example.backend.persistence;
+
+import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.DistributionDTO;
+import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.dto.StoredRunDTO;
+import com.example.backend.facade.SimulationFacade;
+import com.example.backend.model.distribution.DistributionType;
+import com.example.backend.service.EngineType;
+import com.example.backend.session.SimulationSession;
+import com.example.backend.session.SimulationSessionRegistry;
+import com.example.backend.snapshot.SimulationSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class RunStoreTest {
+
+    @Autowired
+    private RunStore runStore;
+
+    @Autowired
+    private SimulationSessionRegistry sessions;
+
+    @Autowired
+    private SimulationFacade facade;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void storedRunLoadsBackIntoAnotherSessionWithTheSameHistory() throws InterruptedException {
+        SimulationSession recorded = sessions.create();
+        SimulationSession loaded = sessions.create();
+        try {
+            ObjectInitDTO graph = new ObjectInitDTO();
+            graph.setQueues(List.of("Q0", "Q1"));
+            graph.setMachines(List.of("M1"));
+            graph.setQueueCapacities(Map.of("Q0", 5));
+            graph.setSeed(3L);
+            graph.setArrivals(new DistributionDTO(DistributionType.CONSTANT, 10.0, null, null, null, null, null));
+            graph.setServiceTimes(Map.of("M1",
+                    new DistributionDTO(DistributionType.CONSTANT, 15.0, null, null, null, null, null)));
+            facade.initializeObjects(recorded.getState(), graph);
+            facade.connectComponents(recorded.getState(), List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                    new ConnectionDTO("M1", "Q1", "OUTPUT")));
+
+            recorded.getLifecycle().startSimulation(40, EngineType.DISCRETE_EVENT);
+            StoredRunDTO run = awaitFinished(recorded.getId());
+
+            List<SimulationSnapshot> history = recorded.getSnapshots().getHistory();
+            assertThat(run.getFrames()).isEqualTo(history.size());
+            assertThat(run.getAtSinks()).isEqualTo(40);
+            assertThat(run.isTruncated()).isFalse();
+
+            runStore.load(run.getId(), loaded.getState(), loaded.getSnapshots());
+            List<SimulationSnapshot> replayed = loaded.getSnapshots().getHistory();
+            assertThat(loaded.getState().getQueues()).containsOnlyKeys("Q0", "Q1");
+            assertThat(loaded.getState().getQueues().get("Q0").getCapacity()).isEqualTo(5);
+            assertThat(replayed).hasSameSizeAs(history);
+            for (int i = 0; i < history.size(); i += 7) {
+                assertThat(replayed.get(i).getQueueProductColors()).isEqualTo(history.get(i).getQueueProductColors());
+                assertThat(replayed.get(i).getMachineStates()).isEqualTo(history.get(i).getMachineStates());
+                assertThat(replayed.get(i).getTimestamp()).isEqualTo(history.get(i).getTimestamp());
+            }
+        } finally {
+            sessions.close(loaded.getId());
+            sessions.close(recorded.getId());
+        }
+
+        assertThatThrownBy(() -> runStore.getRun(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentStopsFinishTheStoredRunOnce() throws Exception {
+        SimulationSession session = sessions.create();
+        try {
+            ObjectInitDTO graph = new ObjectInitDTO();
+            graph.setQueues(List.of("Q0", "Q1"));
+            graph.setMachines(List.of("M1"));
+            facade.initializeObjects(session.getState(), graph);
+            facade.connectComponents(session.getState(), List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                    new ConnectionDTO("M1", "Q1", "OUTPUT")));
+            session.getLifecycle().startSimulation(1_000, EngineType.REALTIME, 100.0);
+            double finishedBefore = meterRegistry.counter("simulation.runs.finished").count();
+
+            List<Throwable> failures = new CopyOnWriteArrayList<>();
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> stoppers = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                Thread stopper = new Thread(() -> {
+                    try {
+                        go.await();
+                        session.getLifecycle().stopSimulation();
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                });
+                stopper.start();
+                stoppers.add(stopper);
+            }
+            go.countDown();
+            for (Thread stopper : stoppers) {
+                stopper.join(10_000);
+            }
+
+            assertThat(failures).isEmpty();
+            StoredRunDTO run = awaitFinished(session.getId());
+            assertThat(runStore.getRuns()).filteredOn(r -> r.getSessionId().equals(session.getId())).hasSize(1);
+            assertThat(run.getStoppedAt()).isNotNull();
+            assertThat(meterRegistry.counter("simulation.runs.finished").count() - finishedBefore).isEqualTo(1);
+        } finally {
+            sessions.close(session.getId());
+        }
+    }
+
+    @Test
+    void aRunCannotBeDeletedWhileItIsRecorded() throws Exception {
+        SimulationSession session = sessions.create();
+        try {
+            ObjectInitDTO graph = new ObjectInitDTO();
+            graph.setQueues(List.of("Q0", "Q1"));
+            graph.setMachines(List.of("M1"));
+            facade.initializeObjects(session.getState(), graph);
+            facade.connectComponents(session.getState(), List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                    new ConnectionDTO("M1", "Q1", "OUTPUT")));
+            session.getLifecycle().startSimulation(1_000, EngineType.REALTIME, 100.0);
+            StoredRunDTO started = awaitStored(session.getId());
+
+            assertThatThrownBy(() -> runStore.deleteRun(started.getId()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("recorded");
+
+            session.getLifecycle().stopSimulation();
+            StoredRunDTO run = awaitFinished(session.getId());
+            runStore.deleteRun(run.getId());
+
+            assertThatThrownBy(() -> runStore.getRun(run.getId())).isInstanceOf(IllegalArgumentException.class);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sim_run_frame WHERE run_id = ?",
+                    Long.class, run.getId())).isZero();
+        } finally {
+            sessions.close(session.getId());
+        }
+    }
+
+    private StoredRunDTO awaitStored(String sessionId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            for (StoredRunDTO run : runStore.getRuns()) {
+                if (run.getSessionId().equals(sessionId))
+                    return run;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("run of session " + sessionId + " was not started");
+    }
+
+    // the run summary is written by the background writer after the engine stops
+    private StoredRunDTO awaitFinished(String sessionId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            for (StoredRunDTO run : runStore.getRuns()) {
+                if (run.getSessionId().equals(sessionId) && run.getStoppedAt() != null)
+                    return run;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("run of session " + sessionId + " was not stored");
+    }
+}
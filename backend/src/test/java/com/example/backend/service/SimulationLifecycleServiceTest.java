@@ -0,0 +1,117 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.facade.SimulationFacade;
+import com.example.backend.model.SimQueue;
+import com.example.backend.session.SimulationSession;
+import com.example.backend.session.SimulationSessionRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class SimulationLifecycleServiceTest {
+
+    @Autowired
+    private SimulationSessionRegistry sessions;
+
+    @Autowired
+    private SimulationFacade facade;
+
+    @Test
+    void rejectedStartLeavesTheSessionStopped() {
+        SimulationSession session = sessions.create();
+        try {
+            SimulationStateService state = session.getState();
+            ObjectInitDTO graph = new ObjectInitDTO();
+            graph.setQueues(List.of("Q0", "Q1"));
+            graph.setMachines(List.of("M1"));
+            facade.initializeObjects(state, graph);
+            facade.connectComponents(state, List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                    new ConnectionDTO("M1", "Q1", "OUTPUT")));
+            state.declareSink("Q0"); // feeds M1
+            state.declareSink("Q1");
+
+            assertThatThrownBy(() -> session.getLifecycle().startSimulation(10))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("feeds a machine");
+            assertThat(state.getMode()).isEqualTo(SimulationMode.STOPPED);
+            assertThat(state.isRunning()).isFalse();
+
+            // not wedged: once the graph is fixed the run starts
+            facade.initializeObjects(state, graph);
+            facade.connectComponents(state, List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                    new ConnectionDTO("M1", "Q1", "OUTPUT")));
+            session.getLifecycle().startSimulation(10);
+            assertThat(state.getMode()).isEqualTo(SimulationMode.LIVE);
+            session.getLifecycle().stopSimulation();
+            assertThat(state.getMode()).isEqualTo(SimulationMode.STOPPED);
+        } finally {
+            sessions.close(session.getId());
+        }
+    }
+
+    @Test
+    void undeclaredDeadEndQueueIsRejectedOnceSinksAreDeclared() {
+        SimulationSession session = sessions.create();
+        try {
+            SimulationStateService state = session.getState();
+            ObjectInitDTO graph = new ObjectInitDTO();
+            graph.setQueues(List.of("Q0", "Q1", "Q2"));
+            graph.setMachines(List.of("M1"));
+            facade.initializeObjects(state, graph);
+            facade.connectComponents(state, List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                    new ConnectionDTO("M1", "Q1", "OUTPUT"), new ConnectionDTO("M1", "Q2", "OUTPUT")));
+            state.declareSink("Q1"); // Q2 is a dead end its products would never leave
+
+            assertThatThrownBy(() -> session.getLifecycle().startSimulation(10))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Q2");
+            assertThat(state.getMode()).isEqualTo(SimulationMode.STOPPED);
+
+            state.declareSink("Q2");
+            assertThat(state.resolveSinks()).extracting(SimQueue::getId).containsExactlyInAnyOrder("Q1", "Q2");
+        } finally {
+            sessions.close(session.getId());
+        }
+    }
+
+    @Test
+    void startWaitsForAStopOrResetInProgress() throws Exception {
+        SimulationSession session = sessions.create();
+        try {
+            SimulationStateService state = session.getState();
+            ObjectInitDTO graph = new ObjectInitDTO();
+            graph.setQueues(List.of("Q0", "Q1"));
+            graph.setMachines(List.of("M1"));
+            facade.initializeObjects(state, graph);
+            facade.connectComponents(state, List.of(new ConnectionDTO("M1", "Q0", "INPUT"),
+                    new ConnectionDTO("M1", "Q1", "OUTPUT")));
+            SimulationLifecycleService lifecycle = session.getLifecycle();
+
+            Thread starter = new Thread(() -> lifecycle.startSimulation(10));
+            synchronized (lifecycle) { // what stopSimulation and reset hold
+                starter.start();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (starter.getState() != Thread.State.BLOCKED && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertThat(starter.getState()).isEqualTo(Thread.State.BLOCKED);
+                assertThat(state.getMode()).isEqualTo(SimulationMode.STOPPED);
+            }
+            starter.join(10_000);
+
+            assertThat(state.getMode()).isEqualTo(SimulationMode.LIVE);
+            lifecycle.stopSimulation();
+        } finally {
+            sessions.close(session.getId());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.backend.service;
+
+import com.example.backend.model.buffer.QueueBackend;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimulationStateServiceTest {
+
+    @Test
+    void ringQueuesAreBoundedByTheirRing() {
+        SimulationStateService state = new SimulationStateService();
+        state.addQueue("Q0", QueueBackend.RING);
+        state.addQueue("Q1", QueueBackend.RING, 10);
+        state.addQueue("Q2", QueueBackend.LINKED);
+
+        assertThat(state.getQueues().get("Q0").getCapacity()).isEqualTo(65_536);
+        assertThat(state.getQueues().get("Q1").getCapacity()).isEqualTo(10);
+        assertThat(state.getQueues().get("Q2").getCapacity()).isZero();
+        assertThatThrownBy(() -> state.addQueue("Q3", QueueBackend.RING, 65_537))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Q3");
+    }
+
+    @Test
+    void outputWeightsOnlyNameOutputsOfTheMachine() {
+        SimulationStateService state = new SimulationStateService();
+        state.addQueue("Q0");
+        state.addQueue("Q1");
+        state.addMachine("M1");
+        state.connectInputQueue("M1", "Q0");
+        state.connectOutputQueue("M1", "Q1");
+
+        state.setOutputWeight("M1", "Q1", 2.0);
+
+        assertThat(state.getMachines().get("M1").getOutputWeights()).containsEntry("Q1", 2.0);
+        assertThatThrownBy(() -> state.setOutputWeight("M1", "Q0", 1.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Q0");
+        assertThatThrownBy(() -> state.setOutputWeight("M1", "Q9", 1.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Q9");
+    }
+
+    @Test
+    void inputWeightsOnlyNameInputsOfTheMachine() {
+        SimulationStateService state = new SimulationStateService();
+        state.addQueue("Q0");
+        state.addQueue("Q1");
+        state.addMachine("M1");
+        state.connectInputQueue("M1", "Q0");
+        state.connectOutputQueue("M1", "Q1");
+
+        state.setInputWeight("M1", "Q0", 3.0);
+
+        assertThat(state.getMachines().get("M1").getInputWeights()).containsEntry("Q0", 3.0);
+        assertThatThrownBy(() -> state.setInputWeight("M1", "Q1", 1.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Q1");
+        assertThatThrownBy(() -> state.setInputWeight("M1", "Q9", 1.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Q9");
+    }
+}
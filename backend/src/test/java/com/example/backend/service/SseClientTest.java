@@ -0,0 +1,328 @@
+package com.example.backend.service;
+
+import com.example.backend.mapper.SimStateMapper;
+import com.example.backend.snapshot.SimulationSnapshot;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseClientTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Timer timer = registry.timer("test");
+    private final SerialExecutor sender = new SerialExecutor();
+    private final JsonMapper json = JsonMapper.builder().build();
+
+    @AfterEach
+    void shutdown() {
+        sender.stop();
+    }
+
+    @Test
+    void dropOldestKeepsTheNewestFramesAndCountsTheRest() throws Exception {
+        GatedEmitter emitter = new GatedEmitter();
+        SseClient client = client(emitter, FrameDropPolicy.DROP_OLDEST, 2, 60_000, new AtomicBoolean());
+
+        client.offerFrame("f0");
+        emitter.awaitSending(); // f0 is now stuck in the send, the buffer fills behind it
+        int dropped = 0;
+        for (int i = 1; i <= 5; i++) {
+            dropped += client.offerFrame("f" + i);
+        }
+        client.offerControl("stop");
+        emitter.release(10);
+
+        emitter.awaitSent(4);
+        assertThat(dropped).isEqualTo(3);
+        assertThat(client.getDroppedFrames()).isEqualTo(3);
+        assertThat(emitter.sent).containsExactly("f0", "f4", "f5", "stop");
+    }
+
+    @Test
+    void latestOnlyHoldsASingleFrameButNeverDropsControlEvents() throws Exception {
+        GatedEmitter emitter = new GatedEmitter();
+        SseClient client = client(emitter, FrameDropPolicy.LATEST_ONLY, 64, 60_000, new AtomicBoolean());
+
+        client.offerFrame("f0");
+        emitter.awaitSending();
+        client.offerFrame("f1");
+        client.offerControl("stop");
+        client.offerFrame("f2");
+        client.offerFrame("f3");
+        emitter.release(10);
+
+        emitter.awaitSent(3);
+        assertThat(client.getDroppedFrames()).isEqualTo(2);
+        assertThat(emitter.sent).containsExactly("f0", "stop", "f3");
+    }
+
+    @Test
+    void evictsAClientThatKeepsDroppingPastTheLagLimit() throws Exception {
+        GatedEmitter emitter = new GatedEmitter();
+        AtomicBoolean disconnected = new AtomicBoolean();
+        SseClient client = client(emitter, FrameDropPolicy.DROP_OLDEST, 1, 50, disconnected);
+
+        client.offerFrame("f0");
+        emitter.awaitSending();
+        client.offerFrame("f1");
+        Thread.sleep(100);
+        client.offerFrame("f2"); // has to drop f1 while nothing went out for longer than the limit
+
+        assertThat(disconnected).isTrue();
+        assertThat(client.offerFrame("f3")).isZero(); // closed clients take nothing
+        emitter.release(10);
+    }
+
+    @Test
+    void stalledSendIsEvictedWithoutPoisoningTheSenderThread() throws Exception {
+        GatedEmitter stuck = new GatedEmitter();
+        AtomicBoolean disconnected = new AtomicBoolean();
+        SseClient stalled = client(stuck, FrameDropPolicy.DROP_OLDEST, 4, 50, disconnected);
+
+        stalled.offerFrame("f0");
+        stuck.awaitSending();
+        Thread.sleep(100);
+        assertThat(stalled.evictIfStalled()).isTrue();
+        assertThat(disconnected).isTrue();
+        stuck.release(1); // the stuck send now returns normally on the shared sender thread
+        assertThat(stuck.interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        GatedEmitter next = new GatedEmitter();
+        AtomicBoolean nextDisconnected = new AtomicBoolean();
+        SseClient healthy = client(next, FrameDropPolicy.DROP_OLDEST, 4, 60_000, nextDisconnected);
+        next.release(1);
+        healthy.offerFrame("g0");
+
+        next.awaitSent(1);
+        assertThat(next.sent).containsExactly("g0");
+        assertThat(nextDisconnected).isFalse();
+    }
+
+    @Test
+    void deltaClientFallsBackToAFullFrameAfterAGapAndEndsInTheFullState() throws Exception {
+        GatedEmitter emitter = new GatedEmitter();
+        SseClient client = new SseClient(1, emitter, StreamProtocol.DELTA, 2, FrameDropPolicy.DROP_OLDEST, 60_000,
+                sender, timer, timer, c -> { });
+        List<SimulationSnapshot> states = List.of(
+                snapshot(0, "IDLE", List.of()),
+                snapshot(10, "BUSY", List.of("#FF0000")),
+                snapshot(20, "BUSY", List.of("#FF0000", "#00FF00")),
+                snapshot(30, "IDLE", List.of("#00FF00")),
+                snapshot(40, "BUSY", List.of()),
+                snapshot(50, "IDLE", List.of("#0000FF")),
+                snapshot(60, "BUSY", List.of("#0000FF", "#FFFF00")));
+        List<PublishedFrame> published = new ArrayList<>();
+        for (int i = 0; i < states.size(); i++) {
+            published.add(frame(i + 1, i < 5 ? 1 : 2, states.get(i), i == 0 ? null : states.get(i - 1)));
+        }
+
+        client.offerTopology(1, () -> "{\"version\":1}".getBytes(StandardCharsets.UTF_8));
+        emitter.release(3);
+        client.offerFrame(published.get(0));
+        emitter.awaitSent(2);
+        client.offerFrame(published.get(1));
+        emitter.awaitSent(3);
+
+        client.offerFrame(published.get(2));
+        emitter.awaitSending(); // frame 3 is stuck in the send
+        assertThat(client.offerFrame(published.get(3))).isZero();
+        assertThat(client.offerFrame(published.get(4))).isZero();
+        assertThat(client.offerFrame(published.get(5))).isEqualTo(1); // frame 4 goes; frame 6 has a new graph
+        emitter.release(10);
+        emitter.awaitSent(7);
+        client.offerFrame(published.get(6));
+        emitter.awaitSent(8);
+
+        assertThat(emitter.names).containsExactly(
+                "topology", "frame", "frame", "frame", "frame", "topology", "frame", "frame");
+        List<JsonNode> frames = new ArrayList<>();
+        for (int i = 0; i < emitter.sent.size(); i++) {
+            if (emitter.names.get(i).equals("frame"))
+                frames.add(json.readTree(emitter.sent.get(i)));
+        }
+        // full on connect, deltas, full after the gap left by frame 4, full after the topology, then deltas again
+        assertThat(frames).extracting(f -> f.get("seq").asLong()).containsExactly(1L, 2L, 3L, 5L, 6L, 7L);
+        assertThat(frames).extracting(f -> f.get("baseSeq").asLong()).containsExactly(-1L, 1L, 2L, -1L, -1L, 6L);
+
+        Map<String, JsonNode> applied = new HashMap<>();
+        for (JsonNode frame : frames) {
+            apply(applied, frame);
+        }
+        Map<String, JsonNode> expected = new HashMap<>();
+        apply(expected, json.readTree(published.get(6).full()));
+        assertThat(applied).isEqualTo(expected);
+    }
+
+    @Test
+    void deltaClientResyncsAfterAFrameWithoutState() throws Exception {
+        GatedEmitter emitter = new GatedEmitter();
+        SseClient client = new SseClient(1, emitter, StreamProtocol.DELTA, 8, FrameDropPolicy.DROP_OLDEST, 60_000,
+                sender, timer, timer, c -> { });
+        SimulationSnapshot first = snapshot(0, "IDLE", List.of());
+        SimulationSnapshot second = snapshot(10, "BUSY", List.of("#FF0000"));
+        emitter.release(10);
+
+        client.offerTopology(1, () -> "{\"version\":1}".getBytes(StandardCharsets.UTF_8));
+        client.offerFrame(frame(1, 1, first, null));
+        client.offerFrame(new PublishedFrame(2, 1, () -> null, null, null, () -> new byte[0])); // legacy-only frame
+        client.offerFrame(frame(3, 1, second, first));
+        emitter.awaitSent(3);
+
+        assertThat(emitter.names).containsExactly("topology", "frame", "frame");
+        assertThat(json.readTree(emitter.sent.get(2)).get("baseSeq").asLong()).isEqualTo(-1L);
+    }
+
+    // a client's view: a full frame replaces everything, a delta overwrites the nodes it lists
+    private static void apply(Map<String, JsonNode> state, JsonNode frame) {
+        if (frame.get("baseSeq").asLong() < 0)
+            state.clear();
+        for (JsonNode machine : frame.get("machines")) {
+            state.put("M:" + machine.get("id").asString(), machine);
+        }
+        for (JsonNode queue : frame.get("queues")) {
+            state.put("Q:" + queue.get("id").asString(), queue);
+        }
+    }
+
+    private PublishedFrame frame(long seq, long topologyVersion, SimulationSnapshot snapshot,
+                                 SimulationSnapshot previous) {
+        Supplier<byte[]> full = () -> json.writeValueAsBytes(
+                SimStateMapper.toFrameDTO(seq, snapshot, null, Map.of(), SimulationMode.LIVE));
+        Supplier<byte[]> delta = previous == null ? full : () -> json.writeValueAsBytes(
+                SimStateMapper.toFrameDTO(seq, snapshot, previous, Map.of(), SimulationMode.LIVE));
+        byte[] topology = ("{\"version\":" + topologyVersion + "}").getBytes(StandardCharsets.UTF_8);
+        return new PublishedFrame(seq, topologyVersion, () -> null, delta, full, () -> topology);
+    }
+
+    private static SimulationSnapshot snapshot(long timestamp, String machineState, List<String> q0) {
+        return new SimulationSnapshot(
+                Map.of("M1", machineState.equals("BUSY") ? "#FF0000" : "GRAY"),
+                Map.of("M1", machineState),
+                Map.of("Q0", q0.size(), "Q1", 0),
+                Map.of("Q0", q0, "Q1", List.of()),
+                timestamp);
+    }
+
+    private SseClient client(SseEmitter emitter, FrameDropPolicy policy, int capacity, long maxLagMillis,
+                             AtomicBoolean disconnected) {
+        return new SseClient(1, emitter, StreamProtocol.FULL, capacity, policy, maxLagMillis, sender, timer, timer,
+                c -> disconnected.set(true));
+    }
+
+    // one thread running tasks in order; unlike a ThreadPoolExecutor it does not reset the interrupt
+    // flag between tasks, so whatever a task leaves on the thread reaches the next one
+    static class SerialExecutor implements Executor {
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private volatile boolean running = true;
+
+        SerialExecutor() {
+            Thread worker = new Thread(() -> {
+                while (running) {
+                    Runnable task = tasks.poll();
+                    if (task != null) {
+                        task.run();
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            }, "SseSender");
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void stop() {
+            running = false;
+        }
+    }
+
+    // each send waits for a permit, ignoring interrupts the way a blocked socket write does, and fails
+    // like a servlet write would if the thread still carries an interrupt when it gets going
+    static class GatedEmitter extends SseEmitter {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final List<String> names = new CopyOnWriteArrayList<>(); // event names, "" for unnamed events
+        final Semaphore permits = new Semaphore(0);
+        final AtomicInteger entered = new AtomicInteger();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (Thread.currentThread().isInterrupted())
+                throw new IOException("interrupted before writing");
+            entered.incrementAndGet();
+            permits.acquireUninterruptibly();
+            if (Thread.currentThread().isInterrupted())
+                interrupted.countDown();
+            String text = textOf(builder);
+            sent.add(linesOf(text, "data:"));
+            names.add(linesOf(text, "event:"));
+        }
+
+        // until a send is waiting for its permit
+        void awaitSending() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (entered.get() <= sent.size() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(entered.get()).isGreaterThan(sent.size());
+        }
+
+        void release(int sends) {
+            permits.release(sends);
+        }
+
+        void awaitSent(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(sent).hasSizeGreaterThanOrEqualTo(count);
+        }
+
+        static String textOf(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            for (DataWithMediaType part : builder.build()) {
+                Object value = part.getData();
+                text.append(value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : value);
+            }
+            return text.toString();
+        }
+
+        // the given field of the event, without the SSE framing
+        static String linesOf(String text, String field) {
+            StringBuilder value = new StringBuilder();
+            for (String line : text.split("\n")) {
+                if (line.startsWith(field))
+                    value.append(line.substring(field.length()));
+            }
+            return value.toString();
+        }
+    }
+}
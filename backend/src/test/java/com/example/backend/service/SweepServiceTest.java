@@ -0,0 +1,152 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ConnectionDTO;
+import com.example.backend.dto.DistributionDTO;
+import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.dto.SweepCandidateDTO;
+import com.example.backend.dto.SweepParameterDTO;
+import com.example.backend.dto.SweepReportDTO;
+import com.example.backend.dto.SweepRequestDTO;
+import com.example.backend.facade.SimulationFacade;
+import com.example.backend.model.distribution.DistributionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+class SweepServiceTest {
+
+    private final ReplicationService replicationService = new ReplicationService();
+    private final SweepService sweepService = new SweepService();
+
+    @BeforeEach
+    void wire() {
+        ReflectionTestUtils.setField(replicationService, "simulationFacade", new SimulationFacade());
+        replicationService.init();
+        ReflectionTestUtils.setField(sweepService, "replicationService", replicationService);
+        ReflectionTestUtils.setField(sweepService, "jsonMapper", JsonMapper.builder().build());
+    }
+
+    @AfterEach
+    void shutdown() {
+        replicationService.shutdown();
+    }
+
+    @Test
+    void gridSweepRunsEveryCandidateWithItsValuesApplied() {
+        SweepRequestDTO request = twoStageSweep(
+                new SweepParameterDTO(SweepParameterType.SERVERS, "M1", null, List.of(1.0, 2.0)),
+                new SweepParameterDTO(SweepParameterType.QUEUE_CAPACITY, "Q1", null, List.of(1.0, 100.0)),
+                new SweepParameterDTO(SweepParameterType.SERVICE_TIME, "M2", "value", List.of(50.0, 800.0)));
+
+        SweepReportDTO report = sweepService.run(request);
+
+        assertThat(report.getRuns()).isEqualTo(8);
+        assertThat(report.getCandidates()).extracting(SweepCandidateDTO::getParameters).containsExactly(
+                values(1, 1, 50), values(1, 1, 800), values(1, 100, 50), values(1, 100, 800),
+                values(2, 1, 50), values(2, 1, 800), values(2, 100, 50), values(2, 100, 800));
+        assertThat(report.getCandidates()).allMatch(candidate -> candidate.getThroughput() > 0);
+        assertThat(report.getFront()).isNotEmpty();
+
+        // with the 200 ms finish a server of M1 takes 800 ms a product, M2 250 or 1000 ms: with the fast M2
+        // a second M1 server doubles the output, with the slow one M2 caps both at the same rate
+        double oneServer = throughput(report, values(1, 100, 50));
+        double twoServers = throughput(report, values(2, 100, 50));
+        assertThat(twoServers).isCloseTo(2 * oneServer, withPercentage(10));
+        assertThat(throughput(report, values(2, 100, 800))).isLessThan(oneServer)
+                .isCloseTo(throughput(report, values(1, 100, 800)), withPercentage(10));
+    }
+
+    @Test
+    void unknownTargetsAndBadValuesAreRejectedBeforeAnythingRuns() {
+        SweepParameterDTO unknownMachine = new SweepParameterDTO(SweepParameterType.SERVERS, "M9", null, List.of(2.0));
+        SweepParameterDTO noServiceTime = new SweepParameterDTO(SweepParameterType.SERVICE_TIME, "M9", "value",
+                List.of(100.0));
+        SweepParameterDTO halfServer = new SweepParameterDTO(SweepParameterType.SERVERS, "M1", null, List.of(1.5));
+        SweepParameterDTO unknownField = new SweepParameterDTO(SweepParameterType.SERVICE_TIME, "M1", "median",
+                List.of(100.0));
+
+        assertThatThrownBy(() -> sweepService.run(twoStageSweep(unknownMachine)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("M9");
+        assertThatThrownBy(() -> sweepService.run(twoStageSweep(noServiceTime)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("M9");
+        assertThatThrownBy(() -> sweepService.run(twoStageSweep(halfServer)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("whole numbers");
+        assertThatThrownBy(() -> sweepService.run(twoStageSweep(unknownField)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("median");
+    }
+
+    @Test
+    void paretoFrontDropsCandidatesBeatenOnEveryMeasure() {
+        SweepCandidateDTO fast = candidate("fast", 2.0, 8, 4_000);
+        SweepCandidateDTO lean = candidate("lean", 1.5, 2, 1_500);
+        SweepCandidateDTO balanced = candidate("balanced", 1.8, 4, 2_000);
+        SweepCandidateDTO worse = candidate("worse", 1.7, 5, 2_500); // balanced is better on all three
+        SweepCandidateDTO tie = candidate("tie", 1.5, 2, 1_500); // equal to lean, neither dominates
+
+        List<SweepCandidateDTO> front = SweepService.paretoFront(List.of(lean, worse, fast, balanced, tie));
+
+        assertThat(front).containsExactly(fast, balanced, lean, tie);
+    }
+
+    @Test
+    void randomSweepSamplesDistinctCombinationsRepeatably() {
+        List<SweepParameterDTO> parameters = List.of(
+                new SweepParameterDTO(SweepParameterType.SERVERS, "M1", null, List.of(1.0, 2.0, 3.0, 4.0)),
+                new SweepParameterDTO(SweepParameterType.QUEUE_CAPACITY, "Q1", null, List.of(0.0, 5.0, 10.0)),
+                new SweepParameterDTO(SweepParameterType.SERVICE_TIME, "M1", "mean", List.of(500.0, 1000.0)));
+        long size = SweepService.gridSize(parameters);
+        assertThat(size).isEqualTo(24);
+
+        long[] sample = SweepService.pick(size, SweepStrategy.RANDOM, 10, 42);
+        assertThat(sample).hasSize(10).doesNotHaveDuplicates();
+        assertThat(Arrays.stream(sample).allMatch(i -> i >= 0 && i < size)).isTrue();
+        assertThat(SweepService.pick(size, SweepStrategy.RANDOM, 10, 42)).containsExactly(sample);
+        // asking for more than the grid runs the grid
+        assertThat(SweepService.pick(size, SweepStrategy.RANDOM, 100, 42)).hasSize(24);
+    }
+
+    private static SweepCandidateDTO candidate(String name, double throughput, double wip, double sojourn) {
+        return new SweepCandidateDTO(Map.of(name, 0.0), throughput, wip, sojourn, sojourn);
+    }
+
+    // Q0 -> M1 -> Q1 -> M2 -> Q2, a product every 50 ms, constant service times
+    private static SweepRequestDTO twoStageSweep(SweepParameterDTO... parameters) {
+        ObjectInitDTO graph = new ObjectInitDTO();
+        graph.setQueues(List.of("Q0", "Q1", "Q2"));
+        graph.setMachines(List.of("M1", "M2"));
+        graph.setSeed(7L);
+        graph.setArrivals(constant(50));
+        graph.setServiceTimes(Map.of("M1", constant(600), "M2", constant(100)));
+
+        SweepRequestDTO request = new SweepRequestDTO();
+        request.setObjects(graph);
+        request.setConnections(List.of(new ConnectionDTO("M1", "Q0", "INPUT"), new ConnectionDTO("M1", "Q1", "OUTPUT"),
+                new ConnectionDTO("M2", "Q1", "INPUT"), new ConnectionDTO("M2", "Q2", "OUTPUT")));
+        request.setParameters(List.of(parameters));
+        request.setProductCount(200);
+        return request;
+    }
+
+    private static Map<String, Double> values(double servers, double capacity, double serviceTime) {
+        return Map.of("M1.servers", servers, "Q1.capacity", capacity, "M2.serviceTime.value", serviceTime);
+    }
+
+    private static double throughput(SweepReportDTO report, Map<String, Double> values) {
+        return report.getCandidates().stream().filter(candidate -> candidate.getParameters().equals(values))
+                .findFirst().orElseThrow().getThroughput();
+    }
+
+    private static DistributionDTO constant(double millis) {
+        return new DistributionDTO(DistributionType.CONSTANT, millis, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.session;
+
+import com.example.backend.dto.ObjectInitDTO;
+import com.example.backend.facade.SimulationFacade;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class SimulationSessionRegistryTest {
+
+    @Autowired
+    private SimulationSessionRegistry sessions;
+
+    @Autowired
+    private SimulationFacade facade;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void sessionsKeepTheirOwnGraphAndMeters() {
+        SimulationSession first = sessions.create();
+        SimulationSession second = sessions.create();
+        try {
+            ObjectInitDTO graph = new ObjectInitDTO();
+            graph.setQueues(List.of("Q0", "Q1"));
+            graph.setMachines(List.of("M1"));
+            facade.initializeObjects(first.getState(), graph);
+
+            assertThat(first.getState()).isNotSameAs(second.getState());
+            assertThat(first.getState().getQueues()).containsOnlyKeys("Q0", "Q1");
+            assertThat(second.getState().getQueues()).isEmpty();
+            assertThat(sessions.get(null).getState().getQueues()).doesNotContainKey("Q1");
+            assertThat(meterRegistry.find("simulation.queue.depth").tag("session", first.getId()).gauges())
+                    .hasSize(2);
+        } finally {
+            sessions.close(second.getId());
+            sessions.close(first.getId());
+        }
+
+        assertThatThrownBy(() -> sessions.get(first.getId())).isInstanceOf(IllegalArgumentException.class);
+        assertThat(meterRegistry.find("simulation.queue.depth").tag("session", first.getId()).meters()).isEmpty();
+        assertThatThrownBy(() -> sessions.close(SimulationSessionRegistry.DEFAULT_SESSION))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
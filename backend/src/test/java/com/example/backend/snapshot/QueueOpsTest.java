@@ -0,0 +1,65 @@
+package com.example.backend.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueueOpsTest {
+
+    @Test
+    void diffTakesTheFewestPopsThatTurnBeforeIntoAfter() {
+        Random random = new Random(11);
+        for (int round = 0; round < 2_000; round++) {
+            // few colors, so repeated runs and periodic content are common
+            List<String> before = randomColors(random, random.nextInt(12), 1 + random.nextInt(3));
+            List<String> after = new ArrayList<>(before.subList(random.nextInt(before.size() + 1), before.size()));
+            after.addAll(randomColors(random, random.nextInt(6), 2));
+            if (random.nextInt(5) == 0)
+                after = randomColors(random, random.nextInt(12), 2); // not a FIFO continuation
+
+            QueueOps ops = QueueOps.diff(before, after);
+
+            assertThat(ops.getPops()).isEqualTo(fewestPops(before, after));
+            ArrayDeque<String> applied = new ArrayDeque<>(before);
+            ops.applyTo(applied);
+            assertThat(new ArrayList<>(applied)).isEqualTo(after);
+        }
+    }
+
+    @Test
+    void diffOfDeepSingleColorQueues() {
+        List<String> before = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            before.add("#FF0000");
+        }
+        List<String> after = new ArrayList<>(before.subList(1, before.size()));
+        after.add("#00FF00");
+
+        QueueOps ops = QueueOps.diff(before, after);
+
+        assertThat(ops.getPops()).isEqualTo(1);
+        assertThat(ops.getPushes()).containsExactly("#00FF00");
+    }
+
+    private static int fewestPops(List<String> before, List<String> after) {
+        for (int pops = 0; pops < before.size(); pops++) {
+            int kept = before.size() - pops;
+            if (kept <= after.size() && before.subList(pops, before.size()).equals(after.subList(0, kept)))
+                return pops;
+        }
+        return before.size();
+    }
+
+    private static List<String> randomColors(Random random, int count, int palette) {
+        List<String> colors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            colors.add("#" + random.nextInt(palette));
+        }
+        return colors;
+    }
+}
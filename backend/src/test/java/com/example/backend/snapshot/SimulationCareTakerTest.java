@@ -0,0 +1,103 @@
+package com.example.backend.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimulationCareTakerTest {
+
+    @Test
+    void rebuildsEveryFrameFromKeyframesAndDeltas() {
+        SimulationCareTaker caretaker = new SimulationCareTaker(8);
+        List<SimulationSnapshot> recorded = new ArrayList<>();
+        Random random = new Random(7);
+        List<String> q0 = new ArrayList<>();
+        List<String> q1 = new ArrayList<>();
+
+        for (int frame = 0; frame < 100; frame++) {
+            // FIFO traffic plus an occasional reorder that cannot be expressed as pops/pushes
+            if (random.nextBoolean()) q0.add("#" + random.nextInt(1000));
+            if (!q0.isEmpty() && random.nextInt(3) == 0) q1.add(q0.remove(0));
+            if (!q1.isEmpty() && random.nextInt(4) == 0) q1.remove(0);
+            if (frame % 37 == 0) Collections.reverse(q0);
+
+            Map<String, List<String>> colors = new HashMap<>();
+            colors.put("Q0", List.copyOf(q0));
+            colors.put("Q1", List.copyOf(q1));
+            SimulationSnapshot snapshot = new SimulationSnapshot(
+                    Map.of("M1", frame % 2 == 0 ? "GRAY" : "#00FF00"),
+                    Map.of("M1", frame % 2 == 0 ? "IDLE" : "BUSY"),
+                    Map.of("Q0", q0.size(), "Q1", q1.size()),
+                    colors,
+                    frame * 10L);
+            caretaker.addSnapshot(snapshot);
+            recorded.add(snapshot);
+        }
+
+        List<SimulationSnapshot> history = caretaker.getHistory();
+        assertThat(history).hasSize(recorded.size());
+        // sequential and random access must both agree with what was recorded
+        for (int i = 0; i < recorded.size(); i++) {
+            assertSame(history.get(i), recorded.get(i));
+        }
+        for (int i : new int[]{99, 3, 64, 65, 0, 17}) {
+            assertSame(history.get(i), recorded.get(i));
+        }
+
+        caretaker.clear();
+        assertThat(caretaker.getHistory()).isEmpty();
+        assertThat(history).hasSize(recorded.size());
+    }
+
+    @Test
+    void volumeCountsEveryChangeHeldUntilCleared() {
+        SimulationCareTaker caretaker = new SimulationCareTaker(8);
+        for (int frame = 0; frame < 20; frame++) {
+            caretaker.addDelta(new SnapshotDelta(Map.of("M1", "GRAY"), Map.of("M1", "IDLE"), Map.of("Q0", frame),
+                    Map.of("Q0", new QueueOps(0, List.of("#000000"))), frame));
+        }
+        // machine color, machine state, queue size and one push per frame
+        assertThat(caretaker.getVolume()).isEqualTo(20 * 4);
+
+        caretaker.clear();
+        assertThat(caretaker.getVolume()).isZero();
+    }
+
+    @Test
+    void currentSnapshotsKeepTheirQueueContentAsTheQueueMoves() {
+        SimulationCareTaker caretaker = new SimulationCareTaker(1_000);
+        List<String> q0 = new ArrayList<>();
+        List<List<String>> expected = new ArrayList<>();
+        List<List<String>> handedOut = new ArrayList<>();
+
+        for (int frame = 0; frame < 200; frame++) {
+            // a steadily refilled queue, long enough to move its colors to a new array several times
+            List<String> pushes = List.of("#" + frame, "#" + frame + "b");
+            int pops = frame % 3 == 0 ? 0 : 1;
+            caretaker.addDelta(new SnapshotDelta(Map.of(), Map.of(), Map.of("Q0", q0.size()),
+                    Map.of("Q0", new QueueOps(pops, pushes)), frame));
+            q0.subList(0, Math.min(pops, q0.size())).clear();
+            q0.addAll(pushes);
+
+            expected.add(List.copyOf(q0));
+            handedOut.add(caretaker.getCurrentSnapshot().getQueueProductColors().get("Q0"));
+        }
+
+        assertThat(handedOut).isEqualTo(expected);
+    }
+
+    private static void assertSame(SimulationSnapshot actual, SimulationSnapshot expected) {
+        assertThat(actual.getTimestamp()).isEqualTo(expected.getTimestamp());
+        assertThat(actual.getMachineColors()).isEqualTo(expected.getMachineColors());
+        assertThat(actual.getMachineStates()).isEqualTo(expected.getMachineStates());
+        assertThat(actual.getQueueSizes()).isEqualTo(expected.getQueueSizes());
+        assertThat(actual.getQueueProductColors()).isEqualTo(expected.getQueueProductColors());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.backend.trace;
+
+import com.example.backend.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TraceReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsCsvLinesAcrossChunkBoundaries() throws IOException {
+        Path file = dir.resolve("arrivals.csv");
+        Files.writeString(file, """
+                time,color,queue
+                # warm-up shift
+                1000,#FF8800,Q0\r
+                1500, , Q1
+                
+                2500
+                3000,#00ff00""");
+
+        // a 24 byte chunk splits most lines in two
+        List<TraceRecord> records = readAll(new CsvTraceReader(file, 24));
+
+        assertThat(records).containsExactly(
+                new TraceRecord(1000, 0xFF8800, "Q0"),
+                new TraceRecord(1500, TraceRecord.NO_COLOR, "Q1"),
+                new TraceRecord(2500, TraceRecord.NO_COLOR, null),
+                new TraceRecord(3000, 0x00FF00, null));
+    }
+
+    @Test
+    void rejectsMalformedCsvLines() throws IOException {
+        Path file = dir.resolve("broken.csv");
+        Files.writeString(file, "1000,#FF8800,Q0\n1500,orange,Q0\n");
+
+        try (CsvTraceReader reader = new CsvTraceReader(file)) {
+            reader.next();
+            assertThatThrownBy(reader::next).isInstanceOf(IOException.class).hasMessageContaining("line 2");
+        }
+    }
+
+    @Test
+    void binaryTraceRoundTripsThroughSeveralWindows() throws IOException {
+        Path file = dir.resolve("arrivals.trace");
+        List<TraceRecord> written = new ArrayList<>();
+        try (BinaryTraceWriter writer = new BinaryTraceWriter(file, List.of("Q0", "Q1"))) {
+            for (int i = 0; i < 10; i++) {
+                TraceRecord record = new TraceRecord(i * 250L, i % 3 == 0 ? TraceRecord.NO_COLOR : 0x112233 * i,
+                        i % 4 == 0 ? null : "Q" + (i % 2));
+                writer.write(record);
+                written.add(record);
+            }
+        }
+
+        // three records per mapped window
+        assertThat(readAll(new BinaryTraceReader(file, 3))).isEqualTo(written);
+        assertThat(readAll(TraceReader.open(file))).isEqualTo(written);
+    }
+
+    @Test
+    void rejectsBinaryColorsOutsideRgb() throws IOException {
+        Path file = dir.resolve("broken.trace");
+        try (BinaryTraceWriter writer = new BinaryTraceWriter(file, List.of("Q0"))) {
+            writer.write(new TraceRecord(0, 0xFFFFFF, null));
+            writer.write(new TraceRecord(250, 0x1000000, null));
+        }
+
+        try (BinaryTraceReader reader = new BinaryTraceReader(file)) {
+            assertThat(reader.next().rgb()).isEqualTo(0xFFFFFF);
+            assertThatThrownBy(reader::next).isInstanceOf(IOException.class).hasMessageContaining("color");
+        }
+    }
+
+    @Test
+    void productsShowTheExactTraceColor() throws IOException {
+        List<String> colors = List.of("#123456", "#FF8800", "#ABCDEF", "#000001");
+        Path csv = dir.resolve("colors.csv");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < colors.size(); i++) {
+            lines.append(i * 100).append(',').append(colors.get(i)).append('\n');
+        }
+        Files.writeString(csv, lines);
+        Path binary = dir.resolve("colors.trace");
+        try (BinaryTraceWriter writer = new BinaryTraceWriter(binary, List.of())) {
+            for (TraceRecord record : readAll(new CsvTraceReader(csv))) {
+                writer.write(record);
+            }
+        }
+
+        assertThat(readAll(new CsvTraceReader(csv))).extracting(r -> new Product(r.rgb()).getColor())
+                .containsExactlyElementsOf(colors);
+        assertThat(readAll(new BinaryTraceReader(binary))).extracting(r -> new Product(r.rgb()).getColor())
+                .containsExactlyElementsOf(colors);
+    }
+
+    @Test
+    void openTellsTheFormatsApart() throws IOException {
+        Path csv = dir.resolve("short.csv");
+        Files.writeString(csv, "5\n");
+        Path binary = dir.resolve("empty.trace");
+        new BinaryTraceWriter(binary, List.of()).close();
+
+        try (TraceReader reader = TraceReader.open(csv)) {
+            assertThat(reader).isInstanceOf(CsvTraceReader.class);
+            assertThat(reader.next()).isEqualTo(new TraceRecord(5, TraceRecord.NO_COLOR, null));
+        }
+        try (TraceReader reader = TraceReader.open(binary)) {
+            assertThat(reader).isInstanceOf(BinaryTraceReader.class);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    private static List<TraceRecord> readAll(TraceReader reader) throws IOException {
+        List<TraceRecord> records = new ArrayList<>();
+        try (reader) {
+            TraceRecord record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class StudentTTest {
+
+    @Test
+    void matchesTabulatedCriticalValues() {
+        assertThat(StudentT.critical(0.95, 1)).isCloseTo(12.706, within(1e-3));
+        assertThat(StudentT.critical(0.95, 2)).isCloseTo(4.303, within(1e-3));
+        assertThat(StudentT.critical(0.95, 9)).isCloseTo(2.262, within(1e-3));
+        assertThat(StudentT.critical(0.99, 30)).isCloseTo(2.750, within(1e-3));
+        assertThat(StudentT.critical(0.90, 120)).isCloseTo(1.658, within(1e-3));
+        // approaches the normal value with many replications
+        assertThat(StudentT.critical(0.95, 5_000)).isCloseTo(1.960, within(1e-3));
+    }
+
+    @Test
+    void rejectsLevelsOutsideTheUnitInterval() {
+        assertThatThrownBy(() -> StudentT.critical(1.0, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> StudentT.critical(0.95, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}